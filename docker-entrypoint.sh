@@ -0,0 +1,62 @@
+#!/bin/sh
+#
+# Starts the application in one of three modes, chosen with STARTUP_MODE:
+#
+#   crac   Restore from a CRaC checkpoint. The first start creates the checkpoint
+#          right after the Spring context has refreshed; later starts restore it in
+#          milliseconds. Needs a CRaC JDK (this image has one) and permission to
+#          checkpoint: --cap-add CHECKPOINT_RESTORE --cap-add SYS_PTRACE, or --privileged.
+#          Falls back to cds when the checkpoint can't be created.
+#   cds    Start with the AppCDS archive built into the image (default).
+#   plain  Plain java -jar.
+#
+# Configuration is frozen into a checkpoint, so checkpoints are kept per
+# combination of jar, JVM options, arguments and application environment.
+
+APP=/app/extracted/app.jar
+ARCHIVE=/app/extracted/app.jsa
+CHECKPOINT_ROOT=${CHECKPOINT_ROOT:-/app/checkpoint}
+
+start_cds() {
+    if [ -f "$ARCHIVE" ]; then
+        exec java -XX:SharedArchiveFile="$ARCHIVE" $JAVA_OPTS $JFR_OPTS -jar "$APP" "$@"
+    fi
+    start_plain "$@"
+}
+
+start_plain() {
+    exec java $JAVA_OPTS $JFR_OPTS -jar "$APP" "$@"
+}
+
+start_crac() {
+    key=$( (sha1sum "$APP"; echo "$JAVA_OPTS $*"; \
+        env | grep -E '^(HUE|SCHEDULE|WEATHER|COLOR_MAPPING|STREAMING|CLUSTER|TRACING|SERVER|SPRING|MANAGEMENT)_' | sort) \
+        | sha1sum | cut -c1-12)
+    checkpoint="$CHECKPOINT_ROOT/$key"
+    
+    if [ ! -f "$checkpoint/.complete" ]; then
+        echo "Creating checkpoint $checkpoint"
+        rm -rf "$checkpoint"
+        mkdir -p "$checkpoint"
+        # The JVM is killed once the checkpoint is written (exit 137). No flight
+        # recording here: start one after the restore with jcmd if needed.
+        java -XX:CRaCCheckpointTo="$checkpoint" -Dspring.context.checkpoint=onRefresh \
+            $JAVA_OPTS -jar "$APP" "$@"
+        status=$?
+        if [ $status -ne 0 ] && [ $status -ne 137 ] || [ -z "$(ls -A "$checkpoint")" ]; then
+            echo "Checkpoint could not be created, starting with AppCDS instead"
+            rm -rf "$checkpoint"
+            start_cds "$@"
+        fi
+        touch "$checkpoint/.complete"
+    fi
+    
+    echo "Restoring checkpoint $checkpoint"
+    exec java -XX:CRaCRestoreFrom="$checkpoint"
+}
+
+case "${STARTUP_MODE:-cds}" in
+    crac) start_crac "$@" ;;
+    plain) start_plain "$@" ;;
+    *) start_cds "$@" ;;
+esac
@@ -1,11 +1,14 @@
 package io.github.greenstevester.hue_mood_orologist;
 
+import io.github.greenstevester.hue_mood_orologist.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class HueMoodOrologistApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,82 @@
+package io.github.greenstevester.hue_mood_orologist.api;
+
+import io.github.greenstevester.hue_mood_orologist.config.ApiProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the control API, which changes the lights and the schedule. With
+ * api.token set, every request needs {@code Authorization: Bearer <token>};
+ * without one, only clients on this machine are served, so binding the
+ * server to another interface doesn't open the API by itself.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ApiTokenFilter extends OncePerRequestFilter {
+    
+    private static final String BEARER = "Bearer ";
+    
+    /**
+     * Decodes the path and drops ;parameters, as Spring MVC does before
+     * matching, so {@code /api;x/pause} or {@code /%61pi/pause} can't slip past
+     */
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+    
+    private final ApiProperties apiProperties;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !PATH_HELPER.getPathWithinApplication(request).startsWith("/api/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = apiProperties.getToken();
+        if (token == null || token.isBlank()) {
+            if (!isLoopback(request.getRemoteAddr())) {
+                log.debug("Refused {} from {}: api.token is not set", request.getRequestURI(), request.getRemoteAddr());
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "Set api.token to use the API from another host");
+                return;
+            }
+        } else if (!matches(request.getHeader(HttpHeaders.AUTHORIZATION), token)) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+    
+    private static boolean matches(String authorization, String token) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return false;
+        }
+        // Constant time, so the token can't be guessed from response times
+        return MessageDigest.isEqual(authorization.substring(BEARER.length()).trim().getBytes(StandardCharsets.UTF_8),
+            token.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static boolean isLoopback(String address) {
+        try {
+            // A literal address, so nothing is looked up
+            return address != null && InetAddress.getByName(address).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
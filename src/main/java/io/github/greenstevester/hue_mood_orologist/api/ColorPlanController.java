@@ -0,0 +1,49 @@
+package io.github.greenstevester.hue_mood_orologist.api;
+
+import io.github.greenstevester.hue_mood_orologist.model.ColorPlanEntry;
+import io.github.greenstevester.hue_mood_orologist.model.ColorPlanResult;
+import io.github.greenstevester.hue_mood_orologist.service.ColorPlanService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lets other systems (building management, calendars) set many lights in
+ * one request instead of one request per light. A plan can hold lights
+ * against weather updates, so callers on other hosts need api.token
+ * ({@link ApiTokenFilter}, which checks the decoded path, so spellings
+ * like {@code /api;x/color-plans} are guarded too).
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class ColorPlanController {
+    
+    private final ColorPlanService colorPlanService;
+    
+    public record ColorPlan(List<ColorPlanEntry> entries) {
+    }
+    
+    /**
+     * Apply the plan and answer once the lights are updated. Entries that
+     * can't be applied are listed in the response rather than failing the
+     * whole plan.
+     */
+    @PostMapping("/color-plans")
+    public CompletableFuture<ResponseEntity<ColorPlanResult>> applyColorPlan(@RequestBody ColorPlan plan) {
+        if (plan.entries() == null || plan.entries().isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        if (!colorPlanService.isReady()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        return colorPlanService.apply(plan.entries()).thenApply(ResponseEntity::ok);
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.greenstevester.hue_mood_orologist.api;
+
+import io.github.greenstevester.hue_mood_orologist.config.ScheduleProperties;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.SchedulerStatus;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
+import io.github.greenstevester.hue_mood_orologist.pipeline.WeatherPipeline;
+import io.github.greenstevester.hue_mood_orologist.scheduler.WeatherCheckScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Changes the schedule and triggers checks at runtime, so none of it needs
+ * a restart. Requests are served on virtual threads
+ * ({@code spring.threads.virtual.enabled}).
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class ControlController {
+    
+    private final WeatherCheckScheduler weatherCheckScheduler;
+    private final WeatherPipeline weatherPipeline;
+    private final ScheduleProperties scheduleProperties;
+    
+    public record IntervalChange(ScheduleProperties.ScheduleInterval interval) {
+    }
+    
+    @GetMapping("/schedule")
+    public SchedulerStatus getSchedule() {
+        return new SchedulerStatus(weatherCheckScheduler.isPaused(), scheduleProperties.getInterval(),
+            weatherCheckScheduler.getStatuses());
+    }
+    
+    /**
+     * Change the global interval; a run in progress is not interrupted.
+     * Answers 503 while the scheduler is not running.
+     */
+    @PutMapping("/schedule/interval")
+    public ResponseEntity<SchedulerStatus> changeInterval(@RequestBody IntervalChange change) {
+        if (change.interval() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!weatherCheckScheduler.updateSchedule(change.interval())) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(getSchedule());
+    }
+    
+    /**
+     * Check the weather now and answer once the lights are updated;
+     * concurrent calls share one check. Answers 503 while the scheduler is
+     * not running.
+     */
+    @PostMapping("/refresh")
+    public CompletableFuture<ResponseEntity<CycleResult>> refresh() {
+        return weatherCheckScheduler.refresh()
+            .map(check -> check.thenApply(ResponseEntity::ok))
+            .orElseGet(() -> CompletableFuture.completedFuture(
+                ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()));
+    }
+    
+    @PostMapping("/pause")
+    public SchedulerStatus pause() {
+        weatherCheckScheduler.pause();
+        return getSchedule();
+    }
+    
+    @PostMapping("/resume")
+    public SchedulerStatus resume() {
+        weatherCheckScheduler.resume();
+        return getSchedule();
+    }
+    
+    @GetMapping("/analysis")
+    public ResponseEntity<WeatherAnalysis> getAnalysis() {
+        return ResponseEntity.of(weatherPipeline.getLatestAnalysis());
+    }
+}
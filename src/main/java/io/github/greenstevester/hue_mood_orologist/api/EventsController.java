@@ -0,0 +1,33 @@
+package io.github.greenstevester.hue_mood_orologist.api;
+
+import io.github.greenstevester.hue_mood_orologist.events.MoodStateBroadcaster;
+import io.github.greenstevester.hue_mood_orologist.model.MoodSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Live view of the service's decisions for dashboards: the current state
+ * on request, or as a Server-Sent Events stream of "snapshot", "analysis",
+ * "condition" and "lights" events
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class EventsController {
+    
+    private final MoodStateBroadcaster moodStateBroadcaster;
+    
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events() {
+        return moodStateBroadcaster.subscribe();
+    }
+    
+    @GetMapping("/state")
+    public MoodSnapshot getState() {
+        return moodStateBroadcaster.getSnapshot();
+    }
+}
@@ -0,0 +1,256 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.storage.AtomicFiles;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether the certificate a bridge presents really is that bridge's.
+ * Bridges serve a certificate issued to their bridge id rather than their
+ * IP address, so the usual host name check can't apply; instead:
+ * <ul>
+ *   <li>with hue.bridge-ca-file set (Signify's bridge root CA), the chain must lead to it</li>
+ *   <li>when the bridge id is known, configured or discovered, the certificate's CN must be that id</li>
+ *   <li>the certificate seen first is pinned, and any other one is refused until its pin is removed</li>
+ * </ul>
+ * hue.insecure-trust-all-certificates turns all of this off and is meant for
+ * test setups only.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BridgeCertificateVerifier {
+    
+    private final HueProperties hueProperties;
+    private final Map<String, String> pins = new ConcurrentHashMap<>();
+    private volatile boolean pinsLoaded;
+    
+    /**
+     * TLS settings for the connection to one bridge
+     */
+    public record BridgeTls(SSLContext sslContext, HostnameVerifier hostnameVerifier) {
+    }
+    
+    /**
+     * @param bridgeId id the bridge's certificate must be issued to; null if not known
+     */
+    public BridgeTls forBridge(String bridgeName, String bridgeId) {
+        if (hueProperties.isInsecureTrustAllCertificates()) {
+            log.warn("Certificate checks for bridge '{}' are disabled (hue.insecure-trust-all-certificates)",
+                bridgeName);
+            return new BridgeTls(sslContext(new TrustingTrustManager()), (hostname, session) -> true);
+        }
+        X509TrustManager trustManager = new BridgeTrustManager(bridgeName, bridgeId, caTrustManager());
+        // The certificate names the bridge id, not the address it was reached at
+        return new BridgeTls(sslContext(trustManager), (hostname, session) -> {
+            try {
+                return session.getPeerCertificates()[0] instanceof X509Certificate certificate
+                    && isIssuedTo(certificate, bridgeId);
+            } catch (SSLPeerUnverifiedException e) {
+                return false;
+            }
+        });
+    }
+    
+    /**
+     * Whether the certificate names the bridge id; true when the id isn't known
+     */
+    static boolean isIssuedTo(X509Certificate certificate, String bridgeId) {
+        return bridgeId == null || bridgeId.isBlank() || bridgeId.equalsIgnoreCase(commonName(certificate));
+    }
+    
+    /**
+     * Accept the certificate if it is the pinned one, or pin it if there is none yet
+     */
+    void verifyPin(String bridgeName, X509Certificate certificate) throws CertificateException {
+        loadPins();
+        String fingerprint = fingerprint(certificate);
+        String pinned = pins.putIfAbsent(bridgeName, fingerprint);
+        if (pinned == null) {
+            log.info("Pinned certificate {} of bridge '{}'", fingerprint, bridgeName);
+            savePins();
+        } else if (!pinned.equals(fingerprint)) {
+            throw new CertificateException("Bridge '" + bridgeName + "' presented certificate " + fingerprint
+                + " instead of the pinned " + pinned + "; if the bridge was replaced, remove its entry from "
+                + hueProperties.getCertificatePinFile());
+        }
+    }
+    
+    static String commonName(X509Certificate certificate) {
+        try {
+            for (Rdn rdn : new LdapName(certificate.getSubjectX500Principal().getName()).getRdns()) {
+                if (rdn.getType().equalsIgnoreCase("CN")) {
+                    return rdn.getValue().toString();
+                }
+            }
+        } catch (InvalidNameException e) {
+            log.debug("Unreadable certificate subject: {}", e.getMessage());
+        }
+        return null;
+    }
+    
+    private X509TrustManager caTrustManager() {
+        String caFile = hueProperties.getBridgeCaFile();
+        if (caFile == null || caFile.isBlank()) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(Path.of(caFile))) {
+            KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            trustStore.load(null, null);
+            int index = 0;
+            for (Certificate certificate : CertificateFactory.getInstance("X.509").generateCertificates(in)) {
+                trustStore.setCertificateEntry("bridge-ca-" + index++, certificate);
+            }
+            TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            factory.init(trustStore);
+            for (TrustManager trustManager : factory.getTrustManagers()) {
+                if (trustManager instanceof X509TrustManager x509) {
+                    return x509;
+                }
+            }
+            throw new IllegalStateException("No X.509 trust manager for " + caFile);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not read the bridge CA from " + caFile, e);
+        }
+    }
+    
+    private static SSLContext sslContext(X509TrustManager trustManager) {
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[]{trustManager}, null);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not set up TLS for the Hue bridge", e);
+        }
+    }
+    
+    private static String fingerprint(X509Certificate certificate) throws CertificateException {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private synchronized void loadPins() throws CertificateException {
+        if (pinsLoaded) {
+            return;
+        }
+        Path file = pinFile();
+        if (!Files.exists(file)) {
+            pinsLoaded = true;
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+            properties.forEach((bridgeName, fingerprint) -> pins.put(bridgeName.toString(), fingerprint.toString()));
+            pinsLoaded = true;
+        } catch (IOException e) {
+            // Refusing the bridge is safer than silently re-pinning whatever answers now
+            throw new CertificateException("Could not read bridge certificate pins from " + file, e);
+        }
+    }
+    
+    private synchronized void savePins() {
+        Path file = pinFile();
+        Properties properties = new Properties();
+        properties.putAll(pins);
+        try {
+            AtomicFiles.writeProperties(file, properties, "Hue Mood Orologist pinned bridge certificates (SHA-256)");
+        } catch (IOException e) {
+            log.warn("Could not persist bridge certificate pins to {}: {}", file, e.getMessage());
+        }
+    }
+    
+    private Path pinFile() {
+        return Path.of(hueProperties.getCertificatePinFile());
+    }
+    
+    /**
+     * Chain check against the bridge CA if one is configured, then the bridge id, then the pin
+     */
+    private final class BridgeTrustManager implements X509TrustManager {
+    
+        private final String bridgeName;
+        private final String bridgeId;
+        private final X509TrustManager caTrust;
+        
+        private BridgeTrustManager(String bridgeName, String bridgeId, X509TrustManager caTrust) {
+            this.bridgeName = bridgeName;
+            this.bridgeId = bridgeId;
+            this.caTrust = caTrust;
+        }
+        
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            throw new CertificateException("Client certificates are not accepted");
+        }
+        
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            if (chain == null || chain.length == 0) {
+                throw new CertificateException("Bridge '" + bridgeName + "' presented no certificate");
+            }
+            if (caTrust != null) {
+                caTrust.checkServerTrusted(chain, authType);
+            }
+            // Checked before pinning, so a certificate for another bridge is never pinned
+            if (!isIssuedTo(chain[0], bridgeId)) {
+                throw new CertificateException("Certificate of bridge '" + bridgeName + "' is issued to " 
+                    + commonName(chain[0]) + ", not bridge " + bridgeId);
+            }
+            verifyPin(bridgeName, chain[0]);
+        }
+        
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return caTrust != null ? caTrust.getAcceptedIssuers() : new X509Certificate[0];
+        }
+    }
+    
+    private static final class TrustingTrustManager implements X509TrustManager {
+    
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+        
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+        
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
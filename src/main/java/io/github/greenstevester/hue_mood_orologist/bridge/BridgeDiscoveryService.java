@@ -0,0 +1,275 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.model.BridgeConfig;
+import io.github.greenstevester.hue_mood_orologist.model.DiscoveredBridge;
+import io.github.greenstevester.hue_mood_orologist.model.NupnpBridge;
+import io.github.greenstevester.hue_mood_orologist.storage.AtomicFiles;
+import io.github.greenstevester.heuvana.HueBridge;
+import io.github.greenstevester.heuvana.discovery.HueBridgeDiscoveryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Finds the primary bridge. The last bridge found is cached on disk and
+ * re-verified on boot with one quick request; only when that fails do mDNS,
+ * N-UPnP and a bounded subnet probe race each other, and the first bridge
+ * that answers with its identity wins.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BridgeDiscoveryService {
+    
+    private static final String NUPNP_URL = "https://discovery.meethue.com/";
+    private static final String CACHE_BRIDGE_ID = "bridge-id";
+    private static final String CACHE_IP = "ip";
+    
+    private final HueProperties hueProperties;
+    private final RestClient.Builder restClientBuilder;
+    
+    public Optional<DiscoveredBridge> discover() {
+        long started = System.nanoTime();
+        
+        Optional<DiscoveredBridge> cached = loadCache()
+            .flatMap(bridge -> verify(bridge.getIp(), hueProperties.getDiscoveryVerifyTimeout(), "cache")
+                .filter(verified -> verified.getBridgeId().equalsIgnoreCase(bridge.getBridgeId())));
+        if (cached.isPresent()) {
+            log.info("Cached Hue bridge {} verified at {} in {}ms", 
+                cached.get().getBridgeId(), cached.get().getIp(), elapsedMillis(started));
+            return cached;
+        }
+        
+        Optional<DiscoveredBridge> discovered = raceStrategies();
+        discovered.ifPresent(bridge -> {
+            log.info("Discovered Hue bridge {} at {} via {} in {}ms", 
+                bridge.getBridgeId(), bridge.getIp(), bridge.getSource(), elapsedMillis(started));
+            saveCache(bridge);
+        });
+        return discovered;
+    }
+    
+    private Optional<DiscoveredBridge> raceStrategies() {
+        List<String> strategies = hueProperties.getDiscoveryStrategies();
+        if (strategies.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        CompletableFuture<DiscoveredBridge> winner = new CompletableFuture<>();
+        List<Future<?>> running = new ArrayList<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        
+        try {
+            for (String strategy : strategies) {
+                switch (strategy.trim().toLowerCase()) {
+                    case "mdns" -> running.add(discoverWithMdns(winner));
+                    case "nupnp" -> running.add(executor.submit(() -> discoverWithNupnp(winner)));
+                    case "subnet" -> running.add(executor.submit(() -> probeSubnets(winner)));
+                    default -> log.warn("Unknown bridge discovery strategy '{}'", strategy);
+                }
+            }
+            return Optional.of(winner.get(hueProperties.getDiscoveryTimeout(), TimeUnit.SECONDS));
+        } catch (TimeoutException e) {
+            log.warn("No Hue bridge answered within {}s", hueProperties.getDiscoveryTimeout());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (Exception e) {
+            log.error("Error during bridge discovery", e);
+            return Optional.empty();
+        } finally {
+            running.forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+    
+    private Future<?> discoverWithMdns(CompletableFuture<DiscoveredBridge> winner) {
+        return new HueBridgeDiscoveryService().discoverBridges((HueBridge bridge) -> {
+            log.debug("Found bridge via mDNS/UPnP: {}", bridge);
+            if (!winner.isDone()) {
+                verify(bridge.getIp(), hueProperties.getDiscoveryVerifyTimeout(), "mdns")
+                    .ifPresent(winner::complete);
+            }
+        });
+    }
+    
+    private void discoverWithNupnp(CompletableFuture<DiscoveredBridge> winner) {
+        try {
+            NupnpBridge[] bridges = restClient(hueProperties.getDiscoveryVerifyTimeout())
+                .get()
+                .uri(NUPNP_URL)
+                .retrieve()
+                .body(NupnpBridge[].class);
+            if (bridges == null) {
+                return;
+            }
+            for (NupnpBridge bridge : bridges) {
+                if (winner.isDone()) {
+                    return;
+                }
+                verify(bridge.getInternalIpAddress(), hueProperties.getDiscoveryVerifyTimeout(), "nupnp")
+                    .ifPresent(winner::complete);
+            }
+        } catch (Exception e) {
+            log.debug("N-UPnP discovery failed: {}", e.getMessage());
+        }
+    }
+    
+    private void probeSubnets(CompletableFuture<DiscoveredBridge> winner) {
+        List<String> candidates = subnetCandidates();
+        if (candidates.isEmpty()) {
+            return;
+        }
+        log.debug("Probing {} addresses on the local subnet(s)", candidates.size());
+        
+        Semaphore permits = new Semaphore(hueProperties.getDiscoveryProbeConcurrency());
+        RestClient probeClient = restClient(hueProperties.getDiscoveryProbeTimeout());
+        try (ExecutorService probes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String ip : candidates) {
+                if (winner.isDone()) {
+                    break;
+                }
+                permits.acquire();
+                probes.submit(() -> {
+                    try {
+                        if (!winner.isDone()) {
+                            verify(probeClient, ip, "subnet").ifPresent(winner::complete);
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Every other IPv4 address in the /24 of each site-local interface
+     */
+    private List<String> subnetCandidates() {
+        Set<String> candidates = new LinkedHashSet<>();
+        try {
+            for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!networkInterface.isUp() || networkInterface.isLoopback() || networkInterface.isVirtual()) {
+                    continue;
+                }
+                for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+                    InetAddress address = interfaceAddress.getAddress();
+                    if (!(address instanceof Inet4Address) || !address.isSiteLocalAddress()) {
+                        continue;
+                    }
+                    byte[] octets = address.getAddress();
+                    String prefix = (octets[0] & 0xff) + "." + (octets[1] & 0xff) + "." + (octets[2] & 0xff) + ".";
+                    for (int host = 1; host < 255; host++) {
+                        if (host != (octets[3] & 0xff)) {
+                            candidates.add(prefix + host);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Could not enumerate network interfaces: {}", e.getMessage());
+        }
+        return new ArrayList<>(candidates);
+    }
+    
+    Optional<DiscoveredBridge> verify(String ip, Duration timeout, String source) {
+        if (ip == null || ip.isBlank()) {
+            return Optional.empty();
+        }
+        return verify(restClient(timeout), ip, source);
+    }
+    
+    private Optional<DiscoveredBridge> verify(RestClient client, String ip, String source) {
+        try {
+            BridgeConfig config = client.get()
+                .uri("http://" + ip + "/api/0/config")
+                .retrieve()
+                .body(BridgeConfig.class);
+            if (config != null && config.getBridgeId() != null && !config.getBridgeId().isBlank()) {
+                return Optional.of(new DiscoveredBridge(config.getBridgeId(), ip, source));
+            }
+        } catch (Exception e) {
+            log.trace("No bridge at {}: {}", ip, e.getMessage());
+        }
+        return Optional.empty();
+    }
+    
+    private RestClient restClient(Duration timeout) {
+        HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(timeout)
+            .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(timeout);
+        return restClientBuilder.clone()
+            .requestFactory(requestFactory)
+            .build();
+    }
+    
+    private Optional<DiscoveredBridge> loadCache() {
+        Path file = Path.of(hueProperties.getDiscoveryCacheFile());
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+            String bridgeId = properties.getProperty(CACHE_BRIDGE_ID);
+            String ip = properties.getProperty(CACHE_IP);
+            if (bridgeId == null || ip == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new DiscoveredBridge(bridgeId, ip, "cache"));
+        } catch (Exception e) {
+            log.warn("Could not read bridge discovery cache {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    void saveCache(DiscoveredBridge bridge) {
+        Path file = Path.of(hueProperties.getDiscoveryCacheFile());
+        Properties properties = new Properties();
+        properties.setProperty(CACHE_BRIDGE_ID, bridge.getBridgeId());
+        properties.setProperty(CACHE_IP, bridge.getIp());
+        try {
+            AtomicFiles.writeProperties(file, properties, "Hue Mood Orologist discovered bridge");
+        } catch (IOException e) {
+            log.warn("Could not write bridge discovery cache {}: {}", file, e.getMessage());
+        }
+    }
+    
+    private long elapsedMillis(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+}
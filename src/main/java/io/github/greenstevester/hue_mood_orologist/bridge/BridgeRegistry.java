@@ -0,0 +1,168 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.model.DiscoveredBridge;
+import io.github.greenstevester.heuvana.v2.Hue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * All Hue bridges this instance controls. The primary bridge comes from
+ * hue.bridge-ip/hue.api-key (or discovery); larger installations add more
+ * bridges under hue.bridges[n]. Installations that only list bridges there
+ * and set no hue.bridge-ip have no primary, so nothing is discovered. Each
+ * bridge gets its own dispatch lane, keyed by name, so names must be unique.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BridgeRegistry {
+    
+    public static final String PRIMARY_BRIDGE = "primary";
+    
+    private final HueProperties hueProperties;
+    private final BridgeDiscoveryService bridgeDiscoveryService;
+    private final RestClient.Builder restClientBuilder;
+    private final BridgeCertificateVerifier bridgeCertificateVerifier;
+    private final List<HueBridgeConnection> bridges = new CopyOnWriteArrayList<>();
+    private final Map<String, HueClipClient> clipClients = new ConcurrentHashMap<>();
+    private final Map<String, HueClipClient> probeClients = new ConcurrentHashMap<>();
+    private final List<ExecutorService> lanes = new ArrayList<>();
+    
+    @PostConstruct
+    public void registerBridges() {
+        Set<String> names = new HashSet<>(Set.of(PRIMARY_BRIDGE));
+        List<HueBridgeConnection> configured = new ArrayList<>();
+        for (HueProperties.Bridge bridge : hueProperties.getBridges()) {
+            if (bridge.getIp() == null || bridge.getIp().isBlank() 
+                    || bridge.getApiKey() == null || bridge.getApiKey().isBlank()) {
+                log.warn("Ignoring bridge '{}': both ip and api-key are required", bridge.getName());
+                continue;
+            }
+            String name = bridge.getName() != null ? bridge.getName() : bridge.getIp();
+            if (!names.add(name)) {
+                throw new IllegalStateException("Hue bridge name '" + name + "' is used more than once"
+                    + (PRIMARY_BRIDGE.equals(name) ? " ('" + PRIMARY_BRIDGE + "' is the hue.bridge-ip bridge)" : "")
+                    + "; give every entry of hue.bridges a unique name");
+            }
+            configured.add(new HueBridgeConnection(name, 
+                () -> connect(name, bridge.getIp(), bridge.getBridgeId(), bridge.getApiKey()), () -> probe(name), 
+                newLane(name)));
+        }
+        
+        String bridgeIp = hueProperties.getBridgeIp();
+        if ((bridgeIp != null && !bridgeIp.isBlank()) || configured.isEmpty()) {
+            bridges.add(new HueBridgeConnection(PRIMARY_BRIDGE, this::connectPrimary, 
+                () -> probe(PRIMARY_BRIDGE), newLane(PRIMARY_BRIDGE)));
+        }
+        bridges.addAll(configured);
+        
+        log.info("Registered {} Hue bridge(s)", bridges.size());
+    }
+    
+    public List<HueBridgeConnection> getBridges() {
+        return bridges;
+    }
+    
+    public Optional<HueBridgeConnection> getPrimary() {
+        return bridges.stream()
+            .filter(bridge -> PRIMARY_BRIDGE.equals(bridge.getName()))
+            .findFirst();
+    }
+    
+    /**
+     * CLIP v2 client for the scene and fade-time calls the Hue library can't
+     * make, available once the bridge has connected at least once
+     */
+    public Optional<HueClipClient> getClipClient(String bridgeName) {
+        return Optional.ofNullable(clipClients.get(bridgeName));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        lanes.forEach(ExecutorService::shutdown);
+    }
+    
+    private void probe(String bridgeName) {
+        HueClipClient client = probeClients.get(bridgeName);
+        if (client == null) {
+            throw new IllegalStateException("No connection to bridge '" + bridgeName + "'");
+        }
+        client.ping();
+    }
+    
+    private ExecutorService newLane(String bridgeName) {
+        ExecutorService lane = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("hue-lane-" + bridgeName).daemon(true).factory());
+        lanes.add(lane);
+        return lane;
+    }
+    
+    private Optional<Hue> connectPrimary() {
+        try {
+            String bridgeIp = hueProperties.getBridgeIp();
+            String bridgeId = hueProperties.getBridgeId();
+            String apiKey = hueProperties.getApiKey();
+            
+            // If bridge IP is not configured, try to discover it
+            if ((bridgeIp == null || bridgeIp.isEmpty()) && hueProperties.isAutoDiscoverBridge()) {
+                log.info("Bridge IP not configured, attempting to discover Hue bridges...");
+                Optional<DiscoveredBridge> discovered = bridgeDiscoveryService.discover();
+                if (discovered.isPresent()) {
+                    bridgeIp = discovered.get().getIp();
+                    bridgeId = discovered.get().getBridgeId();
+                    log.info("Discovered Hue bridge at: {}", bridgeIp);
+                } else {
+                    log.warn("No Hue bridges found on the network");
+                    return Optional.empty();
+                }
+            }
+            
+            // If API key is not configured, we need to register with the bridge
+            if (apiKey == null || apiKey.isEmpty()) {
+                log.warn("Hue API key not configured. Please press the button on your Hue bridge and configure the API key.");
+                log.info("To register: Press the button on your Hue bridge and run the following:");
+                log.info("String apiKey = new HueBridgeConnectionBuilder(\"{}\").initializeApiConnection(\"{}\").get();", 
+                        bridgeIp, hueProperties.getAppName());
+                return Optional.empty();
+            }
+            
+            return connect(PRIMARY_BRIDGE, bridgeIp, bridgeId, apiKey);
+            
+        } catch (Exception e) {
+            log.error("Failed to connect to Hue bridge", e);
+            return Optional.empty();
+        }
+    }
+    
+    private Optional<Hue> connect(String name, String bridgeIp, String bridgeId, String apiKey) {
+        try {
+            Hue hue = new Hue(bridgeIp, apiKey);
+            BridgeCertificateVerifier.BridgeTls tls = bridgeCertificateVerifier.forBridge(name, bridgeId);
+            clipClients.put(name, new HueClipClient(restClientBuilder, bridgeIp, apiKey, 
+                hueProperties.getClipRequestTimeout(), tls));
+            probeClients.put(name, new HueClipClient(restClientBuilder, bridgeIp, apiKey, 
+                hueProperties.getHealthCheckTimeout(), tls));
+            log.info("Successfully connected to Hue bridge '{}' at {}", name, bridgeIp);
+            return Optional.of(hue);
+        } catch (Exception e) {
+            log.error("Failed to connect to Hue bridge '{}' at {}", name, bridgeIp, e);
+            return Optional.empty();
+        }
+    }
+}
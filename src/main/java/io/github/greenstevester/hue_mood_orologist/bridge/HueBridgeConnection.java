@@ -0,0 +1,143 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightCommandMailbox;
+import io.github.greenstevester.heuvana.v2.Hue;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * One Hue bridge: its connection, its own latest-wins command mailbox and
+ * the single-threaded dispatch lane that sends commands to it. Bridges never
+ * share a lane, so a slow bridge doesn't hold up the others.
+ *
+ * <p>The connection is opened and health-checked by {@link HueConnectionManager};
+ * callers on the hot path only ever see a connection that is ready to use.
+ */
+@Slf4j
+public class HueBridgeConnection {
+    
+    public enum State {
+        DISCONNECTED,
+        CONNECTING,
+        CONNECTED,
+        FAILED
+    }
+    
+    @Getter
+    private final String name;
+    
+    @Getter
+    private final Executor lane;
+    
+    @Getter
+    private final LightCommandMailbox mailbox = new LightCommandMailbox();
+    
+    private final Supplier<Optional<Hue>> connector;
+    private final Runnable probe;
+    private volatile Hue hue;
+    
+    @Getter
+    private volatile State state = State.DISCONNECTED;
+    
+    @Getter
+    private volatile Instant lastStateChange = Instant.now();
+    
+    @Getter
+    private volatile int consecutiveFailures;
+    
+    /**
+     * A connection without a health probe; it stays connected until a call fails
+     */
+    public HueBridgeConnection(String name, Supplier<Optional<Hue>> connector, Executor lane) {
+        this(name, connector, () -> { }, lane);
+    }
+    
+    /**
+     * @param probe cheap request against the bridge that throws if it is unreachable
+     */
+    public HueBridgeConnection(String name, Supplier<Optional<Hue>> connector, Runnable probe, Executor lane) {
+        this.name = name;
+        this.connector = connector;
+        this.probe = probe;
+        this.lane = lane;
+    }
+    
+    /**
+     * The connection, if it is currently established. Never blocks or connects.
+     */
+    public Optional<Hue> getHue() {
+        return state == State.CONNECTED ? Optional.ofNullable(hue) : Optional.empty();
+    }
+    
+    /**
+     * Open a new connection, replacing any existing one
+     */
+    public synchronized boolean connect() {
+        setState(State.CONNECTING);
+        Optional<Hue> connection;
+        try {
+            connection = connector.get();
+        } catch (Exception e) {
+            log.warn("Connecting to bridge '{}' failed: {}", name, e.getMessage());
+            connection = Optional.empty();
+        }
+        
+        if (connection.isPresent()) {
+            hue = connection.get();
+            consecutiveFailures = 0;
+            setState(State.CONNECTED);
+            return true;
+        }
+        markFailed();
+        return false;
+    }
+    
+    /**
+     * Cheap liveness probe against the bridge. Deliberately not {@link Hue#refresh()},
+     * which re-reads every resource on the bridge.
+     */
+    public boolean healthCheck() {
+        if (hue == null || state != State.CONNECTED) {
+            return false;
+        }
+        try {
+            probe.run();
+            return true;
+        } catch (Exception e) {
+            log.warn("Health check failed for bridge '{}': {}", name, e.getMessage());
+            markFailed();
+            return false;
+        }
+    }
+    
+    /**
+     * Drop the connection after a failed call; the connection manager reconnects
+     */
+    public synchronized void markFailed() {
+        hue = null;
+        consecutiveFailures++;
+        setState(State.FAILED);
+    }
+    
+    public synchronized void close() {
+        hue = null;
+        setState(State.DISCONNECTED);
+    }
+    
+    private void setState(State newState) {
+        if (state != newState) {
+            state = newState;
+            lastStateChange = Instant.now();
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "HueBridgeConnection[" + name + ", " + state + "]";
+    }
+}
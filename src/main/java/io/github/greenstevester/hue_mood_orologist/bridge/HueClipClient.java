@@ -0,0 +1,180 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import io.github.greenstevester.hue_mood_orologist.model.ClipResource;
+import io.github.greenstevester.hue_mood_orologist.model.ClipResponse;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.XyColor;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import javax.net.ssl.HttpsURLConnection;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Minimal client for the Hue CLIP v2 calls the Hue library can't make:
+ * writing and recalling scenes, and setting a light with a fade time or an
+ * xy color. Finding lights, rooms and zones and sending plain states to them
+ * is left to the library.
+ *
+ * <p>The scene sync still reads rooms, lights and scenes through this client.
+ * A scene refers to its room by CLIP resource reference and to its lights by
+ * resource id, and a room lists devices rather than lights, so the sync needs
+ * the raw resources; reading them from the same API it writes scenes to keeps
+ * every id it sends one the bridge just reported. The connection health
+ * probe uses {@link #ping()} for its single small GET.
+ *
+ * <p>The bridge serves HTTPS with a
+ * certificate issued to its bridge id rather than its address, so the
+ * certificate is checked by {@link BridgeCertificateVerifier} instead of the
+ * JVM's defaults; nothing else in the JVM is affected.
+ */
+public class HueClipClient {
+    
+    private static final String RESOURCE_PATH = "/clip/v2/resource/";
+    
+    private final RestClient restClient;
+    
+    /**
+     * Client with the JVM's default certificate checks, e.g. for a plain HTTP test bridge
+     */
+    public HueClipClient(RestClient.Builder restClientBuilder, String bridgeAddress, String apiKey, Duration timeout) {
+        this(restClientBuilder, bridgeAddress, apiKey, timeout, null);
+    }
+    
+    /**
+     * @param bridgeAddress bridge IP or host[:port]; a full base URL
+     *                      (e.g. http://127.0.0.1:8080) is used as given
+     * @param tls           how the bridge's certificate is checked; null for the JVM's defaults
+     */
+    public HueClipClient(RestClient.Builder restClientBuilder, String bridgeAddress, String apiKey, Duration timeout,
+                         BridgeCertificateVerifier.BridgeTls tls) {
+        String baseUrl = bridgeAddress.contains("://") ? bridgeAddress : "https://" + bridgeAddress;
+        this.restClient = restClientBuilder.clone()
+            .baseUrl(baseUrl)
+            .defaultHeader("hue-application-key", apiKey)
+            .requestFactory(bridgeRequestFactory(timeout, tls))
+            .build();
+    }
+    
+    /**
+     * Single small GET, used to check the bridge is still there
+     */
+    public void ping() {
+        restClient.get()
+            .uri(RESOURCE_PATH + "bridge")
+            .retrieve()
+            .toBodilessEntity();
+    }
+    
+    public List<ClipResource> getResources(String type) {
+        ClipResponse response = restClient.get()
+            .uri(RESOURCE_PATH + type)
+            .retrieve()
+            .body(ClipResponse.class);
+        return response != null ? response.getData() : List.of();
+    }
+    
+    /**
+     * Create a scene for a room or zone and return its id
+     */
+    public UUID createScene(String name, ClipResource.Reference group, Map<UUID, XyColor> lightColors) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("type", "scene");
+        body.put("metadata", Map.of("name", name));
+        body.put("group", Map.of("rid", group.getRid(), "rtype", group.getRtype()));
+        body.put("actions", sceneActions(lightColors));
+        
+        ClipResponse response = restClient.post()
+            .uri(RESOURCE_PATH + "scene")
+            .body(body)
+            .retrieve()
+            .body(ClipResponse.class);
+        if (response == null || response.getData().isEmpty()) {
+            throw new IllegalStateException("Bridge did not return an id for scene '" + name + "'");
+        }
+        return response.getData().getFirst().getRid() != null 
+            ? response.getData().getFirst().getRid() 
+            : response.getData().getFirst().getId();
+    }
+    
+    public void updateScene(UUID sceneId, Map<UUID, XyColor> lightColors) {
+        restClient.put()
+            .uri(RESOURCE_PATH + "scene/{id}", sceneId)
+            .body(Map.of("actions", sceneActions(lightColors)))
+            .retrieve()
+            .toBodilessEntity();
+    }
+    
+    public void deleteScene(UUID sceneId) {
+        restClient.delete()
+            .uri(RESOURCE_PATH + "scene/{id}", sceneId)
+            .retrieve()
+            .toBodilessEntity();
+    }
+    
+    /**
+     * One call; the bridge applies the scene to all of its lights itself
+     */
+    public void recallScene(UUID sceneId) {
+        restClient.put()
+            .uri(RESOURCE_PATH + "scene/{id}", sceneId)
+            .body(Map.of("recall", Map.of("action", "active")))
+            .retrieve()
+            .toBodilessEntity();
+    }
+    
+    /**
+     * Set a light's on state, and its xy color and fade time where the command has them
+     */
+    public void setLightState(UUID lightId, LightCommand command) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("on", Map.of("on", command.isOn()));
+        if (command.isOn() && command.getXy() != null) {
+            XyColor xy = command.getXy();
+            body.put("dimming", Map.of("brightness", xy.getBrightness()));
+            body.put("color", Map.of("xy", Map.of("x", xy.getX(), "y", xy.getY())));
+        }
+        if (command.hasTransition()) {
+            body.put("dynamics", Map.of("duration", command.getTransition().toMillis()));
+        }
+        restClient.put()
+            .uri(RESOURCE_PATH + "light/{id}", lightId)
+            .body(body)
+            .retrieve()
+            .toBodilessEntity();
+    }
+    
+    private List<Map<String, Object>> sceneActions(Map<UUID, XyColor> lightColors) {
+        return lightColors.entrySet().stream()
+            .map(entry -> Map.<String, Object>of(
+                "target", Map.of("rid", entry.getKey(), "rtype", "light"),
+                "action", Map.of(
+                    "on", Map.of("on", true),
+                    "dimming", Map.of("brightness", entry.getValue().getBrightness()),
+                    "color", Map.of("xy", Map.of("x", entry.getValue().getX(), "y", entry.getValue().getY())))))
+            .toList();
+    }
+    
+    private static SimpleClientHttpRequestFactory bridgeRequestFactory(Duration timeout, 
+                                                                        BridgeCertificateVerifier.BridgeTls tls) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory() {
+            @Override
+            protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+                super.prepareConnection(connection, httpMethod);
+                if (tls != null && connection instanceof HttpsURLConnection https) {
+                    https.setSSLSocketFactory(tls.sslContext().getSocketFactory());
+                    https.setHostnameVerifier(tls.hostnameVerifier());
+                }
+            }
+        };
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        return requestFactory;
+    }
+}
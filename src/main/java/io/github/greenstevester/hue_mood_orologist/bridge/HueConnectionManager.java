@@ -0,0 +1,185 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the lifecycle of every bridge connection. Connections are opened in
+ * the background as soon as the context starts, health-checked periodically,
+ * and re-opened with exponential backoff after a failure. Each bridge is
+ * connected and checked on a virtual thread of its own, at most one at a
+ * time per bridge, so a bridge stuck in discovery or a slow connect never
+ * delays the others. State changes are published as
+ * {@link HueConnectionStateChangedEvent}s from a thread of their own, so
+ * slow listeners never hold up the bridges' checks either.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HueConnectionManager implements SmartLifecycle {
+    
+    private static final long TICK_MILLIS = 1000;
+    
+    private final BridgeRegistry bridgeRegistry;
+    private final HueProperties hueProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final Map<String, Instant> nextAttemptAt = new ConcurrentHashMap<>();
+    private final Map<String, Instant> nextHealthCheckAt = new ConcurrentHashMap<>();
+    private final Map<String, HueBridgeConnection.State> publishedStates = new ConcurrentHashMap<>();
+    private final Set<String> maintaining = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService executor;
+    private volatile ExecutorService bridgeWork;
+    private volatile ExecutorService events;
+    
+    @Override
+    public void start() {
+        events = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("hue-connection-events").daemon(true).factory());
+        bridgeWork = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("hue-connection-", 0).factory());
+        executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("hue-connection-manager").daemon(true).factory());
+        executor.scheduleWithFixedDelay(this::maintainConnections, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        log.info("Hue connection manager started for {} bridge(s)", bridgeRegistry.getBridges().size());
+    }
+    
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = executor;
+        executor = null;
+        if (current != null) {
+            current.shutdownNow();
+        }
+        ExecutorService currentWork = bridgeWork;
+        bridgeWork = null;
+        if (currentWork != null) {
+            currentWork.shutdownNow();
+        }
+        maintaining.clear();
+        bridgeRegistry.getBridges().forEach(bridge -> {
+            bridge.close();
+            publishIfChanged(bridge);
+        });
+        nextAttemptAt.clear();
+        nextHealthCheckAt.clear();
+        
+        // Let the last state changes reach their listeners
+        ExecutorService currentEvents = events;
+        events = null;
+        if (currentEvents != null) {
+            currentEvents.shutdown();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+    
+    /**
+     * Hand each bridge whose previous connect or check has finished to a
+     * thread of its own
+     */
+    void maintainConnections() {
+        ExecutorService work = bridgeWork;
+        if (work == null) {
+            return;
+        }
+        for (HueBridgeConnection bridge : bridgeRegistry.getBridges()) {
+            if (!maintaining.add(bridge.getName())) {
+                continue;
+            }
+            try {
+                work.execute(() -> {
+                    try {
+                        maintain(bridge);
+                    } catch (Exception e) {
+                        log.error("Error maintaining connection to bridge '{}'", bridge.getName(), e);
+                    } finally {
+                        publishIfChanged(bridge);
+                        maintaining.remove(bridge.getName());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                maintaining.remove(bridge.getName());
+            }
+        }
+    }
+    
+    private void maintain(HueBridgeConnection bridge) {
+        Instant now = Instant.now();
+        
+        if (bridge.getState() == HueBridgeConnection.State.CONNECTED) {
+            if (!now.isBefore(nextHealthCheckAt.getOrDefault(bridge.getName(), Instant.MIN))) {
+                nextHealthCheckAt.put(bridge.getName(), now.plus(hueProperties.getHealthCheckInterval()));
+                if (!bridge.healthCheck()) {
+                    nextAttemptAt.put(bridge.getName(), now.plus(backoff(bridge.getConsecutiveFailures())));
+                }
+            }
+            return;
+        }
+        
+        if (now.isBefore(nextAttemptAt.getOrDefault(bridge.getName(), Instant.MIN))) {
+            return;
+        }
+        
+        if (bridge.connect()) {
+            nextHealthCheckAt.put(bridge.getName(), now.plus(hueProperties.getHealthCheckInterval()));
+        } else {
+            Duration delay = backoff(bridge.getConsecutiveFailures());
+            nextAttemptAt.put(bridge.getName(), now.plus(delay));
+            log.info("Bridge '{}' unavailable, retrying in {}s", bridge.getName(), delay.toSeconds());
+        }
+    }
+    
+    /**
+     * Exponential backoff with +/-20% jitter, capped at hue.reconnect-max-backoff
+     */
+    Duration backoff(int consecutiveFailures) {
+        long initial = hueProperties.getReconnectInitialBackoff().toMillis();
+        long max = hueProperties.getReconnectMaxBackoff().toMillis();
+        int exponent = Math.min(Math.max(consecutiveFailures - 1, 0), 20);
+        long delay = Math.min(max, initial << exponent);
+        long jitter = (long) (delay * 0.2 * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+        return Duration.ofMillis(Math.max(initial, Math.min(max, delay + jitter)));
+    }
+    
+    private void publishIfChanged(HueBridgeConnection bridge) {
+        HueBridgeConnection.State current = bridge.getState();
+        HueBridgeConnection.State previous = publishedStates.put(bridge.getName(), current);
+        if (previous != current) {
+            log.info("Bridge '{}' connection state: {} -> {}", bridge.getName(), previous, current);
+            HueConnectionStateChangedEvent event = new HueConnectionStateChangedEvent(bridge.getName(), previous, current);
+            ExecutorService currentEvents = events;
+            if (currentEvents != null) {
+                currentEvents.execute(() -> publish(event));
+            } else {
+                publish(event);
+            }
+        }
+    }
+    
+    private void publish(HueConnectionStateChangedEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            log.error("Error handling connection state change of bridge '{}'", event.bridgeName(), e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+/**
+ * Published whenever a bridge connection changes state
+ */
+public record HueConnectionStateChangedEvent(String bridgeName, 
+                                             HueBridgeConnection.State previousState, 
+                                             HueBridgeConnection.State state) {
+}
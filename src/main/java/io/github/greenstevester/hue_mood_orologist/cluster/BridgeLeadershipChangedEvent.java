@@ -0,0 +1,7 @@
+package io.github.greenstevester.hue_mood_orologist.cluster;
+
+/**
+ * Published when this instance starts or stops driving a bridge
+ */
+public record BridgeLeadershipChangedEvent(String bridgeName, String nodeId, boolean leader) {
+}
@@ -0,0 +1,196 @@
+package io.github.greenstevester.hue_mood_orologist.cluster;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.config.ClusterProperties;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Coordinates instances that share a directory. Every instance renews a
+ * membership lease on each heartbeat; the live members form a consistent
+ * hash ring that assigns each bridge and each forecast location to one of
+ * them. An instance only drives a bridge while it holds that bridge's lease,
+ * so when the ring moves a bridge the new owner takes over once the old
+ * owner has let go or its lease has run out.
+ *
+ * <p>Disabled by default, in which case this instance owns everything.
+ *
+ * <p>Joins when the context starts, one phase ahead of the bridge
+ * connections, and leaves after they have closed. A JVM restored from a
+ * checkpoint joins again under a fresh default node id.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClusterCoordinator implements SmartLifecycle {
+    
+    private static final String MEMBER_LEASE_PREFIX = "member-";
+    private static final String BRIDGE_LEASE_PREFIX = "bridge-";
+    
+    private final ClusterProperties clusterProperties;
+    private final BridgeRegistry bridgeRegistry;
+    private final TaskScheduler taskScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Expiry of every bridge lease this instance holds
+     */
+    private final Map<String, Instant> bridgeLeases = new ConcurrentHashMap<>();
+    private final Clock clock = Clock.systemUTC();
+    
+    @Getter
+    private String nodeId;
+    private FileLeaseStore leaseStore;
+    private volatile ConsistentHashRing ring;
+    private volatile ScheduledFuture<?> heartbeat;
+    
+    @Override
+    public synchronized void start() {
+        if (!clusterProperties.isEnabled() || heartbeat != null) {
+            return;
+        }
+        nodeId = clusterProperties.getNodeId() != null ? clusterProperties.getNodeId() : defaultNodeId();
+        leaseStore = new FileLeaseStore(Path.of(clusterProperties.getDirectory()), 
+            clusterProperties.getLeaseDuration(), clock);
+        ring = new ConsistentHashRing(Set.of(nodeId), clusterProperties.getVirtualNodes());
+        
+        log.info("Joining cluster in {} as '{}'", clusterProperties.getDirectory(), nodeId);
+        // First round before the bridges connect, so the leader knows it is one when they do
+        heartbeat();
+        heartbeat = taskScheduler.scheduleAtFixedRate(this::heartbeat, clusterProperties.getHeartbeatInterval());
+    }
+    
+    @Override
+    public synchronized void stop() {
+        if (heartbeat == null) {
+            return;
+        }
+        heartbeat.cancel(false);
+        heartbeat = null;
+        try {
+            // Hand everything over now instead of after the leases run out
+            for (String bridgeName : List.copyOf(bridgeLeases.keySet())) {
+                leaseStore.release(BRIDGE_LEASE_PREFIX + bridgeName, nodeId);
+                bridgeLeases.remove(bridgeName);
+            }
+            leaseStore.release(MEMBER_LEASE_PREFIX + nodeId, nodeId);
+        } catch (IOException e) {
+            log.warn("Could not release cluster leases: {}", e.getMessage());
+        }
+        log.info("Left cluster as '{}'", nodeId);
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return heartbeat != null;
+    }
+    
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+    
+    /**
+     * Whether this instance may send commands to the bridge
+     */
+    public boolean isBridgeLeader(String bridgeName) {
+        if (!clusterProperties.isEnabled()) {
+            return true;
+        }
+        Instant expiresAt = bridgeLeases.get(bridgeName);
+        return expiresAt != null && expiresAt.isAfter(clock.instant());
+    }
+    
+    /**
+     * Whether this instance fetches the forecast for the location
+     */
+    public boolean ownsLocation(String locationKey) {
+        return !clusterProperties.isEnabled() || nodeId.equals(ring.ownerOf("location:" + locationKey));
+    }
+    
+    /**
+     * Instance that fetches the forecast for the location
+     */
+    public String locationOwner(String locationKey) {
+        return clusterProperties.isEnabled() ? ring.ownerOf("location:" + locationKey) : nodeId;
+    }
+    
+    /**
+     * Live instances as of the last heartbeat
+     */
+    public Set<String> getMembers() {
+        return ring != null ? ring.getNodes() : Set.of();
+    }
+    
+    void heartbeat() {
+        try {
+            leaseStore.tryAcquire(MEMBER_LEASE_PREFIX + nodeId, nodeId);
+            Set<String> members = leaseStore.holders(MEMBER_LEASE_PREFIX);
+            members.add(nodeId);
+            if (!members.equals(ring.getNodes())) {
+                log.info("Cluster members changed from {} to {}, rebalancing", ring.getNodes(), members);
+                ring = new ConsistentHashRing(members, clusterProperties.getVirtualNodes());
+            }
+            for (HueBridgeConnection bridge : bridgeRegistry.getBridges()) {
+                balanceBridge(bridge.getName());
+            }
+        } catch (IOException | RuntimeException e) {
+            // Without renewals the leases run out; stop driving before another node takes over
+            log.warn("Cluster heartbeat failed, giving up bridge leases: {}", e.getMessage());
+            List.copyOf(bridgeLeases.keySet()).forEach(this::loseLeadership);
+        }
+    }
+    
+    private void balanceBridge(String bridgeName) throws IOException {
+        String lease = BRIDGE_LEASE_PREFIX + bridgeName;
+        if (!nodeId.equals(ring.ownerOf("bridge:" + bridgeName))) {
+            if (bridgeLeases.containsKey(bridgeName)) {
+                leaseStore.release(lease, nodeId);
+                loseLeadership(bridgeName);
+            }
+            return;
+        }
+        
+        // Leases are renewed each round; a lease held elsewhere is taken once it expires
+        leaseStore.tryAcquire(lease, nodeId).ifPresentOrElse(expiresAt -> {
+            if (bridgeLeases.put(bridgeName, expiresAt) == null) {
+                log.info("Now driving bridge '{}'", bridgeName);
+                eventPublisher.publishEvent(new BridgeLeadershipChangedEvent(bridgeName, nodeId, true));
+            }
+        }, () -> loseLeadership(bridgeName));
+    }
+    
+    private void loseLeadership(String bridgeName) {
+        if (bridgeLeases.remove(bridgeName) != null) {
+            log.info("No longer driving bridge '{}'", bridgeName);
+            eventPublisher.publishEvent(new BridgeLeadershipChangedEvent(bridgeName, nodeId, false));
+        }
+    }
+    
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "localhost";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
@@ -0,0 +1,163 @@
+package io.github.greenstevester.hue_mood_orologist.cluster;
+
+import io.github.greenstevester.hue_mood_orologist.storage.AtomicFiles;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Time-bound leases kept as files in a directory shared by all instances.
+ * Reading and writing a lease happens under an OS file lock, so two
+ * instances can never both see a lease as free and take it. A holder that
+ * stops renewing loses the lease once it expires.
+ */
+public class FileLeaseStore {
+    
+    /**
+     * File locks are held per process, so threads of one process (or several
+     * stores in one test) are serialized here first
+     */
+    private static final Object PROCESS_LOCK = new Object();
+    
+    private final Path directory;
+    private final Duration leaseDuration;
+    private final Clock clock;
+    
+    public FileLeaseStore(Path directory, Duration leaseDuration, Clock clock) {
+        this.directory = directory;
+        this.leaseDuration = leaseDuration;
+        this.clock = clock;
+    }
+    
+    /**
+     * Take the lease if it is free or expired, or renew it if this node
+     * already holds it.
+     *
+     * @return expiry of the lease now held, empty if another node holds it
+     */
+    public Optional<Instant> tryAcquire(String lease, String nodeId) throws IOException {
+        return withLock(lease, () -> {
+            Instant now = clock.instant();
+            Optional<Lease> current = read(lease);
+            if (current.isPresent() && !current.get().holder().equals(nodeId) 
+                    && current.get().expiresAt().isAfter(now)) {
+                return Optional.empty();
+            }
+            Instant expiresAt = now.plus(leaseDuration);
+            write(lease, new Lease(nodeId, expiresAt));
+            return Optional.of(expiresAt);
+        });
+    }
+    
+    /**
+     * Give the lease up early so another node can take it right away
+     */
+    public void release(String lease, String nodeId) throws IOException {
+        withLock(lease, () -> {
+            Optional<Lease> current = read(lease);
+            if (current.isPresent() && current.get().holder().equals(nodeId)) {
+                Files.deleteIfExists(leaseFile(lease));
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Current holder of an unexpired lease
+     */
+    public Optional<String> holder(String lease) throws IOException {
+        return withLock(lease, () -> read(lease)
+            .filter(current -> current.expiresAt().isAfter(clock.instant()))
+            .map(Lease::holder));
+    }
+    
+    /**
+     * Holders of all unexpired leases whose name starts with the prefix
+     */
+    public Set<String> holders(String prefix) throws IOException {
+        Files.createDirectories(directory);
+        Instant now = clock.instant();
+        Set<String> holders = new TreeSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(fileName(prefix)) && name.endsWith(".lease")) {
+                    // Leases are replaced atomically, so reading without the lock is safe
+                    try {
+                        read(name.substring(0, name.length() - ".lease".length()))
+                            .filter(lease -> lease.expiresAt().isAfter(now))
+                            .ifPresent(lease -> holders.add(lease.holder()));
+                    } catch (NoSuchFileException e) {
+                        // Released while listing
+                    }
+                }
+            }
+        }
+        return holders;
+    }
+    
+    private record Lease(String holder, Instant expiresAt) {
+    }
+    
+    private interface LockedAction<T> {
+        T run() throws IOException;
+    }
+    
+    private <T> T withLock(String lease, LockedAction<T> action) throws IOException {
+        Files.createDirectories(directory);
+        synchronized (PROCESS_LOCK) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(fileName(lease) + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                return action.run();
+            }
+        }
+    }
+    
+    private Optional<Lease> read(String lease) throws IOException {
+        Path file = leaseFile(lease);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        String holder = properties.getProperty("holder");
+        String expiresAt = properties.getProperty("expiresAt");
+        if (holder == null || expiresAt == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Lease(holder, Instant.ofEpochMilli(Long.parseLong(expiresAt))));
+    }
+    
+    private void write(String lease, Lease value) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("holder", value.holder());
+        properties.setProperty("expiresAt", Long.toString(value.expiresAt().toEpochMilli()));
+        AtomicFiles.writeProperties(leaseFile(lease), properties, "Lease " + lease);
+    }
+    
+    private Path leaseFile(String lease) {
+        return directory.resolve(fileName(lease) + ".lease");
+    }
+    
+    static String fileName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,81 @@
+package io.github.greenstevester.hue_mood_orologist.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.greenstevester.hue_mood_orologist.config.ClusterProperties;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherResponse;
+import io.github.greenstevester.hue_mood_orologist.storage.AtomicFiles;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Forecasts fetched by the instance owning a location, left in the shared
+ * directory for the other instances so only one of them calls Open-Meteo
+ * per location. They are written as JSON with the same mapping the
+ * Open-Meteo response is read with, so a file in the shared directory is
+ * never more than data to the instances reading it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SharedForecastStore {
+    
+    private static final long POLL_MILLIS = 500;
+    
+    private final ClusterProperties clusterProperties;
+    private final ObjectMapper objectMapper;
+    
+    record SharedForecast(Instant fetchedAt, WeatherResponse response) {
+    }
+    
+    public void publish(String locationKey, WeatherResponse response) {
+        if (!clusterProperties.isEnabled()) {
+            return;
+        }
+        Path file = forecastFile(locationKey);
+        try {
+            AtomicFiles.write(file, out -> objectMapper.writeValue(out, new SharedForecast(Instant.now(), response)));
+        } catch (IOException e) {
+            log.warn("Could not share forecast for {}: {}", locationKey, e.getMessage());
+        }
+    }
+    
+    /**
+     * Wait for the owner to share a forecast fetched at or after the given
+     * time; once the wait is over, settle for the newest one there is
+     */
+    public Optional<WeatherResponse> await(String locationKey, Instant fetchedAfter) throws InterruptedException {
+        Instant giveUpAt = Instant.now().plus(clusterProperties.getForecastWait());
+        Optional<SharedForecast> forecast = read(locationKey);
+        while (forecast.map(shared -> shared.fetchedAt().isBefore(fetchedAfter)).orElse(true)
+                && Instant.now().isBefore(giveUpAt)) {
+            Thread.sleep(POLL_MILLIS);
+            forecast = read(locationKey);
+        }
+        return forecast.map(SharedForecast::response);
+    }
+    
+    private Optional<SharedForecast> read(String locationKey) {
+        try {
+            return Optional.of(objectMapper.readValue(Files.readAllBytes(forecastFile(locationKey)), 
+                SharedForecast.class));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Could not read shared forecast for {}: {}", locationKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private Path forecastFile(String locationKey) {
+        return Path.of(clusterProperties.getDirectory(), "forecasts", 
+            FileLeaseStore.fileName(locationKey) + ".json");
+    }
+}
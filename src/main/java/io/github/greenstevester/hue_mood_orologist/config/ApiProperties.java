@@ -0,0 +1,17 @@
+package io.github.greenstevester.hue_mood_orologist.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "api")
+public class ApiProperties {
+    
+    /**
+     * Bearer token every /api request must carry; unset leaves the API to
+     * clients on this machine only
+     */
+    private String token;
+}
@@ -0,0 +1,49 @@
+package io.github.greenstevester.hue_mood_orologist.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cluster")
+public class ClusterProperties {
+    
+    /**
+     * Coordinate with other instances sharing the same directory
+     */
+    private boolean enabled = false;
+    
+    /**
+     * Directory shared by all instances (a volume or network mount)
+     */
+    private String directory = "data/cluster";
+    
+    /**
+     * Unique name of this instance; defaults to host name and process id
+     */
+    private String nodeId;
+    
+    /**
+     * How long a bridge lease or heartbeat stays valid without renewal
+     */
+    private Duration leaseDuration = Duration.ofSeconds(15);
+    
+    /**
+     * How often leases and heartbeats are renewed; well below the lease duration
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(5);
+    
+    /**
+     * Points per instance on the hash ring; more points spread keys more evenly
+     */
+    private int virtualNodes = 128;
+    
+    /**
+     * How long an instance that doesn't own a location waits for its owner
+     * to share a fresh forecast before falling back to the last one
+     */
+    private Duration forecastWait = Duration.ofSeconds(10);
+}
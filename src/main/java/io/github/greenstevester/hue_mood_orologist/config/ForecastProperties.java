@@ -0,0 +1,33 @@
+package io.github.greenstevester.hue_mood_orologist.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Shape of the Open-Meteo request. The variables themselves follow from
+ * which weather rules are active (see the weather thresholds).
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "weather.forecast")
+public class ForecastProperties {
+    
+    /**
+     * Hours of forecast the rules look at, the current hour included;
+     * "rain soon" and "will be very cold" look this far ahead
+     */
+    private int hours = 8;
+    
+    /**
+     * Take the current temperature and precipitation from Open-Meteo's
+     * current conditions rather than from the forecast for this hour
+     */
+    private boolean current = false;
+    
+    /**
+     * Hours of precipitation in 15-minute steps to use next to the hourly
+     * forecast, so short showers aren't averaged away; 0 requests none
+     */
+    private int minutely15Hours = 0;
+}
@@ -4,16 +4,57 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "hue")
 public class HueProperties {
     private String bridgeIp;
+    private String bridgeId;
     private String apiKey;
     private String appName = "HueMoodOrologist";
     private boolean autoDiscoverBridge = true;
     private int discoveryTimeout = 10;
+    private List<String> discoveryStrategies = new ArrayList<>(List.of("mdns", "nupnp", "subnet"));
+    private String discoveryCacheFile = "data/bridge-discovery.properties";
+    private Duration discoveryVerifyTimeout = Duration.ofSeconds(2);
+    private Duration discoveryProbeTimeout = Duration.ofMillis(500);
+    private int discoveryProbeConcurrency = 32;
     private String targetLightName;
     private boolean targetAllLights = true;
     private boolean debugColors = false;
+    private boolean groupedCommands = true;
+    private boolean shadowStateEnabled = true;
+    private String shadowStateFile = "data/light-shadow.properties";
+    private Duration shadowStateMaxAge = Duration.ofHours(6);
+    private Duration healthCheckInterval = Duration.ofSeconds(30);
+    private Duration healthCheckTimeout = Duration.ofSeconds(2);
+    private Duration reconnectInitialBackoff = Duration.ofSeconds(1);
+    private Duration reconnectMaxBackoff = Duration.ofMinutes(5);
+    private boolean scenesEnabled = false;
+    private String sceneStateFile = "data/weather-scenes.properties";
+    private Duration clipRequestTimeout = Duration.ofSeconds(5);
+    private int rateLimitRetries = 3;
+    private Duration rateLimitBackoff = Duration.ofMillis(250);
+    private String bridgeCaFile;
+    private String certificatePinFile = "data/bridge-certificates.properties";
+    private boolean insecureTrustAllCertificates = false;
+    private Duration cycleDeadline = Duration.ofSeconds(30);
+    
+    /**
+     * Additional bridges, each with its own dispatch lane.
+     * The primary bridge is still configured through bridge-ip/api-key.
+     */
+    private List<Bridge> bridges = new ArrayList<>();
+    
+    @Data
+    public static class Bridge {
+        private String name;
+        private String ip;
+        private String bridgeId;
+        private String apiKey;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package io.github.greenstevester.hue_mood_orologist.config;
+
+import io.github.greenstevester.hue_mood_orologist.api.ColorPlanController;
+import io.github.greenstevester.hue_mood_orologist.api.ControlController;
+import io.github.greenstevester.hue_mood_orologist.events.MoodStateBroadcaster;
+import io.github.greenstevester.hue_mood_orologist.model.BridgeConfig;
+import io.github.greenstevester.hue_mood_orologist.model.ClipResource;
+import io.github.greenstevester.hue_mood_orologist.model.ClipResponse;
+import io.github.greenstevester.hue_mood_orologist.model.ColorPlanEntry;
+import io.github.greenstevester.hue_mood_orologist.model.ColorPlanResult;
+import io.github.greenstevester.hue_mood_orologist.model.CurrentData;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.HourlyData;
+import io.github.greenstevester.hue_mood_orologist.model.HourlyUnits;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.hue_mood_orologist.model.LightState;
+import io.github.greenstevester.hue_mood_orologist.model.MinutelyData;
+import io.github.greenstevester.hue_mood_orologist.model.MoodSnapshot;
+import io.github.greenstevester.hue_mood_orologist.model.NupnpBridge;
+import io.github.greenstevester.hue_mood_orologist.model.ScheduleStatus;
+import io.github.greenstevester.hue_mood_orologist.model.SchedulerStatus;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherResponse;
+import io.github.greenstevester.hue_mood_orologist.model.XyColor;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+
+/**
+ * What a native image can't find on its own: the JSON types bound by the
+ * REST clients, the control API and the forecasts shared between instances,
+ * and the configuration properties.
+ *
+ * <p>The huevana library binds the bridge's JSON to its own classes. They
+ * are listed from the huevana jar while the image is built, so a huevana
+ * upgrade that adds or renames them needs no new metadata. Anything else a
+ * library reflects on can be recorded with the native-image agent (see
+ * {@code graalvmNative.agent} in build.gradle).
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+    
+    private static final String HUEVANA_CLASSES = "classpath*:io/github/greenstevester/heuvana/**/*.class";
+    
+    private static final TypeReference SHARED_FORECAST = 
+        TypeReference.of("io.github.greenstevester.hue_mood_orologist.cluster.SharedForecastStore$SharedForecast");
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        
+        // Open-Meteo, bridge discovery and the bridge's CLIP v2 API
+        bindings.registerReflectionHints(hints.reflection(), 
+            WeatherResponse.class, HourlyData.class, HourlyUnits.class, CurrentData.class, MinutelyData.class,
+            NupnpBridge.class, BridgeConfig.class, ClipResponse.class, ClipResource.class, XyColor.class);
+        
+        // Control API request and response bodies
+        bindings.registerReflectionHints(hints.reflection(),
+            ControlController.IntervalChange.class, SchedulerStatus.class, ScheduleStatus.class,
+            WeatherAnalysis.class, CycleResult.class, LightOutcome.class,
+            ColorPlanController.ColorPlan.class, ColorPlanEntry.class, ColorPlanResult.class, 
+            ColorPlanResult.Rejection.class);
+        
+        // Event stream payloads
+        bindings.registerReflectionHints(hints.reflection(),
+            MoodSnapshot.class, LightState.class, MoodStateBroadcaster.ConditionChange.class);
+        
+        // Bound from application.properties, including nested types AOT may not reach through collections
+        bindings.registerReflectionHints(hints.reflection(),
+            HueProperties.class, HueProperties.Bridge.class, ScheduleProperties.class, ScheduleProperties.Schedule.class,
+            ColorMappingProperties.class, StreamingProperties.class, ClusterProperties.class, 
+            TracingProperties.class, ForecastProperties.class, ApiProperties.class);
+        
+        // Forecasts shared through the cluster directory, as JSON around the Open-Meteo types above
+        hints.reflection().registerType(SHARED_FORECAST, 
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS, 
+            MemberCategory.DECLARED_FIELDS);
+        
+        registerHuevanaBindings(hints, classLoader, bindings);
+    }
+    
+    private static void registerHuevanaBindings(RuntimeHints hints, ClassLoader classLoader, 
+                                                BindingReflectionHintsRegistrar bindings) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        MetadataReaderFactory readers = new SimpleMetadataReaderFactory(resolver);
+        try {
+            for (Resource resource : resolver.getResources(HUEVANA_CLASSES)) {
+                String className = readers.getMetadataReader(resource).getClassMetadata().getClassName();
+                try {
+                    bindings.registerReflectionHints(hints.reflection(), ClassUtils.forName(className, classLoader));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    // module-info, or a class needing an optional dependency that isn't there
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not list the huevana classes", e);
+        }
+    }
+}
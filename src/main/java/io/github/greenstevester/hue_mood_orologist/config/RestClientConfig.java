@@ -1,5 +1,8 @@
 package io.github.greenstevester.hue_mood_orologist.config;
 
+import io.github.greenstevester.hue_mood_orologist.metrics.MeteredResponseInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.TaskScheduler;
@@ -10,8 +13,11 @@ import org.springframework.web.client.RestClient;
 public class RestClientConfig {
     
     @Bean
-    public RestClient.Builder restClientBuilder() {
-        return RestClient.builder();
+    public RestClient.Builder restClientBuilder(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        // The observation registry gives request latency (http.client.requests); the interceptor adds decode time
+        return RestClient.builder()
+            .observationRegistry(observationRegistry)
+            .requestInterceptor(new MeteredResponseInterceptor(meterRegistry));
     }
     
     @Bean
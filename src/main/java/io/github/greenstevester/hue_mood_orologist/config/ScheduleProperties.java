@@ -4,12 +4,92 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "schedule")
 public class ScheduleProperties {
     private ScheduleInterval interval = ScheduleInterval.HOUR;
-    private int initialDelaySeconds = 5;
+    private int initialDelaySeconds = 0;
+    
+    /**
+     * What to do with a tick that arrives while the previous run of the
+     * same schedule is still in progress
+     */
+    private OverlapPolicy overlapPolicy = OverlapPolicy.COALESCE;
+    
+    /**
+     * Runs starting later than this after their due time are counted as late
+     */
+    private Duration lateThreshold = Duration.ofSeconds(5);
+    
+    /**
+     * A run not finished after this long no longer blocks the next one
+     */
+    private Duration runTimeout = Duration.ofMinutes(5);
+    
+    /**
+     * Where the last run of every schedule is kept, so a cron run missed
+     * while the application was down is caught up once on startup
+     */
+    private String stateFile = "data/schedule-state.properties";
+    
+    /**
+     * Additional independent schedules, e.g. one per room or location.
+     * The global schedule above always runs as well.
+     */
+    private List<Schedule> schedules = new ArrayList<>();
+    
+    @Data
+    public static class Schedule {
+        private String name;
+        
+        /**
+         * Fixed interval; ignored when cron is set
+         */
+        private Duration interval;
+        
+        /**
+         * Spring cron expression, e.g. "0 0/15 6-22 * * *"
+         */
+        private String cron;
+        
+        /**
+         * Time zone for the cron expression; defaults to the system zone
+         */
+        private String zone;
+        
+        /**
+         * Only update the lights in this room (all target lights when empty)
+         */
+        private String room;
+        
+        /**
+         * Forecast location; defaults to the global location
+         */
+        private Double latitude;
+        private Double longitude;
+        
+        /**
+         * Overrides the global overlap policy for this schedule
+         */
+        private OverlapPolicy overlapPolicy;
+    }
+    
+    public enum OverlapPolicy {
+        /**
+         * Drop the tick
+         */
+        SKIP,
+        
+        /**
+         * Run once more right after the current run, however many ticks arrived
+         */
+        COALESCE
+    }
     
     public enum ScheduleInterval {
         MINUTE(60_000, "every minute"),
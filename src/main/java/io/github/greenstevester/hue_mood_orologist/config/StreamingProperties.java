@@ -0,0 +1,47 @@
+package io.github.greenstevester.hue_mood_orologist.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "streaming")
+public class StreamingProperties {
+    
+    /**
+     * Whether to play high-frequency effects over the entertainment stream
+     */
+    private boolean enabled = false;
+    
+    /**
+     * Receiver of the UDP frames (bridge entertainment port is 2100)
+     */
+    private String host = "127.0.0.1";
+    private int port = 2100;
+    
+    /**
+     * Frames per second, 25-50 is what the bridge can render smoothly
+     */
+    private int frameRate = 25;
+    
+    /**
+     * Entertainment configuration the frames address
+     */
+    private String entertainmentConfigurationId = "00000000-0000-0000-0000-000000000000";
+    
+    /**
+     * Entertainment channel ids to drive
+     */
+    private List<Integer> channels = new ArrayList<>(List.of(0));
+    
+    /**
+     * Weather condition to effect mappings (lightning, rain-flicker, snow-drift)
+     */
+    private Map<String, String> effects = new HashMap<>();
+}
@@ -0,0 +1,41 @@
+package io.github.greenstevester.hue_mood_orologist.config;
+
+import io.opentelemetry.exporter.logging.otlp.OtlpStdoutSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Span exporters besides the OTLP one Spring Boot sets up when
+ * {@code management.otlp.tracing.endpoint} is configured
+ */
+@Slf4j
+@Configuration
+public class TracingConfig {
+    
+    /**
+     * Write spans to a file a collector can pick up later with its
+     * otlpjsonfile receiver, for hosts without a collector running
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "tracing", name = "file")
+    public SpanExporter fileSpanExporter(TracingProperties tracingProperties) throws IOException {
+        Path file = Path.of(tracingProperties.getFile());
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        OutputStream output = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        log.info("Writing trace spans to {}", file.toAbsolutePath());
+        return OtlpStdoutSpanExporter.builder()
+            .setOutput(output)
+            .build();
+    }
+}
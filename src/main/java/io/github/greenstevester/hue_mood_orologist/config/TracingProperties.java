@@ -0,0 +1,17 @@
+package io.github.greenstevester.hue_mood_orologist.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tracing")
+public class TracingProperties {
+    
+    /**
+     * Append finished spans as OTLP JSON, one export batch per line, to this
+     * file; unset disables the file exporter
+     */
+    private String file;
+}
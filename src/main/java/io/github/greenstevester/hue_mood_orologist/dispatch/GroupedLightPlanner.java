@@ -0,0 +1,69 @@
+package io.github.greenstevester.hue_mood_orologist.dispatch;
+
+import io.github.greenstevester.hue_mood_orologist.model.GroupedLightPlan;
+import io.github.greenstevester.heuvana.v2.Group;
+import io.github.greenstevester.heuvana.v2.Light;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class GroupedLightPlanner {
+    
+    /**
+     * Groups with fewer member lights than this are not worth a grouped command
+     */
+    private static final int MIN_GROUP_SIZE = 2;
+    
+    /**
+     * Pick the rooms/zones that are entirely covered by the target lights.
+     * Larger groups are preferred, and a light is never covered by more than
+     * one selected group, so every target light receives exactly one command.
+     */
+    public GroupedLightPlan plan(Map<UUID, Light> targetLights, Collection<Group> candidateGroups) {
+        Map<UUID, Light> remaining = new LinkedHashMap<>(targetLights);
+        List<Group> selected = new ArrayList<>();
+        
+        List<Group> bySize = candidateGroups.stream()
+            .filter(Objects::nonNull)
+            .sorted(Comparator.comparingInt((Group group) -> memberIds(group).size()).reversed())
+            .toList();
+        
+        for (Group group : bySize) {
+            Set<UUID> members = memberIds(group);
+            if (members.size() < MIN_GROUP_SIZE) {
+                continue;
+            }
+            if (remaining.keySet().containsAll(members)) {
+                selected.add(group);
+                members.forEach(remaining::remove);
+                log.debug("Group '{}' fully targeted - using one grouped command for {} lights", 
+                    group.getName(), members.size());
+            }
+        }
+        
+        return new GroupedLightPlan(selected, remaining);
+    }
+    
+    private Set<UUID> memberIds(Group group) {
+        Collection<Light> lights = group.getLights();
+        if (lights == null) {
+            return Set.of();
+        }
+        return lights.stream()
+            .map(Light::getId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,469 @@
+package io.github.greenstevester.hue_mood_orologist.dispatch;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueClipClient;
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.jfr.LightCommandEvent;
+import io.github.greenstevester.hue_mood_orologist.model.GroupedLightPlan;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.heuvana.v2.Group;
+import io.github.greenstevester.heuvana.v2.Hue;
+import io.github.greenstevester.heuvana.v2.Light;
+import io.github.greenstevester.heuvana.v2.UpdateState;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Sends light commands to the bridges. Commands are posted to the owning
+ * bridge's latest-wins mailbox and drained on that bridge's dispatch lane,
+ * so bridges are updated in parallel and only the newest desired state of
+ * each light is ever sent. Lights already in the commanded state are
+ * skipped, and when a whole room or zone is set to the same state, one
+ * grouped_light command replaces the per-light commands.
+ *
+ * <p>Commands with a transition time or an xy color go to each light
+ * through the CLIP v2 client, because the Hue library has no way to send a
+ * fade. Every bridge call, through either path, is given at most
+ * hue.clip-request-timeout, so a bridge that stops answering can't hold its
+ * lane: the CLIP client's HTTP timeouts cover its calls, and library calls
+ * run on a virtual thread that is interrupted when the time is up.
+ *
+ * <p>A command the bridge turns away with 429 (rate limited) or 503 (busy),
+ * whether sent to a light or a grouped_light and through the library or
+ * the CLIP client, is retried up to hue.rate-limit-retries times, waiting
+ * hue.rate-limit-backoff, doubled on each attempt, or the bridge's
+ * Retry-After if that is longer. The wait holds the lane, which is what
+ * slows the bridge's other commands down too.
+ *
+ * <p>Each bridge call is traced as a child of the cycle that queued it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LightCommandDispatcher {
+    
+    private static final Pattern TOO_MANY_REQUESTS = Pattern.compile("\\b429\\b|Too Many Requests", 
+        Pattern.CASE_INSENSITIVE);
+    private static final Pattern SERVICE_UNAVAILABLE = Pattern.compile("\\b503\\b|Service Unavailable", 
+        Pattern.CASE_INSENSITIVE);
+    
+    private final HueProperties hueProperties;
+    private final GroupedLightPlanner groupedLightPlanner;
+    private final LightShadowStore lightShadowStore;
+    private final BridgeRegistry bridgeRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final ExecutorService bridgeCalls = Executors.newVirtualThreadPerTaskExecutor();
+    
+    /**
+     * Apply the command to target lights owned by the given bridge. If the
+     * bridge's lane is still sending earlier commands, the new state is
+     * handed over to it and superseded states are never sent.
+     *
+     * <p>Lights still waiting when hue.cycle-deadline passes complete as
+     * timed out and their commands are dropped, so one unresponsive bulb
+     * can't hold the caller beyond the deadline.
+     *
+     * @return future completing with the outcome of every target light
+     */
+    public CompletableFuture<List<LightOutcome>> dispatch(HueBridgeConnection bridge, Hue hue, 
+                                                          Map<UUID, Light> targetLights, LightCommand command) {
+        return dispatch(bridge, hue, targetLights, command, observationRegistry.getCurrentObservation());
+    }
+    
+    /**
+     * Like {@link #dispatch(HueBridgeConnection, Hue, Map, LightCommand)}, for
+     * callers no longer on the thread that holds the cycle's observation
+     */
+    public CompletableFuture<List<LightOutcome>> dispatch(HueBridgeConnection bridge, Hue hue, 
+                                                          Map<UUID, Light> targetLights, LightCommand command,
+                                                          Observation parentObservation) {
+        return dispatch(bridge, hue, targetLights, command, parentObservation, hueProperties.getCycleDeadline());
+    }
+    
+    /**
+     * Like {@link #dispatch(HueBridgeConnection, Hue, Map, LightCommand, Observation)},
+     * for callers that have already spent part of the cycle deadline
+     *
+     * @param deadline time left for these lights; null to wait for them however long it takes
+     */
+    public CompletableFuture<List<LightOutcome>> dispatch(HueBridgeConnection bridge, Hue hue, 
+                                                          Map<UUID, Light> targetLights, LightCommand command,
+                                                          Observation parentObservation, Duration deadline) {
+        LightCommandMailbox mailbox = bridge.getMailbox();
+        List<CompletableFuture<LightOutcome>> outcomes = new ArrayList<>(targetLights.size());
+        targetLights.forEach((lightId, light) -> {
+            CompletableFuture<LightOutcome> outcome = mailbox.post(lightId, light, hue, command, parentObservation);
+            if (deadline != null) {
+                outcome.completeOnTimeout(LightOutcome.timedOut(lightId, light.getName(), deadline), 
+                    deadline.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            outcomes.add(outcome);
+        });
+        
+        try {
+            bridge.getLane().execute(() -> drainMailbox(bridge));
+        } catch (RejectedExecutionException e) {
+            log.warn("Dispatch lane of bridge '{}' is shut down: {}", bridge.getName(), e.getMessage());
+            mailbox.takeAll().forEach(pending -> pending.complete(LightOutcome.Status.FAILED, "dispatch lane shut down"));
+        }
+        
+        return CompletableFuture.allOf(outcomes.toArray(CompletableFuture[]::new))
+            .thenApply(done -> outcomes.stream().map(CompletableFuture::join).toList());
+    }
+    
+    private void drainMailbox(HueBridgeConnection bridge) {
+        LightCommandMailbox mailbox = bridge.getMailbox();
+        int commandsSent = 0;
+        boolean morePending = true;
+        while (morePending && mailbox.tryStartDrain()) {
+            List<LightCommandMailbox.PendingCommand> batch = List.of();
+            try {
+                batch = mailbox.takeAll().stream()
+                    .filter(pending -> !pending.isAbandoned())
+                    .toList();
+                for (Map.Entry<BatchKey, List<LightCommandMailbox.PendingCommand>> entry 
+                        : groupByCommand(batch).entrySet()) {
+                    commandsSent += send(bridge.getName(), entry.getKey().hue(), entry.getValue(), 
+                        entry.getKey().command());
+                }
+            } catch (Exception e) {
+                log.error("Unexpected error while dispatching light commands", e);
+                batch.forEach(pending -> pending.complete(LightOutcome.Status.FAILED, e.getMessage()));
+            } finally {
+                morePending = mailbox.finishDrain();
+            }
+        }
+        log.debug("Drained mailbox with {} bridge command(s)", commandsSent);
+    }
+    
+    /**
+     * Commands leaving lights in the same state are equal whatever their
+     * fade, but are only sent together when the fade matches too
+     */
+    private record BatchKey(Hue hue, LightCommand command, Duration transition) {
+    }
+    
+    private Map<BatchKey, List<LightCommandMailbox.PendingCommand>> groupByCommand(
+            List<LightCommandMailbox.PendingCommand> batch) {
+        Map<BatchKey, List<LightCommandMailbox.PendingCommand>> byCommand = new LinkedHashMap<>();
+        for (LightCommandMailbox.PendingCommand pending : batch) {
+            BatchKey key = new BatchKey(pending.hue(), pending.command(), pending.command().getTransition());
+            byCommand.computeIfAbsent(key, newKey -> new ArrayList<>())
+                .add(pending);
+        }
+        return byCommand;
+    }
+    
+    private int send(String bridgeName, Hue hue, List<LightCommandMailbox.PendingCommand> batch, 
+                     LightCommand command) {
+        Map<UUID, LightCommandMailbox.PendingCommand> changed = new LinkedHashMap<>();
+        for (LightCommandMailbox.PendingCommand pending : batch) {
+            if (lightShadowStore.isApplied(pending.lightId(), command)) {
+                pending.complete(LightOutcome.Status.SKIPPED, "already applied");
+            } else {
+                changed.put(pending.lightId(), pending);
+            }
+        }
+        
+        if (changed.size() < batch.size()) {
+            log.info("{} of {} light(s) already show {} mood, skipping them", 
+                batch.size() - changed.size(), batch.size(), command.getReason());
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        
+        Map<UUID, Light> changedLights = new LinkedHashMap<>();
+        changed.forEach((lightId, pending) -> changedLights.put(lightId, pending.light()));
+        GroupedLightPlan plan = planCommands(hue, changedLights, command);
+        UpdateState updateState = command.toUpdateState();
+        int commandsSent = 0;
+        
+        for (Group group : plan.getGroups()) {
+            try {
+                traced("", group.getName(), group.getLights().size(), command, parentOf(group, changed), 
+                    () -> withBackoff(group.getName(), () -> allAbandoned(group, changed), 
+                        () -> bounded(() -> group.setState(updateState))));
+                commandsSent++;
+                group.getLights().forEach(light -> {
+                    lightShadowStore.recordApplied(light.getId(), command);
+                    LightCommandMailbox.PendingCommand pending = changed.get(light.getId());
+                    if (pending != null) {
+                        pending.complete(LightOutcome.Status.SUCCESS, null);
+                    }
+                });
+                log.info("Set group {} ({} lights) to {} mood (RGB: {})", 
+                    group.getName(), 
+                    group.getLights().size(),
+                    command.getReason(),
+                    command.getColorKey());
+            } catch (Exception e) {
+                log.warn("Grouped command failed for {}, falling back to per-light commands: {}", 
+                    group.getName(), e.getMessage());
+                for (Light light : group.getLights()) {
+                    LightCommandMailbox.PendingCommand pending = changed.get(light.getId());
+                    if (pending != null && !pending.isAbandoned()) {
+                        commandsSent += sendToLight(bridgeName, pending, updateState, command);
+                    }
+                }
+            }
+        }
+        
+        for (UUID lightId : plan.getRemainingLights().keySet()) {
+            LightCommandMailbox.PendingCommand pending = changed.get(lightId);
+            // A light whose caller gave up mid-batch is not worth a bridge call
+            if (pending.isAbandoned()) {
+                continue;
+            }
+            commandsSent += sendToLight(bridgeName, pending, updateState, command);
+        }
+        
+        lightShadowStore.flush();
+        log.debug("Dispatched {} command(s) for {} light(s)", commandsSent, changed.size());
+        return commandsSent;
+    }
+    
+    private GroupedLightPlan planCommands(Hue hue, Map<UUID, Light> targetLights, LightCommand command) {
+        if (!hueProperties.isGroupedCommands() || targetLights.size() < 2 || command.hasTransition()) {
+            return new GroupedLightPlan(List.of(), targetLights);
+        }
+        
+        try {
+            List<Group> candidates = new ArrayList<>();
+            candidates.addAll(hue.getRooms().values());
+            candidates.addAll(hue.getZones().values());
+            return groupedLightPlanner.plan(targetLights, candidates);
+        } catch (Exception e) {
+            log.warn("Could not read rooms/zones, using per-light commands: {}", e.getMessage());
+            return new GroupedLightPlan(List.of(), targetLights);
+        }
+    }
+    
+    private int sendToLight(String bridgeName, LightCommandMailbox.PendingCommand pending, UpdateState updateState, 
+                            LightCommand command) {
+        Light light = pending.light();
+        HueClipClient clipClient = command.hasTransition() || command.getXy() != null
+            ? bridgeRegistry.getClipClient(bridgeName).orElse(null) 
+            : null;
+        try {
+            traced(pending.lightId().toString(), light.getName(), 1, command, pending.parentObservation(), 
+                () -> withBackoff(light.getName(), pending::isAbandoned, () -> {
+                    if (clipClient != null) {
+                        clipClient.setLightState(pending.lightId(), command);
+                    } else {
+                        bounded(() -> light.setState(updateState));
+                    }
+                }));
+            lightShadowStore.recordApplied(pending.lightId(), command);
+            pending.complete(LightOutcome.Status.SUCCESS, null);
+            log.info("Set {} to {} mood (RGB: {})", 
+                light.getName(), 
+                command.getReason(),
+                command.getColorKey());
+            return 1;
+        } catch (Exception e) {
+            log.error("Error controlling light: {}", light.getName(), e);
+            lightShadowStore.invalidate(pending.lightId());
+            pending.complete(LightOutcome.Status.FAILED, e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Retry while the bridge answers 429 or 503, giving up early once the
+     * outcome is no longer awaited
+     */
+    private void withBackoff(String target, BooleanSupplier abandoned, BridgeCall call) throws Exception {
+        Duration backoff = hueProperties.getRateLimitBackoff();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                call.run();
+                return;
+            } catch (Exception e) {
+                Integer status = busyStatus(e);
+                if (status == null || attempt > hueProperties.getRateLimitRetries() || abandoned.getAsBoolean()) {
+                    throw e;
+                }
+                Duration retryAfter = retryAfter(e);
+                Duration wait = retryAfter.compareTo(backoff) > 0 ? retryAfter : backoff;
+                log.debug("Bridge answered {} for {}, retrying in {} ms", status, target, wait.toMillis());
+                Thread.sleep(wait);
+                if (abandoned.getAsBoolean()) {
+                    throw e;
+                }
+                backoff = backoff.multipliedBy(2);
+            }
+        }
+    }
+    
+    /**
+     * 429 or 503 if that is why the call failed, else null. The CLIP client
+     * reports the status as an exception; the Hue library has no exception
+     * type for it, so its message is matched for the status instead.
+     */
+    static Integer busyStatus(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpClientErrorException.TooManyRequests) {
+                return 429;
+            }
+            if (cause instanceof HttpServerErrorException.ServiceUnavailable) {
+                return 503;
+            }
+            if (cause instanceof HttpStatusCodeException) {
+                return null;
+            }
+            String message = cause.getMessage();
+            if (message != null && TOO_MANY_REQUESTS.matcher(message).find()) {
+                return 429;
+            }
+            if (message != null && SERVICE_UNAVAILABLE.matcher(message).find()) {
+                return 503;
+            }
+        }
+        return null;
+    }
+    
+    private static Duration retryAfter(Exception error) {
+        String retryAfter = error instanceof HttpStatusCodeException e && e.getResponseHeaders() != null 
+            ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER) 
+            : null;
+        try {
+            return retryAfter != null ? Duration.ofSeconds(Long.parseLong(retryAfter.trim())) : Duration.ZERO;
+        } catch (NumberFormatException notSeconds) {
+            // An HTTP date; the backoff will do
+            return Duration.ZERO;
+        }
+    }
+    
+    private static boolean allAbandoned(Group group, Map<UUID, LightCommandMailbox.PendingCommand> changed) {
+        return group.getLights().stream()
+            .map(light -> changed.get(light.getId()))
+            .allMatch(pending -> pending == null || pending.isAbandoned());
+    }
+    
+    @FunctionalInterface
+    private interface BridgeCall {
+        void run() throws Exception;
+    }
+    
+    /**
+     * Make a Hue library call, giving up after hue.clip-request-timeout. The
+     * library has no timeout of its own; interrupting the thread aborts its
+     * blocked socket read, so the lane is free again for the next command.
+     */
+    private void bounded(BridgeCall call) throws Exception {
+        Duration timeout = hueProperties.getClipRequestTimeout();
+        if (timeout == null) {
+            call.run();
+            return;
+        }
+        Future<?> future = bridgeCalls.submit(() -> {
+            call.run();
+            return null;
+        });
+        try {
+            future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TimeoutException("Bridge did not answer within " + timeout);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+    
+    /**
+     * Make one bridge call, recorded as a span and as a JFR event
+     */
+    private void traced(String lightId, String target, int lights, LightCommand command, Observation parent,
+                        BridgeCall call) throws Exception {
+        Observation observation = commandObservation(lightId, target, lights, command, parent).start();
+        LightCommandEvent event = new LightCommandEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            call.run();
+            success = true;
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            commandEvent(event, lightId, target, lights, command, success);
+            observation.stop();
+        }
+    }
+    
+    /**
+     * Span of one bridge call; an empty light id marks a grouped_light command
+     */
+    private Observation commandObservation(String lightId, String target, int lights, LightCommand command,
+                                           Observation parent) {
+        boolean grouped = lightId.isEmpty();
+        return Observation.createNotStarted("hue.bridge.command", observationRegistry)
+            .contextualName(grouped ? "grouped_light setState" : "light setState")
+            .parentObservation(parent)
+            .lowCardinalityKeyValue("hue.target.type", grouped ? "group" : "light")
+            .lowCardinalityKeyValue("weather.condition", Objects.requireNonNullElse(command.getReason(), "unknown"))
+            .highCardinalityKeyValue("hue.color", Objects.requireNonNullElse(command.getColorKey(), "off"))
+            .highCardinalityKeyValue("hue.target", target)
+            .highCardinalityKeyValue("hue.light.id", lightId)
+            .highCardinalityKeyValue("hue.lights", String.valueOf(lights));
+    }
+    
+    /**
+     * Lights in one group may have been posted by different cycles; the
+     * grouped command is traced under the first one found
+     */
+    private static Observation parentOf(Group group, Map<UUID, LightCommandMailbox.PendingCommand> changed) {
+        for (Light light : group.getLights()) {
+            LightCommandMailbox.PendingCommand pending = changed.get(light.getId());
+            if (pending != null && pending.parentObservation() != null) {
+                return pending.parentObservation();
+            }
+        }
+        return null;
+    }
+    
+    private static void commandEvent(LightCommandEvent event, String lightId, String target, int lights,
+                                     LightCommand command, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.lightId = lightId;
+            event.target = target;
+            event.lights = lights;
+            event.condition = command.getReason();
+            event.success = success;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.greenstevester.hue_mood_orologist.dispatch;
+
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.heuvana.v2.Hue;
+import io.github.greenstevester.heuvana.v2.Light;
+import io.micrometer.observation.Observation;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latest-wins mailbox holding at most one unsent command per light.
+ * Posting a command for a light that still has one pending replaces it,
+ * so a burst of updates collapses into a single command per light.
+ * Only one thread drains the mailbox at a time.
+ *
+ * <p>Every posted command carries a future for its outcome; a superseded
+ * command completes as skipped. It also carries the observation of the
+ * cycle that posted it, so the bridge call is traced as part of that cycle
+ * even though it runs on the bridge's lane.
+ */
+@Slf4j
+public class LightCommandMailbox {
+    
+    private final Map<UUID, PendingCommand> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicLong supersededCount = new AtomicLong();
+    
+    public record PendingCommand(UUID lightId, Light light, Hue hue, LightCommand command,
+                                 long postedAtNanos, CompletableFuture<LightOutcome> outcome, 
+                                 Observation parentObservation) {
+        
+        /**
+         * Complete the outcome unless it already completed (e.g. timed out)
+         */
+        public boolean complete(LightOutcome.Status status, String detail) {
+            return outcome.complete(new LightOutcome(lightId, light.getName(), status, 
+                Duration.ofNanos(System.nanoTime() - postedAtNanos), detail));
+        }
+        
+        /**
+         * Whether nobody is waiting for this command any more
+         */
+        public boolean isAbandoned() {
+            return outcome.isDone();
+        }
+    }
+    
+    public CompletableFuture<LightOutcome> post(UUID lightId, Light light, Hue hue, LightCommand command) {
+        return post(lightId, light, hue, command, null);
+    }
+    
+    /**
+     * @param parentObservation observation of the cycle posting the command; may be null
+     */
+    public CompletableFuture<LightOutcome> post(UUID lightId, Light light, Hue hue, LightCommand command,
+                                                Observation parentObservation) {
+        CompletableFuture<LightOutcome> outcome = new CompletableFuture<>();
+        PendingCommand previous = pending.put(lightId, 
+            new PendingCommand(lightId, light, hue, command, System.nanoTime(), outcome, parentObservation));
+        if (previous != null) {
+            supersededCount.incrementAndGet();
+            previous.complete(LightOutcome.Status.SKIPPED, "superseded by " + command.getReason());
+            log.debug("Pending {} command for {} superseded by {}", 
+                previous.command().getReason(), light.getName(), command.getReason());
+        }
+        return outcome;
+    }
+    
+    /**
+     * Claim the right to drain. Returns false if another thread is already
+     * draining; that thread will pick up anything posted in the meantime.
+     */
+    public boolean tryStartDrain() {
+        return draining.compareAndSet(false, true);
+    }
+    
+    /**
+     * Release the drain claim. Returns true if commands were posted after the
+     * last {@link #takeAll()}, in which case the caller should try to drain again.
+     */
+    public boolean finishDrain() {
+        draining.set(false);
+        return !pending.isEmpty();
+    }
+    
+    /**
+     * Remove and return every pending command
+     */
+    public List<PendingCommand> takeAll() {
+        List<PendingCommand> taken = new ArrayList<>(pending.size());
+        for (UUID lightId : pending.keySet()) {
+            PendingCommand command = pending.remove(lightId);
+            if (command != null) {
+                taken.add(command);
+            }
+        }
+        return taken;
+    }
+    
+    public int size() {
+        return pending.size();
+    }
+    
+    public long getSupersededCount() {
+        return supersededCount.get();
+    }
+}
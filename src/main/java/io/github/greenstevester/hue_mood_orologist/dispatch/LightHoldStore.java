@@ -0,0 +1,65 @@
+package io.github.greenstevester.hue_mood_orologist.dispatch;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lights a color plan holds until its valid-until time. Weather updates
+ * leave held lights alone, and a later plan only takes a light over with
+ * the same or a higher priority. Kept in memory only; after a restart the
+ * weather takes the lights back at the next check.
+ */
+@Component
+public class LightHoldStore {
+    
+    private final Map<UUID, Hold> holds = new ConcurrentHashMap<>();
+    
+    public record Hold(int priority, Instant validUntil) {
+        boolean isActive(Instant now) {
+            return validUntil.isAfter(now);
+        }
+    }
+    
+    public boolean isHeld(UUID lightId) {
+        return activeHold(lightId).isPresent();
+    }
+    
+    /**
+     * The hold on the light if it still applies and outranks the given priority
+     */
+    public Optional<Hold> outranking(UUID lightId, int priority) {
+        return activeHold(lightId).filter(hold -> hold.priority() > priority);
+    }
+    
+    /**
+     * Hold the light until the given time, or release it when there is none
+     */
+    public void hold(UUID lightId, int priority, Instant validUntil) {
+        if (validUntil == null) {
+            holds.remove(lightId);
+        } else {
+            holds.put(lightId, new Hold(priority, validUntil));
+        }
+    }
+    
+    public int size() {
+        return holds.size();
+    }
+    
+    private Optional<Hold> activeHold(UUID lightId) {
+        Hold hold = holds.get(lightId);
+        if (hold == null) {
+            return Optional.empty();
+        }
+        if (!hold.isActive(Instant.now())) {
+            holds.remove(lightId, hold);
+            return Optional.empty();
+        }
+        return Optional.of(hold);
+    }
+}
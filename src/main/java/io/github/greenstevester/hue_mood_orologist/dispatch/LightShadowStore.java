@@ -0,0 +1,176 @@
+package io.github.greenstevester.hue_mood_orologist.dispatch;
+
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.storage.AtomicFiles;
+import io.github.greenstevester.heuvana.v2.Light;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Last state applied to each light, so unchanged lights don't get re-sent
+ * the same command every tick. Persisted to a local properties file so a
+ * restart doesn't trigger a burst of redundant commands. Read when the
+ * context starts and written when it stops, so a JVM restored from a
+ * checkpoint picks up the state of the last run, not the checkpoint's.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LightShadowStore implements SmartLifecycle {
+    
+    private final HueProperties hueProperties;
+    private final Map<UUID, Shadow> shadows = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private volatile boolean running;
+    
+    private record Shadow(LightCommand command, Instant appliedAt) {
+    }
+    
+    @Override
+    public void start() {
+        shadows.clear();
+        load();
+        running = true;
+    }
+    
+    @Override
+    public void stop() {
+        flush();
+        running = false;
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+    
+    public void load() {
+        if (!hueProperties.isShadowStateEnabled()) {
+            return;
+        }
+        Path file = shadowFile();
+        if (!Files.exists(file)) {
+            log.debug("No light shadow state at {}", file);
+            return;
+        }
+        
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+            properties.forEach((key, value) -> restore(key.toString(), value.toString()));
+            log.info("Restored shadow state for {} light(s) from {}", shadows.size(), file);
+        } catch (Exception e) {
+            log.warn("Could not read light shadow state from {}, starting empty: {}", file, e.getMessage());
+            shadows.clear();
+        }
+    }
+    
+    private void restore(String lightId, String value) {
+        // Format: on|appliedAtEpochMillis|colorKey
+        String[] parts = value.split("\\|", 3);
+        if (parts.length != 3) {
+            return;
+        }
+        boolean on = Boolean.parseBoolean(parts[0]);
+        Instant appliedAt = Instant.ofEpochMilli(Long.parseLong(parts[1]));
+        String colorKey = parts[2].isEmpty() ? null : parts[2];
+        shadows.put(UUID.fromString(lightId), 
+            new Shadow(new LightCommand(on, colorKey, null, "restored", null, null), appliedAt));
+    }
+    
+    /**
+     * Whether the light is already known to be in the commanded state
+     */
+    public boolean isApplied(UUID lightId, LightCommand command) {
+        if (!hueProperties.isShadowStateEnabled() || lightId == null) {
+            return false;
+        }
+        Shadow shadow = shadows.get(lightId);
+        if (shadow == null || !shadow.command().equals(command)) {
+            return false;
+        }
+        Duration maxAge = hueProperties.getShadowStateMaxAge();
+        return maxAge == null || shadow.appliedAt().plus(maxAge).isAfter(Instant.now());
+    }
+    
+    public void recordApplied(UUID lightId, LightCommand command) {
+        if (!hueProperties.isShadowStateEnabled() || lightId == null) {
+            return;
+        }
+        shadows.put(lightId, new Shadow(command, Instant.now()));
+        dirty.set(true);
+    }
+    
+    public void invalidate(UUID lightId) {
+        if (lightId != null && shadows.remove(lightId) != null) {
+            dirty.set(true);
+        }
+    }
+    
+    /**
+     * Drop shadow entries the bridge contradicts. The v2 light resource only
+     * tells us reliably whether a light is on, so a light switched by hand
+     * (or removed from the bridge) is re-sent on the next update.
+     */
+    public void reconcile(Map<UUID, Light> bridgeLights) {
+        if (!hueProperties.isShadowStateEnabled() || shadows.isEmpty()) {
+            return;
+        }
+        shadows.forEach((lightId, shadow) -> {
+            Light light = bridgeLights.get(lightId);
+            try {
+                if (light == null || light.isOn() != shadow.command().isOn()) {
+                    log.debug("Shadow state for light {} is stale, will resend", lightId);
+                    invalidate(lightId);
+                }
+            } catch (Exception e) {
+                invalidate(lightId);
+            }
+        });
+    }
+    
+    /**
+     * Write the shadow state to disk if it changed since the last flush
+     */
+    public void flush() {
+        if (!hueProperties.isShadowStateEnabled() || !dirty.compareAndSet(true, false)) {
+            return;
+        }
+        Path file = shadowFile();
+        Properties properties = new Properties();
+        shadows.forEach((lightId, shadow) -> properties.setProperty(lightId.toString(), 
+            shadow.command().isOn() + "|" + shadow.appliedAt().toEpochMilli() + "|" 
+                + (shadow.command().getColorKey() == null ? "" : shadow.command().getColorKey())));
+        
+        try {
+            AtomicFiles.writeProperties(file, properties, "Hue Mood Orologist light shadow state");
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("Could not persist light shadow state to {}: {}", file, e.getMessage());
+        }
+    }
+    
+    private Path shadowFile() {
+        return Path.of(hueProperties.getShadowStateFile());
+    }
+}
@@ -0,0 +1,263 @@
+package io.github.greenstevester.hue_mood_orologist.events;
+
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.hue_mood_orologist.model.LightState;
+import io.github.greenstevester.hue_mood_orologist.model.MoodSnapshot;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Streams what the service decides to any number of Server-Sent Events
+ * clients. State lives in one immutable {@link MoodSnapshot}, replaced
+ * with compare-and-set, so publishing never blocks the pipeline and
+ * readers never see half an update.
+ *
+ * <p>Every client has its own bounded queue, drained by its own virtual
+ * thread, so publishing only queues events and a slow client delays
+ * neither a weather check nor the other clients. A client that falls
+ * {@value #CLIENT_BACKLOG} events behind is dropped; reconnecting gets it
+ * the current snapshot again. A new client first gets the current snapshot
+ * and then every change after it. The event id is the snapshot version, so
+ * an event whose id is not above the snapshot's version is already part of it.
+ */
+@Slf4j
+@Component
+public class MoodStateBroadcaster implements SmartLifecycle {
+    
+    private static final long HEARTBEAT_SECONDS = 30;
+    static final int CLIENT_BACKLOG = 64;
+    
+    private final AtomicReference<MoodSnapshot> snapshot = new AtomicReference<>(MoodSnapshot.initial());
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private volatile ScheduledExecutorService heartbeats;
+    
+    public record ConditionChange(String previous, String current, Instant changedAt) {
+    }
+    
+    private record Transition(MoodSnapshot previous, MoodSnapshot next) {
+    }
+    
+    public MoodSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+    
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+    
+    /**
+     * Open a stream; it starts with a "snapshot" event
+     */
+    public SseEmitter subscribe() {
+        // Never time out; clients that went away are dropped by the next heartbeat that fails
+        return subscribe(new SseEmitter(0L));
+    }
+    
+    SseEmitter subscribe(SseEmitter emitter) {
+        if (!isRunning()) {
+            emitter.complete();
+            return emitter;
+        }
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        // Listed before the snapshot is read, so no change after it is missed
+        subscribers.add(subscriber);
+        MoodSnapshot current = snapshot.get();
+        subscriber.offerFirst(event("snapshot", current.getVersion(), current));
+        subscriber.start();
+        return emitter;
+    }
+    
+    /**
+     * Publish a new analysis of the default location, and the condition
+     * change if it maps to a different condition than the last one
+     */
+    public void publishAnalysis(WeatherAnalysis analysis) {
+        Transition transition = update(current -> current.withAnalysis(analysis));
+        MoodSnapshot next = transition.next();
+        broadcast("analysis", next.getVersion(), analysis);
+        
+        String previousCondition = transition.previous().getWeatherCondition();
+        if (!Objects.equals(previousCondition, next.getWeatherCondition())) {
+            broadcast("condition", next.getVersion(), 
+                new ConditionChange(previousCondition, next.getWeatherCondition(), next.getUpdatedAt()));
+        }
+    }
+    
+    /**
+     * Publish the lights an update cycle changed. Lights that failed, or
+     * already showed the commanded state, are not part of the event.
+     */
+    public void publishLights(String weatherCondition, LightCommand command, CycleResult result) {
+        Instant now = Instant.now();
+        List<LightState> updated = result.getOutcomes().stream()
+            .filter(outcome -> outcome.getStatus() == LightOutcome.Status.SUCCESS)
+            .map(outcome -> new LightState(outcome.getLightId(), outcome.getLightName(), 
+                command.isOn(), command.getColorKey(), weatherCondition, now))
+            .toList();
+        if (updated.isEmpty()) {
+            return;
+        }
+        
+        List<LightState> changed = new ArrayList<>();
+        Transition transition = update(current -> {
+            changed.clear();
+            Map<UUID, LightState> lights = new HashMap<>(current.getLights());
+            for (LightState state : updated) {
+                if (!state.sameOutputAs(lights.get(state.getLightId()))) {
+                    lights.put(state.getLightId(), state);
+                    changed.add(state);
+                }
+            }
+            return changed.isEmpty() ? current : current.withLights(lights);
+        });
+        if (!changed.isEmpty()) {
+            broadcast("lights", transition.next().getVersion(), List.copyOf(changed));
+        }
+    }
+    
+    private Transition update(UnaryOperator<MoodSnapshot> change) {
+        while (true) {
+            MoodSnapshot previous = snapshot.get();
+            MoodSnapshot next = change.apply(previous);
+            if (next == previous || snapshot.compareAndSet(previous, next)) {
+                return new Transition(previous, next);
+            }
+        }
+    }
+    
+    private void broadcast(String name, long version, Object data) {
+        // A builder can be sent once, so every client gets its own
+        subscribers.forEach(subscriber -> subscriber.offer(event(name, version, data)));
+    }
+    
+    private void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("keep-alive")));
+    }
+    
+    private static SseEventBuilder event(String name, long version, Object data) {
+        return SseEmitter.event().name(name).id(String.valueOf(version)).data(data);
+    }
+    
+    @Override
+    public void start() {
+        heartbeats = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("mood-events-heartbeat").daemon(true).factory());
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = heartbeats;
+        heartbeats = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        subscribers.forEach(Subscriber::complete);
+        subscribers.clear();
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return heartbeats != null;
+    }
+    
+    /**
+     * One client's stream: events wait in its own queue and are written by
+     * its own virtual thread, the only thread that blocks on its socket
+     */
+    private final class Subscriber {
+    
+        private final SseEmitter emitter;
+        private final BlockingDeque<SseEventBuilder> events = new LinkedBlockingDeque<>(CLIENT_BACKLOG);
+        private volatile Thread sender;
+        private volatile boolean closed;
+        
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+        
+        void start() {
+            sender = Thread.ofVirtual().name("mood-events-client").start(this::drain);
+            if (closed) {
+                sender.interrupt();
+            }
+        }
+        
+        void offerFirst(SseEventBuilder event) {
+            if (!events.offerFirst(event)) {
+                drop(new IllegalStateException("event backlog full"));
+            }
+        }
+        
+        void offer(SseEventBuilder event) {
+            if (!events.offer(event)) {
+                drop(new IllegalStateException("client fell " + CLIENT_BACKLOG + " events behind"));
+            }
+        }
+        
+        private void drain() {
+            try {
+                while (!closed) {
+                    emitter.send(events.take());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                drop(e);
+            }
+        }
+        
+        private void drop(Exception cause) {
+            if (subscribers.remove(this)) {
+                log.debug("Dropping event stream client: {}", cause.getMessage());
+                stopSending();
+                emitter.completeWithError(cause);
+            }
+        }
+        
+        /**
+         * The stream ended, from either side
+         */
+        void close() {
+            subscribers.remove(this);
+            stopSending();
+        }
+        
+        void complete() {
+            stopSending();
+            emitter.complete();
+        }
+        
+        private void stopSending() {
+            closed = true;
+            Thread thread = sender;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+}
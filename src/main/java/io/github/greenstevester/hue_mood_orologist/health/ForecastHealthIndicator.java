@@ -0,0 +1,50 @@
+package io.github.greenstevester.hue_mood_orologist.health;
+
+import io.github.greenstevester.hue_mood_orologist.config.ScheduleProperties;
+import io.github.greenstevester.hue_mood_orologist.pipeline.WeatherPipeline;
+import io.github.greenstevester.hue_mood_orologist.scheduler.WeatherCheckScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Age of the last successful forecast; never calls Open-Meteo itself. Once
+ * two scheduled checks in a row have failed to bring a new one, the forecast
+ * is reported as stale in the details. An old forecast is no reason to take
+ * the application out of service, so the status stays up, and while the
+ * scheduler is paused no new forecast is expected at all.
+ */
+@Component
+@RequiredArgsConstructor
+public class ForecastHealthIndicator implements HealthIndicator {
+    
+    private static final Duration GRACE = Duration.ofMinutes(5);
+    
+    private final WeatherPipeline weatherPipeline;
+    private final ScheduleProperties scheduleProperties;
+    private final WeatherCheckScheduler weatherCheckScheduler;
+    
+    @Override
+    public Health health() {
+        Duration maxAge = Duration.ofMillis(2 * scheduleProperties.getInterval().getIntervalMillis()).plus(GRACE);
+        Optional<Instant> lastForecastAt = weatherPipeline.getLastForecastAt();
+        if (lastForecastAt.isEmpty()) {
+            return Health.unknown().withDetail("reason", "no forecast fetched yet").build();
+        }
+        
+        Duration age = Duration.between(lastForecastAt.get(), Instant.now());
+        boolean paused = weatherCheckScheduler.isPaused();
+        return Health.up()
+            .withDetail("lastForecastAt", lastForecastAt.get())
+            .withDetail("ageSeconds", age.toSeconds())
+            .withDetail("maxAgeSeconds", maxAge.toSeconds())
+            .withDetail("paused", paused)
+            .withDetail("stale", !paused && age.compareTo(maxAge) > 0)
+            .build();
+    }
+}
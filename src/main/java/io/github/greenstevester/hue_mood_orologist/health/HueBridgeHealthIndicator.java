@@ -0,0 +1,53 @@
+package io.github.greenstevester.hue_mood_orologist.health;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bridge reachability as last seen by the connection manager's
+ * health checks. Only reads connection state, never calls a bridge.
+ */
+@Component
+@RequiredArgsConstructor
+public class HueBridgeHealthIndicator implements HealthIndicator {
+    
+    private final BridgeRegistry bridgeRegistry;
+    private final ClusterCoordinator clusterCoordinator;
+    
+    @Override
+    public Health health() {
+        Map<String, Object> bridges = new LinkedHashMap<>();
+        boolean anyConnected = false;
+        boolean firstAttemptPending = true;
+        for (HueBridgeConnection bridge : bridgeRegistry.getBridges()) {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("state", bridge.getState());
+            details.put("since", bridge.getLastStateChange());
+            details.put("consecutiveFailures", bridge.getConsecutiveFailures());
+            details.put("leader", clusterCoordinator.isBridgeLeader(bridge.getName()));
+            bridges.put(bridge.getName(), details);
+            anyConnected |= bridge.getState() == HueBridgeConnection.State.CONNECTED;
+            firstAttemptPending &= isConnectingForTheFirstTime(bridge);
+        }
+        
+        // Lights can be driven as long as one bridge is up. Until the first
+        // attempts have finished, unknown keeps readiness from waiting on them.
+        Health.Builder health = anyConnected ? Health.up() 
+            : firstAttemptPending ? Health.unknown() : Health.down();
+        return health.withDetail("bridges", bridges).build();
+    }
+    
+    private static boolean isConnectingForTheFirstTime(HueBridgeConnection bridge) {
+        return bridge.getConsecutiveFailures() == 0 
+            && (bridge.getState() == HueBridgeConnection.State.DISCONNECTED 
+                || bridge.getState() == HueBridgeConnection.State.CONNECTING);
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.greenstevester.hue_mood_orologist.health;
+
+import io.github.greenstevester.hue_mood_orologist.scheduler.WeatherCheckScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Whether the timing wheel behind all schedules is still turning. A stuck
+ * or dead wheel means no check will ever run again, so this is part of
+ * the liveness group; pausing the scheduler does not make it unhealthy.
+ */
+@Component
+@RequiredArgsConstructor
+public class SchedulerHealthIndicator implements HealthIndicator {
+    
+    private static final Duration MAX_LAG = Duration.ofSeconds(30);
+    
+    private final WeatherCheckScheduler weatherCheckScheduler;
+    
+    @Override
+    public Health health() {
+        Duration lag = weatherCheckScheduler.getWheelLag();
+        boolean healthy = weatherCheckScheduler.isWheelRunning() && lag.compareTo(MAX_LAG) <= 0;
+        Health.Builder health = healthy ? Health.up() : Health.down();
+        return health
+            .withDetail("running", weatherCheckScheduler.isWheelRunning())
+            .withDetail("lagMillis", lag.toMillis())
+            .withDetail("paused", weatherCheckScheduler.isPaused())
+            .build();
+    }
+}
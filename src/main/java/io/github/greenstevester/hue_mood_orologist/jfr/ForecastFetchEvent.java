@@ -0,0 +1,29 @@
+package io.github.greenstevester.hue_mood_orologist.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Getting a forecast for a location, either from Open-Meteo or from the
+ * node of the cluster that fetches it
+ */
+@Name("hue_mood_orologist.ForecastFetch")
+@Label("Forecast Fetch")
+@Category({"Hue Mood-orologist", "Pipeline"})
+@Description("Fetching or receiving the forecast of a location, including decoding")
+@StackTrace(false)
+public class ForecastFetchEvent extends jdk.jfr.Event {
+    
+    @Label("Location")
+    public String location;
+    
+    @Label("Source")
+    @Description("open-meteo or shared")
+    public String source;
+    
+    @Label("Success")
+    public boolean success;
+}
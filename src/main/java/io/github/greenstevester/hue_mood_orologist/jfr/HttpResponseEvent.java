@@ -0,0 +1,33 @@
+package io.github.greenstevester.hue_mood_orologist.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An outgoing REST request, from sending it until its body has been read.
+ * Lines up with the JDK's socket read events on the same thread.
+ */
+@Name("hue_mood_orologist.HttpResponse")
+@Label("HTTP Response")
+@Category({"Hue Mood-orologist", "HTTP"})
+@Description("A REST client request from sending until the response body is consumed")
+@StackTrace(false)
+public class HttpResponseEvent extends jdk.jfr.Event {
+    
+    @Label("Host")
+    public String host;
+    
+    @Label("Path")
+    public String path;
+    
+    @Label("Status")
+    public int status;
+    
+    @Label("Body Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,36 @@
+package io.github.greenstevester.hue_mood_orologist.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call to the bridge setting a light, or a whole room or zone through
+ * its grouped light
+ */
+@Name("hue_mood_orologist.LightCommand")
+@Label("Light Command")
+@Category({"Hue Mood-orologist", "Dispatch"})
+@Description("A state change sent to the bridge for one light or one group")
+@StackTrace(false)
+public class LightCommandEvent extends jdk.jfr.Event {
+    
+    @Label("Light ID")
+    @Description("Empty for grouped commands")
+    public String lightId;
+    
+    @Label("Target")
+    @Description("Light, room or zone name")
+    public String target;
+    
+    @Label("Lights")
+    public int lights;
+    
+    @Label("Condition")
+    public String condition;
+    
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,22 @@
+package io.github.greenstevester.hue_mood_orologist.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Turning a forecast into a weather condition
+ */
+@Name("hue_mood_orologist.WeatherAnalysis")
+@Label("Weather Analysis")
+@Category({"Hue Mood-orologist", "Pipeline"})
+@StackTrace(false)
+public class WeatherAnalysisEvent extends jdk.jfr.Event {
+    
+    @Label("Location")
+    public String location;
+    
+    @Label("Condition")
+    public String condition;
+}
@@ -0,0 +1,42 @@
+package io.github.greenstevester.hue_mood_orologist.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One weather check, from being queued until its last light command has an
+ * outcome. Begun on the scheduling thread and committed wherever the check
+ * ends, so the event thread is the one that finished it.
+ */
+@Name("hue_mood_orologist.WeatherCycle")
+@Label("Weather Cycle")
+@Category({"Hue Mood-orologist", "Pipeline"})
+@Description("A weather check from queueing to the outcome of its light commands")
+@StackTrace(false)
+public class WeatherCycleEvent extends jdk.jfr.Event {
+    
+    @Label("Schedule")
+    public String schedule;
+    
+    @Label("Location")
+    public String location;
+    
+    @Label("Room")
+    public String room;
+    
+    @Label("Condition")
+    public String condition;
+    
+    @Label("Outcome")
+    @Description("completed, failed or dropped")
+    public String outcome;
+    
+    @Label("Lights Updated")
+    public int lightsUpdated;
+    
+    @Label("Lights Failed")
+    public int lightsFailed;
+}
@@ -0,0 +1,198 @@
+package io.github.greenstevester.hue_mood_orologist.metrics;
+
+import io.github.greenstevester.hue_mood_orologist.jfr.HttpResponseEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what happens to a response body after the request returns: how
+ * long it takes to read and decode, and how many bytes it had. Request
+ * latency itself is covered by the {@code http.client.requests} metric
+ * Spring Boot already records.
+ *
+ * <p>Each exchange is also recorded as a JFR {@link HttpResponseEvent}
+ * spanning the request and the body read.
+ */
+@RequiredArgsConstructor
+public class MeteredResponseInterceptor implements ClientHttpRequestInterceptor {
+    
+    private final MeterRegistry meterRegistry;
+    
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, 
+                                        ClientHttpRequestExecution execution) throws IOException {
+        String host = request.getURI().getHost() != null ? request.getURI().getHost() : "none";
+        HttpResponseEvent event = new HttpResponseEvent();
+        event.begin();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException e) {
+            commit(event, request, 0, 0);
+            throw e;
+        }
+        return new MeteredResponse(response, host, request, event);
+    }
+    
+    private static void commit(HttpResponseEvent event, HttpRequest request, int status, long bytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.host = request.getURI().getHost();
+            event.path = request.getURI().getPath();
+            event.status = status;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+    
+    private final class MeteredResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final String host;
+        private final HttpRequest request;
+        private final HttpResponseEvent event;
+        private InputStream body;
+        private boolean eventCommitted;
+        
+        private MeteredResponse(ClientHttpResponse delegate, String host, HttpRequest request, HttpResponseEvent event) {
+            this.delegate = delegate;
+            this.host = host;
+            this.request = request;
+            this.event = event;
+        }
+        
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+        
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+        
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+        
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new MeteredBody(delegate.getBody(), host, this);
+            }
+            return body;
+        }
+        
+        @Override
+        public void close() {
+            try {
+                if (body != null) {
+                    body.close();
+                }
+            } catch (IOException e) {
+                // Closing the delegate below releases the connection either way
+            }
+            // A body that was never read still ends the exchange
+            bodyConsumed(0);
+            delegate.close();
+        }
+        
+        private void bodyConsumed(long bytes) {
+            if (eventCommitted) {
+                return;
+            }
+            eventCommitted = true;
+            int status;
+            try {
+                status = delegate.getStatusCode().value();
+            } catch (IOException e) {
+                status = 0;
+            }
+            commit(event, request, status, bytes);
+        }
+    }
+    
+    /**
+     * Counts bytes from the first read until the stream is exhausted or closed
+     */
+    private final class MeteredBody extends FilterInputStream {
+        private final String host;
+        private final MeteredResponse response;
+        private long startedAt;
+        private long bytes;
+        private boolean recorded;
+        
+        private MeteredBody(InputStream in, String host, MeteredResponse response) {
+            super(in);
+            this.host = host;
+            this.response = response;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            start();
+            int value = super.read();
+            if (value < 0) {
+                record();
+            } else {
+                bytes++;
+            }
+            return value;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            start();
+            int count = super.read(buffer, offset, length);
+            if (count < 0) {
+                record();
+            } else {
+                bytes += count;
+            }
+            return count;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            record();
+            super.close();
+        }
+        
+        private void start() {
+            if (startedAt == 0) {
+                startedAt = System.nanoTime();
+            }
+        }
+        
+        private void record() {
+            if (recorded || startedAt == 0) {
+                return;
+            }
+            recorded = true;
+            response.bodyConsumed(bytes);
+            Timer.builder("http.client.response.decode")
+                .tag("host", host)
+                .description("Time from the first body read until the body is consumed")
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("http.client.response.size")
+                .tag("host", host)
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(bytes);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.greenstevester.hue_mood_orologist.metrics;
+
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.hue_mood_orologist.pipeline.PipelineStage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Timers and counters for each step of a weather check, from fetching the
+ * forecast to the outcome of every light command. Served to Prometheus
+ * from {@code /actuator/prometheus}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineMetrics {
+    
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * Last condition seen per forecast location, to count transitions
+     */
+    private final Map<String, String> lastConditions = new ConcurrentHashMap<>();
+    
+    /**
+     * Export queue depth, throughput and drops of a pipeline stage
+     */
+    public void registerStage(PipelineStage<?> stage) {
+        Gauge.builder("pipeline.stage.queued", stage, PipelineStage::getQueued)
+            .tag("stage", stage.getName())
+            .description("Items waiting in the stage inbox")
+            .register(meterRegistry);
+        FunctionCounter.builder("pipeline.stage.processed", stage, PipelineStage::getProcessed)
+            .tag("stage", stage.getName())
+            .register(meterRegistry);
+        FunctionCounter.builder("pipeline.stage.dropped", stage, PipelineStage::getDropped)
+            .tag("stage", stage.getName())
+            .description("Items dropped because the stage fell behind")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * @param source where the forecast came from: open-meteo or shared (cluster)
+     */
+    public void recordFetch(String source, boolean success, Duration duration) {
+        Timer.builder("weather.fetch")
+            .tag("source", source)
+            .tag("outcome", success ? "success" : "failure")
+            .description("Time to get a forecast, including decoding")
+            .register(meterRegistry)
+            .record(duration);
+    }
+    
+    public void recordAnalysis(Duration duration) {
+        Timer.builder("weather.analysis")
+            .register(meterRegistry)
+            .record(duration);
+    }
+    
+    public void recordColorResolution(Duration duration) {
+        Timer.builder("hue.color.resolution")
+            .description("Time to turn a weather condition into a light color")
+            .register(meterRegistry)
+            .record(duration);
+    }
+    
+    /**
+     * Count a change of weather condition at a location; the first
+     * condition seen after startup is not a transition
+     */
+    public void recordCondition(String locationKey, String condition) {
+        String current = Objects.requireNonNullElse(condition, "unknown");
+        String previous = lastConditions.put(locationKey, current);
+        if (previous != null && !previous.equals(current)) {
+            Counter.builder("weather.condition.transitions")
+                .tag("from", previous)
+                .tag("to", current)
+                .register(meterRegistry)
+                .increment();
+        }
+    }
+    
+    /**
+     * Per-light command latency and errors, plus totals for the cycle
+     */
+    public void recordCycle(CycleResult result) {
+        for (LightOutcome outcome : result.getOutcomes()) {
+            Timer.builder("hue.light.command")
+                .tag("status", outcome.getStatus().name().toLowerCase())
+                .description("Time from queueing a light command to its outcome")
+                .register(meterRegistry)
+                .record(outcome.getLatency());
+            if (outcome.getStatus() == LightOutcome.Status.FAILED 
+                    || outcome.getStatus() == LightOutcome.Status.TIMED_OUT) {
+                Counter.builder("hue.light.command.errors")
+                    .tag("status", outcome.getStatus().name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+            }
+        }
+        DistributionSummary.builder("hue.cycle.lights.updated")
+            .description("Lights changed per update cycle")
+            .register(meterRegistry)
+            .record(result.count(LightOutcome.Status.SUCCESS));
+        Timer.builder("hue.cycle")
+            .register(meterRegistry)
+            .record(result.getDuration());
+    }
+}
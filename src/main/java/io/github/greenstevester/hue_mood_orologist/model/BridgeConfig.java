@@ -0,0 +1,20 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Unauthenticated bridge identity served at /api/0/config
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BridgeConfig {
+    private String name;
+    @JsonProperty("bridgeid")
+    private String bridgeId;
+    @JsonProperty("modelid")
+    private String modelId;
+    @JsonProperty("apiversion")
+    private String apiVersion;
+}
@@ -0,0 +1,47 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The fields of a Hue CLIP v2 resource (light, room, zone, scene) that the
+ * scene sync reads. Unknown fields are ignored.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ClipResource {
+    private UUID id;
+    private String type;
+    
+    /**
+     * Create and update responses reference the resource instead of returning it
+     */
+    private UUID rid;
+
+    private Metadata metadata;
+    private Reference owner;
+    private Reference group;
+    private List<Reference> children = new ArrayList<>();
+    private List<Reference> services = new ArrayList<>();
+    
+    public String getName() {
+        return metadata != null ? metadata.getName() : null;
+    }
+    
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Metadata {
+        private String name;
+    }
+    
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Reference {
+        private UUID rid;
+        private String rtype;
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Envelope of every Hue CLIP v2 response
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ClipResponse {
+    private List<ClipResource> data = new ArrayList<>();
+    private List<Error> errors = new ArrayList<>();
+    
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Error {
+        private String description;
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * One instruction of a color plan sent by another system
+ *
+ * @param target      light id, light name, room or zone name, or "all"
+ * @param color       anything {@code ColorParserService} understands, or "off"
+ * @param transition  fade time, e.g. "PT2S"; null for the bridge default
+ * @param priority    higher wins when entries or plans target the same light; 0 when null
+ * @param validUntil  the light is held until then, weather updates included;
+ *                    null applies the color once
+ */
+public record ColorPlanEntry(String target, String color, Duration transition, Integer priority, 
+                             Instant validUntil) {
+    
+    public int effectivePriority() {
+        return priority != null ? priority : 0;
+    }
+}
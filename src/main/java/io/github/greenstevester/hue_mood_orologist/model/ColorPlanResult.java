@@ -0,0 +1,28 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * What became of a color plan: entries that were rejected up front, and
+ * the outcome of every light the accepted entries reached
+ */
+@Value
+public class ColorPlanResult {
+    int entries;
+    int accepted;
+    List<Rejection> rejected;
+    List<LightOutcome> outcomes;
+    
+    @Value
+    public static class Rejection {
+        int index;
+        String target;
+        String reason;
+    }
+    
+    public long count(LightOutcome.Status status) {
+        return outcomes.stream().filter(outcome -> outcome.getStatus() == status).count();
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Open-Meteo's "current" block; only the variables that were requested are set
+ */
+@Data
+public class CurrentData {
+    private String time;
+    @JsonProperty("temperature_2m")
+    private Double temperature2m;
+    private Double precipitation;
+}
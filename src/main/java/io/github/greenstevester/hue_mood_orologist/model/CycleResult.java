@@ -0,0 +1,49 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Outcome of one light update cycle across all bridges
+ */
+@Value
+public class CycleResult {
+    String weatherCondition;
+    Instant startedAt;
+    Duration duration;
+    List<LightOutcome> outcomes;
+    
+    public static CycleResult empty(String weatherCondition, Instant startedAt) {
+        return new CycleResult(weatherCondition, startedAt, Duration.between(startedAt, Instant.now()), List.of());
+    }
+    
+    public long count(LightOutcome.Status status) {
+        return outcomes.stream().filter(outcome -> outcome.getStatus() == status).count();
+    }
+    
+    /**
+     * Some lights did not reach the desired state
+     */
+    public boolean isPartialFailure() {
+        return count(LightOutcome.Status.FAILED) > 0 || count(LightOutcome.Status.TIMED_OUT) > 0;
+    }
+    
+    public List<LightOutcome> getFailures() {
+        return outcomes.stream()
+            .filter(outcome -> outcome.getStatus() == LightOutcome.Status.FAILED 
+                || outcome.getStatus() == LightOutcome.Status.TIMED_OUT)
+            .toList();
+    }
+    
+    public String summary() {
+        return String.format("%d updated, %d failed, %d timed out, %d skipped in %dms",
+            count(LightOutcome.Status.SUCCESS),
+            count(LightOutcome.Status.FAILED),
+            count(LightOutcome.Status.TIMED_OUT),
+            count(LightOutcome.Status.SKIPPED),
+            duration.toMillis());
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import lombok.Value;
+
+@Value
+public class DiscoveredBridge {
+    String bridgeId;
+    String ip;
+    
+    /**
+     * How the bridge was found: cache, mdns, nupnp or subnet
+     */
+    String source;
+}
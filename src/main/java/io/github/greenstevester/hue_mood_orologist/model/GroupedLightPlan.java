@@ -0,0 +1,23 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import io.github.greenstevester.heuvana.v2.Group;
+import io.github.greenstevester.heuvana.v2.Light;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Split of a set of target lights into whole rooms/zones that can be driven
+ * through a single grouped_light command, and the lights left over.
+ */
+@Value
+public class GroupedLightPlan {
+    List<Group> groups;
+    Map<UUID, Light> remainingLights;
+    
+    public int commandCount() {
+        return groups.size() + remainingLights.size();
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.v2.UpdateState;
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Desired state for a light or group of lights.
+ * Two commands are equal when they would leave a light in the same state,
+ * regardless of the reason they were issued.
+ */
+@Value
+public class LightCommand {
+    boolean on;
+    
+    /**
+     * Comparable fingerprint of the color (Color exposes no RGB accessors)
+     */
+    String colorKey;
+    
+    @EqualsAndHashCode.Exclude
+    Color color;
+    
+    @EqualsAndHashCode.Exclude
+    String reason;
+    
+    /**
+     * How long the bridge fades to the new state; null for its default.
+     * Only commands built from RGB carry one, since the fade is sent with
+     * the color in CIE xy.
+     */
+    @EqualsAndHashCode.Exclude
+    Duration transition;
+    
+    @EqualsAndHashCode.Exclude
+    XyColor xy;
+    
+    public static LightCommand on(Color color, String reason) {
+        return new LightCommand(true, color.toString(), color, reason, null, null);
+    }
+    
+    public static LightCommand on(int[] rgb, String reason, Duration transition) {
+        Color color = Color.of(rgb[0], rgb[1], rgb[2]);
+        return new LightCommand(true, color.toString(), color, reason, transition, XyColor.fromRgb(rgb));
+    }
+    
+    public static LightCommand off(String reason) {
+        return off(reason, null);
+    }
+    
+    public static LightCommand off(String reason, Duration transition) {
+        return new LightCommand(false, null, null, reason, transition, null);
+    }
+    
+    public boolean hasTransition() {
+        return transition != null;
+    }
+    
+    public UpdateState toUpdateState() {
+        if (!on) {
+            return new UpdateState().off();
+        }
+        return new UpdateState().color(color).on();
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.heuvana.v2.Hue;
+import io.github.greenstevester.heuvana.v2.Light;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The light command for a weather condition and the target lights it goes
+ * to, sharded by owning bridge. Built from the bridges' current light lists,
+ * applied later by the dispatch stage.
+ */
+@Value
+public class LightMoodPlan {
+    String weatherCondition;
+    Instant plannedAt;
+    LightCommand command;
+    
+    /**
+     * Every light is targeted, so whole-room scenes may be recalled
+     */
+    boolean useScenes;
+    
+    List<BridgeTargets> bridges;
+    
+    @Value
+    public static class BridgeTargets {
+        HueBridgeConnection bridge;
+        Hue hue;
+        Map<UUID, Light> lights;
+    }
+    
+    public int getLightCount() {
+        return bridges.stream().mapToInt(targets -> targets.getLights().size()).sum();
+    }
+}
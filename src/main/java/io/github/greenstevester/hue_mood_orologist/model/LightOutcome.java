@@ -0,0 +1,36 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * What happened to one light in an update cycle, and how long it took
+ * from the command being queued until the outcome was known
+ */
+@Value
+public class LightOutcome {
+    
+    public enum Status {
+        SUCCESS,
+        FAILED,
+        TIMED_OUT,
+        /** Already in the desired state, or superseded by a newer command */
+        SKIPPED
+    }
+    
+    UUID lightId;
+    String lightName;
+    Status status;
+    Duration latency;
+    
+    /**
+     * Error message or skip reason; null on success
+     */
+    String detail;
+    
+    public static LightOutcome timedOut(UUID lightId, String lightName, Duration deadline) {
+        return new LightOutcome(lightId, lightName, Status.TIMED_OUT, deadline, "cycle deadline exceeded");
+    }
+}
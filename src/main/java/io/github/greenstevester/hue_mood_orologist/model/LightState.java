@@ -0,0 +1,27 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Last state this service put a light in, as streamed to event clients
+ */
+@Value
+public class LightState {
+    UUID lightId;
+    String lightName;
+    boolean on;
+    String colorKey;
+    String weatherCondition;
+    Instant changedAt;
+    
+    /**
+     * Same light output, regardless of when or for which condition it was set
+     */
+    public boolean sameOutputAs(LightState other) {
+        return other != null && on == other.on && Objects.equals(colorKey, other.colorKey);
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Open-Meteo's "minutely_15" block: precipitation per 15 minutes
+ */
+@Data
+public class MinutelyData {
+    private List<String> time;
+    private List<Double> precipitation;
+}
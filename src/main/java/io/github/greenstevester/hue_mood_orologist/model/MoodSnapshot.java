@@ -0,0 +1,34 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Everything the service has decided so far: the latest analysis of the
+ * default location, the condition it mapped to and the state of every
+ * light it has set. Never modified; each change publishes a new snapshot
+ * with a higher version.
+ */
+@Value
+public class MoodSnapshot {
+    long version;
+    Instant updatedAt;
+    WeatherAnalysis analysis;
+    String weatherCondition;
+    Map<UUID, LightState> lights;
+    
+    public static MoodSnapshot initial() {
+        return new MoodSnapshot(0, Instant.now(), null, null, Map.of());
+    }
+    
+    public MoodSnapshot withAnalysis(WeatherAnalysis newAnalysis) {
+        return new MoodSnapshot(version + 1, Instant.now(), newAnalysis, newAnalysis.getWeatherCondition(), lights);
+    }
+    
+    public MoodSnapshot withLights(Map<UUID, LightState> newLights) {
+        return new MoodSnapshot(version + 1, Instant.now(), analysis, weatherCondition, Map.copyOf(newLights));
+    }
+}
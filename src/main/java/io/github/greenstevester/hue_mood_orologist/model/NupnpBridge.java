@@ -0,0 +1,17 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Entry returned by the Philips Hue N-UPnP discovery endpoint
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class NupnpBridge {
+    private String id;
+    @JsonProperty("internalipaddress")
+    private String internalIpAddress;
+    private Integer port;
+}
@@ -0,0 +1,35 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import io.github.greenstevester.hue_mood_orologist.config.ScheduleProperties;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time view of one schedule and its run counters
+ */
+@Value
+public class ScheduleStatus {
+    String name;
+    String description;
+    ScheduleProperties.OverlapPolicy overlapPolicy;
+    boolean running;
+    Instant lastRunAt;
+    Instant nextRunAt;
+    long runs;
+    
+    /**
+     * Ticks dropped because a run was in progress
+     */
+    long skipped;
+    
+    /**
+     * Ticks folded into a single follow-up run
+     */
+    long coalesced;
+    
+    /**
+     * Runs that started more than the late threshold after their due time
+     */
+    long late;
+}
@@ -0,0 +1,16 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import io.github.greenstevester.hue_mood_orologist.config.ScheduleProperties;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * State of the weather check scheduler as reported by the control API
+ */
+@Value
+public class SchedulerStatus {
+    boolean paused;
+    ScheduleProperties.ScheduleInterval interval;
+    List<ScheduleStatus> schedules;
+}
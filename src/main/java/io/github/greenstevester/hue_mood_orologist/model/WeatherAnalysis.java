@@ -14,8 +14,12 @@ public class WeatherAnalysis {
     private double maxPrecipitationAmount;
     private boolean isVeryCold;
     private boolean willBeVeryCold;
-    private double currentTemperature;
-    private double minTemperature;
+    
+    /**
+     * Null when temperature isn't requested because no rule uses it
+     */
+    private Double currentTemperature;
+    private Double minTemperature;
     private String summary;
     
     // New field for specific weather condition mapping
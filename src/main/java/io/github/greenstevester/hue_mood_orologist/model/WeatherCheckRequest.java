@@ -0,0 +1,42 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * One weather check to run: which schedule asked for it, where to get the
+ * forecast for and which lights to update
+ */
+@Value
+public class WeatherCheckRequest {
+    String scheduleName;
+    
+    /**
+     * Forecast location, or null for the default location
+     */
+    Double latitude;
+    Double longitude;
+    
+    /**
+     * Room to update, or null for all target lights
+     */
+    String room;
+    
+    Instant requestedAt;
+    
+    public static WeatherCheckRequest global(String scheduleName) {
+        return new WeatherCheckRequest(scheduleName, null, null, null, Instant.now());
+    }
+    
+    public boolean hasLocation() {
+        return latitude != null && longitude != null;
+    }
+    
+    /**
+     * Identifies the forecast location; checks with the same key share a forecast
+     */
+    public String getLocationKey() {
+        return hasLocation() ? latitude + "," + longitude : "default";
+    }
+}
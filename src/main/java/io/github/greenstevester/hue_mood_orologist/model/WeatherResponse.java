@@ -18,4 +18,15 @@ public class WeatherResponse {
     @JsonProperty("hourly_units")
     private HourlyUnits hourlyUnits;
     private HourlyData hourly;
+    
+    /**
+     * Only present when requested (weather.forecast.current)
+     */
+    private CurrentData current;
+    
+    /**
+     * Only present when requested (weather.forecast.minutely-15-hours)
+     */
+    @JsonProperty("minutely_15")
+    private MinutelyData minutely15;
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package io.github.greenstevester.hue_mood_orologist.model;
+
+import lombok.Value;
+
+/**
+ * CIE xy chromaticity plus brightness, the color format of the Hue v2 API.
+ * Converted from sRGB with the wide-gamut matrix Philips documents for Hue.
+ */
+@Value
+public class XyColor {
+    double x;
+    double y;
+    
+    /**
+     * Brightness in percent (1-100)
+     */
+    double brightness;
+    
+    public static XyColor fromRgb(int[] rgb) {
+        double red = gammaCorrect(rgb[0] / 255.0);
+        double green = gammaCorrect(rgb[1] / 255.0);
+        double blue = gammaCorrect(rgb[2] / 255.0);
+        
+        double bigX = red * 0.664511 + green * 0.154324 + blue * 0.162028;
+        double bigY = red * 0.283881 + green * 0.668433 + blue * 0.047685;
+        double bigZ = red * 0.000088 + green * 0.072310 + blue * 0.986039;
+        double sum = bigX + bigY + bigZ;
+        
+        if (sum == 0) {
+            // Black has no chromaticity; use the D65 white point at minimum brightness
+            return new XyColor(0.3227, 0.329, 1.0);
+        }
+        return new XyColor(round(bigX / sum), round(bigY / sum), Math.max(1.0, round(Math.min(1.0, bigY) * 100)));
+    }
+    
+    private static double gammaCorrect(double value) {
+        return value > 0.04045 ? Math.pow((value + 0.055) / 1.055, 2.4) : value / 12.92;
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 10000) / 10000.0;
+    }
+}
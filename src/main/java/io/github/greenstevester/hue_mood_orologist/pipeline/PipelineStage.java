@@ -0,0 +1,136 @@
+package io.github.greenstevester.hue_mood_orologist.pipeline;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One stage of the weather pipeline: a bounded inbox drained by a single
+ * worker thread that runs the stage's handler. When the inbox is full the
+ * stage either drops its oldest item (only the newest weather matters) or
+ * blocks the caller, pushing back on the stage before it.
+ *
+ * <p>Items that never complete the handler (dropped, failed, or still
+ * queued when the stage stops) are passed to the discard listener, so
+ * whoever waits on them can be told.
+ */
+@Slf4j
+public class PipelineStage<T> {
+    
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        BLOCK
+    }
+    
+    @FunctionalInterface
+    public interface Handler<T> {
+        /**
+         * Process one item; may block handing results to the next stage
+         */
+        void handle(T item) throws Exception;
+    }
+    
+    @Getter
+    private final String name;
+    private final BlockingQueue<T> inbox;
+    private final OverflowPolicy overflowPolicy;
+    private final Handler<T> handler;
+    private final ThreadFactory threadFactory;
+    private final Consumer<T> discardListener;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread worker;
+    
+    public PipelineStage(String name, int capacity, OverflowPolicy overflowPolicy, 
+                         ThreadFactory threadFactory, Handler<T> handler) {
+        this(name, capacity, overflowPolicy, threadFactory, handler, item -> { });
+    }
+    
+    public PipelineStage(String name, int capacity, OverflowPolicy overflowPolicy, 
+                         ThreadFactory threadFactory, Handler<T> handler, Consumer<T> discardListener) {
+        this.name = name;
+        this.inbox = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.threadFactory = threadFactory;
+        this.handler = handler;
+        this.discardListener = discardListener;
+    }
+    
+    public synchronized void start() {
+        if (worker == null) {
+            worker = threadFactory.newThread(this::run);
+            worker.start();
+        }
+    }
+    
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+        List<T> remaining = new ArrayList<>();
+        inbox.drainTo(remaining);
+        remaining.forEach(discardListener);
+    }
+    
+    /**
+     * Hand an item to this stage. With {@link OverflowPolicy#BLOCK} this waits
+     * for room in the inbox.
+     */
+    public void submit(T item) throws InterruptedException {
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            inbox.put(item);
+            return;
+        }
+        synchronized (inbox) {
+            while (!inbox.offer(item)) {
+                T oldest = inbox.poll();
+                if (oldest != null) {
+                    dropped.incrementAndGet();
+                    log.debug("Pipeline stage '{}' is behind, dropped its oldest item", name);
+                    discardListener.accept(oldest);
+                }
+            }
+        }
+    }
+    
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            T item;
+            try {
+                item = inbox.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                handler.handle(item);
+                processed.incrementAndGet();
+            } catch (InterruptedException e) {
+                discardListener.accept(item);
+                return;
+            } catch (Exception e) {
+                log.error("Pipeline stage '{}' failed", name, e);
+                discardListener.accept(item);
+            }
+        }
+    }
+    
+    public int getQueued() {
+        return inbox.size();
+    }
+    
+    public long getProcessed() {
+        return processed.get();
+    }
+    
+    public long getDropped() {
+        return dropped.get();
+    }
+}
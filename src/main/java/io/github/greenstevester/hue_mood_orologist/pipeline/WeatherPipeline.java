@@ -0,0 +1,436 @@
+package io.github.greenstevester.hue_mood_orologist.pipeline;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueConnectionStateChangedEvent;
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
+import io.github.greenstevester.hue_mood_orologist.cluster.SharedForecastStore;
+import io.github.greenstevester.hue_mood_orologist.events.MoodStateBroadcaster;
+import io.github.greenstevester.hue_mood_orologist.jfr.ForecastFetchEvent;
+import io.github.greenstevester.hue_mood_orologist.jfr.WeatherAnalysisEvent;
+import io.github.greenstevester.hue_mood_orologist.jfr.WeatherCycleEvent;
+import io.github.greenstevester.hue_mood_orologist.metrics.PipelineMetrics;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.LightMoodPlan;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherCheckRequest;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherResponse;
+import io.github.greenstevester.hue_mood_orologist.service.HueService;
+import io.github.greenstevester.hue_mood_orologist.service.WeatherService;
+import io.github.greenstevester.hue_mood_orologist.streaming.EntertainmentStreamer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A weather check as four stages, each on its own thread and connected by
+ * bounded queues: fetch the forecast (virtual thread, network), analyze it
+ * (platform thread, CPU), plan the light commands (virtual thread, reads the
+ * bridges) and dispatch them (virtual thread, waits on the bridges).
+ *
+ * <p>Fetch, plan and dispatch drop their oldest items when they fall
+ * behind, so a slow bridge never holds up the next forecast and a slow
+ * forecast never holds up light commands already planned. Analysis is cheap
+ * and blocks the fetch stage instead of dropping.
+ *
+ * <p>Every check, fetch and analysis is recorded as a JFR event, so a
+ * continuous recording shows the stages next to GC and socket activity.
+ * Each check is also traced: the check's observation travels with it from
+ * stage to stage and parents the fetch, the analysis and every bridge call.
+ *
+ * <p>A weather update that arrived while no bridge was connected goes back
+ * through the plan stage once one connects, behind any newer analysis
+ * already queued there, and is dropped if a newer one has been planned.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WeatherPipeline implements SmartLifecycle {
+    
+    private final WeatherService weatherService;
+    private final HueService hueService;
+    private final EntertainmentStreamer entertainmentStreamer;
+    private final ClusterCoordinator clusterCoordinator;
+    private final SharedForecastStore sharedForecastStore;
+    private final PipelineMetrics pipelineMetrics;
+    private final MoodStateBroadcaster moodStateBroadcaster;
+    private final ObservationRegistry observationRegistry;
+    
+    /**
+     * Room on top of stage capacity 1, so checks of different schedules don't
+     * push each other out unless the pipeline really is behind
+     */
+    private static final int QUEUE_CAPACITY = 64;
+    
+    @Getter
+    private List<PipelineStage<?>> stages;
+    private PipelineStage<Check> fetchStage;
+    private PipelineStage<Fetched> analyzeStage;
+    private PipelineStage<Analyzed> planStage;
+    private PipelineStage<Planned> dispatchStage;
+    private final AtomicReference<WeatherAnalysis> latestAnalysis = new AtomicReference<>();
+    private volatile Instant lastForecastAt;
+    private volatile boolean running;
+    
+    /**
+     * A request on its way through the stages, completed wherever it ends
+     */
+    private record Check(WeatherCheckRequest request, CompletableFuture<CycleResult> done, Observation observation) {
+        void discard() {
+            done.cancel(false);
+        }
+        
+        void nothingToDo(String weatherCondition) {
+            done.complete(CycleResult.empty(weatherCondition, request.getRequestedAt()));
+        }
+    }
+    
+    /**
+     * @param failure set instead of a response when the forecast couldn't be fetched
+     */
+    private record Fetched(Check check, WeatherResponse response, Exception failure) {
+        Fetched(Check check, WeatherResponse response) {
+            this(check, response, null);
+        }
+    }
+    
+    /**
+     * @param pending set when replaying an update kept while no bridge was connected
+     */
+    private record Analyzed(Check check, WeatherAnalysis analysis, HueService.PendingMood pending) {
+        Analyzed(Check check, WeatherAnalysis analysis) {
+            this(check, analysis, null);
+        }
+    }
+    
+    private record Planned(Check check, LightMoodPlan plan) {
+    }
+    
+    @PostConstruct
+    public void createStages() {
+        dispatchStage = new PipelineStage<>("dispatch", QUEUE_CAPACITY, PipelineStage.OverflowPolicy.DROP_OLDEST,
+            Thread.ofVirtual().name("pipeline-dispatch").factory(), this::dispatch, item -> item.check().discard());
+        planStage = new PipelineStage<>("plan", QUEUE_CAPACITY, PipelineStage.OverflowPolicy.DROP_OLDEST,
+            Thread.ofVirtual().name("pipeline-plan").factory(), this::plan, item -> item.check().discard());
+        analyzeStage = new PipelineStage<>("analyze", 4, PipelineStage.OverflowPolicy.BLOCK,
+            Thread.ofPlatform().name("pipeline-analyze").daemon(true).factory(), this::analyze, 
+            item -> item.check().discard());
+        fetchStage = new PipelineStage<>("fetch", QUEUE_CAPACITY, PipelineStage.OverflowPolicy.DROP_OLDEST,
+            Thread.ofVirtual().name("pipeline-fetch").factory(), this::fetch, Check::discard);
+        stages = List.of(fetchStage, analyzeStage, planStage, dispatchStage);
+        stages.forEach(pipelineMetrics::registerStage);
+    }
+    
+    /**
+     * Queue a check of the default location for all target lights
+     */
+    public CompletableFuture<CycleResult> requestWeatherCheck() {
+        return requestWeatherCheck(WeatherCheckRequest.global("default"));
+    }
+    
+    /**
+     * Queue a weather check. Never blocks; if the fetch stage is full, the
+     * oldest waiting check is dropped.
+     *
+     * @return completes once the check has gone all the way through, also
+     *         when the forecast couldn't be fetched; cancelled if it was dropped
+     */
+    public CompletableFuture<CycleResult> requestWeatherCheck(WeatherCheckRequest request) {
+        Check check = newCheck(request);
+        try {
+            fetchStage.submit(check);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            check.discard();
+        }
+        return check.done();
+    }
+    
+    /**
+     * Plan the weather update kept while no bridge was connected. It goes
+     * through the plan stage like any other, so it can't overtake a newer
+     * analysis; the connection manager's thread only queues it.
+     */
+    @EventListener
+    public void onConnectionStateChanged(HueConnectionStateChangedEvent event) {
+        if (event.state() != HueBridgeConnection.State.CONNECTED || !running) {
+            return;
+        }
+        hueService.takePendingMood().ifPresent(pending -> {
+            log.info("Bridge '{}' connected - planning pending {} mood", 
+                event.bridgeName(), pending.analysis().getWeatherCondition());
+            Check check = newCheck(WeatherCheckRequest.global("pending"));
+            check.done().thenAccept(result -> {
+                if (!result.getOutcomes().isEmpty()) {
+                    log.info("Pending {} mood applied: {}", pending.analysis().getWeatherCondition(), result.summary());
+                }
+            });
+            try {
+                planStage.submit(new Analyzed(check, pending.analysis(), pending));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                check.discard();
+            }
+        });
+    }
+    
+    private Check newCheck(WeatherCheckRequest request) {
+        Observation observation = Observation.createNotStarted("weather.check", observationRegistry)
+            .contextualName("weather cycle")
+            .lowCardinalityKeyValue("schedule", Objects.requireNonNullElse(request.getScheduleName(), "default"))
+            .highCardinalityKeyValue("location", request.getLocationKey())
+            .highCardinalityKeyValue("room", Objects.requireNonNullElse(request.getRoom(), "all"))
+            .start();
+        Check check = new Check(request, new CompletableFuture<>(), observation);
+        WeatherCycleEvent event = new WeatherCycleEvent();
+        event.begin();
+        check.done().whenComplete((result, error) -> {
+            recordCycle(event, request, result, error);
+            stopObservation(observation, result, error);
+        });
+        return check;
+    }
+    
+    /**
+     * When a forecast was last fetched or received successfully
+     */
+    public Optional<Instant> getLastForecastAt() {
+        return Optional.ofNullable(lastForecastAt);
+    }
+    
+    /**
+     * Most recent analysis of the default location
+     */
+    public Optional<WeatherAnalysis> getLatestAnalysis() {
+        return Optional.ofNullable(latestAnalysis.get());
+    }
+    
+    private static void recordCycle(WeatherCycleEvent event, WeatherCheckRequest request, 
+                                    CycleResult result, Throwable error) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.schedule = request.getScheduleName();
+        event.location = request.getLocationKey();
+        event.room = request.getRoom();
+        if (result != null) {
+            event.outcome = "completed";
+            event.condition = result.getWeatherCondition();
+            event.lightsUpdated = (int) result.count(LightOutcome.Status.SUCCESS);
+            event.lightsFailed = (int) (result.count(LightOutcome.Status.FAILED) 
+                + result.count(LightOutcome.Status.TIMED_OUT));
+        } else {
+            event.outcome = error instanceof CancellationException ? "dropped" : "failed";
+        }
+        event.commit();
+    }
+    
+    private static void stopObservation(Observation observation, CycleResult result, Throwable error) {
+        if (result != null) {
+            observation.lowCardinalityKeyValue("outcome", "completed")
+                .highCardinalityKeyValue("lights.updated", String.valueOf(result.count(LightOutcome.Status.SUCCESS)));
+        } else if (error instanceof CancellationException) {
+            observation.lowCardinalityKeyValue("outcome", "dropped");
+        } else {
+            observation.lowCardinalityKeyValue("outcome", "failed").error(error);
+        }
+        observation.stop();
+    }
+    
+    private void fetch(Check check) throws InterruptedException {
+        Observation observation = Observation.createNotStarted("weather.check.fetch", observationRegistry)
+            .contextualName("fetch forecast")
+            .parentObservation(check.observation())
+            .highCardinalityKeyValue("location", check.request().getLocationKey())
+            .start();
+        // In scope, the Open-Meteo request is traced as a child of the fetch
+        try (Observation.Scope scope = observation.openScope()) {
+            fetchForecast(check, observation);
+        } finally {
+            observation.stop();
+        }
+    }
+    
+    private void fetchForecast(Check check, Observation observation) throws InterruptedException {
+        WeatherCheckRequest request = check.request();
+        String locationKey = request.getLocationKey();
+        ForecastFetchEvent event = new ForecastFetchEvent();
+        event.location = locationKey;
+        event.begin();
+        if (!clusterCoordinator.ownsLocation(locationKey)) {
+            long waitStartedAt = System.nanoTime();
+            Optional<WeatherResponse> shared = sharedForecastStore.await(locationKey, request.getRequestedAt());
+            pipelineMetrics.recordFetch("shared", shared.isPresent(), Duration.ofNanos(System.nanoTime() - waitStartedAt));
+            event.source = "shared";
+            event.success = shared.isPresent();
+            event.commit();
+            observation.lowCardinalityKeyValue("source", "shared")
+                .lowCardinalityKeyValue("found", String.valueOf(shared.isPresent()));
+            if (shared.isEmpty()) {
+                log.info("Forecast for {} is fetched by '{}' and none has been shared yet", 
+                    locationKey, clusterCoordinator.locationOwner(locationKey));
+                check.nothingToDo(null);
+                return;
+            }
+            lastForecastAt = Instant.now();
+            analyzeStage.submit(new Fetched(check, shared.get()));
+            return;
+        }
+        
+        observation.lowCardinalityKeyValue("source", "open-meteo");
+        WeatherResponse response;
+        long fetchStartedAt = System.nanoTime();
+        try {
+            response = request.hasLocation()
+                ? weatherService.fetchWeather(request.getLatitude(), request.getLongitude())
+                : weatherService.fetchWeather();
+            pipelineMetrics.recordFetch("open-meteo", true, Duration.ofNanos(System.nanoTime() - fetchStartedAt));
+            lastForecastAt = Instant.now();
+            event.source = "open-meteo";
+            event.success = true;
+            event.commit();
+        } catch (Exception e) {
+            pipelineMetrics.recordFetch("open-meteo", false, Duration.ofNanos(System.nanoTime() - fetchStartedAt));
+            event.source = "open-meteo";
+            event.commit();
+            observation.error(e);
+            log.error("Error fetching weather data for schedule '{}'", request.getScheduleName(), e);
+            // Analyzed as an error, which still sets the standard mood
+            analyzeStage.submit(new Fetched(check, null, e));
+            return;
+        }
+        log.debug("Forecast for schedule '{}' requested at {} fetched", 
+            request.getScheduleName(), request.getRequestedAt());
+        sharedForecastStore.publish(locationKey, response);
+        analyzeStage.submit(new Fetched(check, response));
+    }
+    
+    private void analyze(Fetched fetched) throws InterruptedException {
+        Observation observation = Observation.createNotStarted("weather.check.analysis", observationRegistry)
+            .contextualName("analyze forecast")
+            .parentObservation(fetched.check().observation())
+            .start();
+        WeatherAnalysisEvent event = new WeatherAnalysisEvent();
+        event.begin();
+        long analysisStartedAt = System.nanoTime();
+        WeatherAnalysis analysis;
+        try {
+            analysis = fetched.failure() != null 
+                ? weatherService.fetchFailedAnalysis(fetched.failure()) 
+                : weatherService.analyzeWeather(fetched.response());
+            observation.lowCardinalityKeyValue("weather.condition", 
+                Objects.requireNonNullElse(analysis.getWeatherCondition(), "unknown"));
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+        pipelineMetrics.recordAnalysis(Duration.ofNanos(System.nanoTime() - analysisStartedAt));
+        event.location = fetched.check().request().getLocationKey();
+        event.condition = analysis.getWeatherCondition();
+        event.commit();
+        fetched.check().observation().lowCardinalityKeyValue("weather.condition", 
+            Objects.requireNonNullElse(analysis.getWeatherCondition(), "unknown"));
+        pipelineMetrics.recordCondition(fetched.check().request().getLocationKey(), analysis.getWeatherCondition());
+        if (!fetched.check().request().hasLocation()) {
+            latestAnalysis.set(analysis);
+            moodStateBroadcaster.publishAnalysis(analysis);
+        }
+        
+        log.info("Weather Analysis Results:");
+        log.info("  - Is Raining: {}", analysis.isRaining());
+        log.info("  - Will Rain Soon: {}", analysis.isWillRainSoon());
+        log.info("  - Max Precipitation Probability: {}%", analysis.getMaxPrecipitationProbability());
+        log.info("  - Is Very Cold: {}", analysis.isVeryCold());
+        log.info("  - Will Be Very Cold: {}", analysis.isWillBeVeryCold());
+        log.info("  - Current Temperature: {}°C", analysis.getCurrentTemperature());
+        log.info("  - Summary: {}", analysis.getSummary());
+        
+        // Update Hue lights based on weather conditions
+        boolean rainCondition = analysis.isRaining() || analysis.isWillRainSoon();
+        boolean coldCondition = analysis.isVeryCold() || analysis.isWillBeVeryCold();
+        
+        if (rainCondition) {
+            log.info("Rain detected or expected - setting blue/grey Hue light mood");
+        } else if (coldCondition) {
+            log.info("Cold weather detected - setting warm Hue light mood");
+        } else {
+            log.info("Normal weather conditions - setting standard Hue light mood");
+        }
+        
+        // Layer a high-frequency effect on top when one is mapped to this condition
+        if (clusterCoordinator.isBridgeLeader(BridgeRegistry.PRIMARY_BRIDGE)) {
+            entertainmentStreamer.applyWeather(analysis.getWeatherCondition());
+        }
+        
+        planStage.submit(new Analyzed(fetched.check(), HueService.legacyAnalysis(rainCondition, coldCondition)));
+    }
+    
+    private void plan(Analyzed analyzed) throws InterruptedException {
+        Check check = analyzed.check();
+        Optional<LightMoodPlan> plan = analyzed.pending() != null 
+            ? hueService.planPendingMood(analyzed.pending()) 
+            : hueService.planLightMood(analyzed.analysis(), check.request().getRoom());
+        if (plan.isPresent()) {
+            check.observation().highCardinalityKeyValue("hue.color", 
+                Objects.requireNonNullElse(plan.get().getCommand().getColorKey(), "off"));
+            dispatchStage.submit(new Planned(check, plan.get()));
+        } else {
+            check.nothingToDo(analyzed.analysis().getWeatherCondition());
+        }
+    }
+    
+    private void dispatch(Planned planned) throws Exception {
+        LightMoodPlan plan = planned.plan();
+        CompletableFuture<CycleResult> applied;
+        // In scope, the bridge calls are traced as children of the check
+        try (Observation.Scope scope = planned.check().observation().openScope()) {
+            applied = hueService.applyPlan(plan);
+        }
+        // Waiting here (bounded by the cycle deadline) is what lets a newer plan replace a queued one
+        CycleResult result = applied.get();
+        planned.check().done().complete(result);
+        if (result.isPartialFailure()) {
+            log.warn("Light update for {} incomplete: {}", result.getWeatherCondition(), result.summary());
+            result.getFailures().forEach(failure -> log.warn("  - {} {}: {}", 
+                failure.getLightName(), failure.getStatus(), failure.getDetail()));
+        } else {
+            log.info("Light update for {} finished: {}", result.getWeatherCondition(), result.summary());
+        }
+    }
+    
+    @Override
+    public void start() {
+        stages.forEach(PipelineStage::start);
+        running = true;
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        stages.forEach(PipelineStage::stop);
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
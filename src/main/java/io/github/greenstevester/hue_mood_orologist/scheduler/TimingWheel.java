@@ -0,0 +1,297 @@
+package io.github.greenstevester.hue_mood_orologist.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hierarchical timing wheel driven by a single thread. Each level is a ring
+ * of buckets; level 0 buckets span one tick, each higher level's buckets
+ * span a full rotation of the level below. A timer goes into the bucket of
+ * the lowest level that covers its deadline and trickles down one level
+ * each time its bucket comes round, so scheduling and cancelling are O(1)
+ * no matter how many timers are pending.
+ *
+ * <p>Callers on any thread only enqueue inserts and cancellations; the wheel
+ * thread applies them on its next tick. Expired tasks are handed to the task
+ * executor, so a slow task never delays the wheel.
+ */
+@Slf4j
+public class TimingWheel implements AutoCloseable {
+    
+    private static final int LEVELS = 4;
+    
+    private final long tickNanos;
+    private final int wheelSize;
+    private final long maxSpanTicks;
+    private final Executor taskExecutor;
+    private final Bucket[][] levels;
+    private final Queue<Timeout> pendingInserts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> pendingCancels = new ConcurrentLinkedQueue<>();
+    private final Thread wheelThread;
+    private final long startNanos;
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile long currentTick;
+    private volatile boolean running = true;
+    
+    public TimingWheel(Duration tick, int wheelSize, Executor taskExecutor) {
+        this.tickNanos = tick.toNanos();
+        this.wheelSize = wheelSize;
+        this.taskExecutor = taskExecutor;
+        this.levels = new Bucket[LEVELS][wheelSize];
+        for (Bucket[] level : levels) {
+            for (int i = 0; i < wheelSize; i++) {
+                level[i] = new Bucket();
+            }
+        }
+        this.maxSpanTicks = (long) Math.pow(wheelSize, LEVELS);
+        this.startNanos = System.nanoTime();
+        this.wheelThread = Thread.ofPlatform().name("timing-wheel").daemon(true).start(this::run);
+    }
+    
+    /**
+     * Run the task once the delay has passed, rounded up to the next tick
+     */
+    public Timeout schedule(Duration delay, Runnable task) {
+        long deadlineNanos = System.nanoTime() - startNanos + Math.max(0, delay.toNanos());
+        long deadlineTick = (deadlineNanos + tickNanos - 1) / tickNanos;
+        Timeout timeout = new Timeout(this, deadlineTick, task);
+        size.incrementAndGet();
+        pendingInserts.add(timeout);
+        return timeout;
+    }
+    
+    /**
+     * Timers scheduled and neither expired nor cancelled
+     */
+    public int size() {
+        return size.get();
+    }
+    
+    /**
+     * Whether the wheel thread is still turning
+     */
+    public boolean isRunning() {
+        return running && wheelThread.isAlive();
+    }
+    
+    /**
+     * How far the wheel is behind the clock; stays below a tick unless the
+     * wheel thread is stuck, starved or dead
+     */
+    public Duration getLag() {
+        long behind = System.nanoTime() - startNanos - (currentTick + 1) * tickNanos;
+        return Duration.ofNanos(Math.max(0, behind));
+    }
+    
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(wheelThread);
+    }
+    
+    private void run() {
+        while (running) {
+            long nextTickAt = startNanos + (currentTick + 1) * tickNanos;
+            long wait = nextTickAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            long tick = currentTick + 1;
+            currentTick = tick;
+            applyCancels();
+            applyInserts();
+            cascade(tick);
+            expire(levels[0][(int) (tick % wheelSize)]);
+        }
+    }
+    
+    private void applyInserts() {
+        Timeout timeout;
+        while ((timeout = pendingInserts.poll()) != null) {
+            if (timeout.state.get() == Timeout.PENDING) {
+                place(timeout);
+            }
+        }
+    }
+    
+    private void applyCancels() {
+        Timeout timeout;
+        while ((timeout = pendingCancels.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+    
+    /**
+     * Put the timer in the lowest level whose rotation covers its deadline
+     */
+    private void place(Timeout timeout) {
+        long tick = currentTick;
+        long deadline = Math.max(timeout.deadlineTick, tick);
+        // Beyond the top level's span: park it as far out as possible and re-place it when it comes round
+        long effective = deadline - tick >= maxSpanTicks ? tick + maxSpanTicks - 1 : deadline;
+        
+        long span = 1;
+        for (int level = 0; level < LEVELS; level++) {
+            if (effective - tick < span * wheelSize || level == LEVELS - 1) {
+                levels[level][(int) ((effective / span) % wheelSize)].add(timeout);
+                return;
+            }
+            span *= wheelSize;
+        }
+    }
+    
+    /**
+     * When a level wraps, the bucket of the level above that starts now is
+     * re-placed into the lower levels; highest first, so entries can fall
+     * through several levels in one tick
+     */
+    private void cascade(long tick) {
+        long span = 1;
+        int wrapped = 0;
+        for (int level = 1; level < LEVELS; level++) {
+            span *= wheelSize;
+            if (tick % span != 0) {
+                break;
+            }
+            wrapped = level;
+        }
+        for (int level = wrapped; level >= 1; level--) {
+            long levelSpan = (long) Math.pow(wheelSize, level);
+            Bucket bucket = levels[level][(int) ((tick / levelSpan) % wheelSize)];
+            for (Timeout timeout = bucket.takeAll(); timeout != null; ) {
+                Timeout next = timeout.next;
+                timeout.next = null;
+                timeout.prev = null;
+                if (timeout.state.get() == Timeout.PENDING) {
+                    place(timeout);
+                }
+                timeout = next;
+            }
+        }
+    }
+    
+    private void expire(Bucket bucket) {
+        for (Timeout timeout = bucket.takeAll(); timeout != null; ) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            timeout.prev = null;
+            if (timeout.deadlineTick > currentTick) {
+                // Parked beyond the top level's span; not due yet
+                place(timeout);
+            } else if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                size.decrementAndGet();
+                try {
+                    taskExecutor.execute(timeout.task);
+                } catch (RejectedExecutionException e) {
+                    log.warn("Timer task rejected: {}", e.getMessage());
+                }
+            }
+            timeout = next;
+        }
+    }
+    
+    /**
+     * Handle to a scheduled task
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        
+        private final TimingWheel wheel;
+        private final long deadlineTick;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private Timeout prev;
+        private Timeout next;
+        private Bucket bucket;
+        
+        private Timeout(TimingWheel wheel, long deadlineTick, Runnable task) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+        
+        /**
+         * @return false if the task already ran or was cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.size.decrementAndGet();
+            wheel.pendingCancels.add(this);
+            return true;
+        }
+        
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+        
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+    
+    /**
+     * Doubly linked list of timers, only touched by the wheel thread
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+        
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+        
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+        
+        /**
+         * Detach and return the whole list
+         */
+        Timeout takeAll() {
+            Timeout first = head;
+            for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+                timeout.bucket = null;
+            }
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+}
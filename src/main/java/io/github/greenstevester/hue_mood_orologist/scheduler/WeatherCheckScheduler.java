@@ -1,95 +1,430 @@
 package io.github.greenstevester.hue_mood_orologist.scheduler;
 
 import io.github.greenstevester.hue_mood_orologist.config.ScheduleProperties;
-import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
-import io.github.greenstevester.hue_mood_orologist.service.HueService;
-import io.github.greenstevester.hue_mood_orologist.service.WeatherService;
-import jakarta.annotation.PostConstruct;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.ScheduleStatus;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherCheckRequest;
+import io.github.greenstevester.hue_mood_orologist.pipeline.WeatherPipeline;
+import io.github.greenstevester.hue_mood_orologist.storage.AtomicFiles;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.support.PeriodicTrigger;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.util.concurrent.ScheduledFuture;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Runs the global weather check plus any number of per-room or per-location
+ * schedules from {@code schedule.schedules}, all on one timing wheel.
+ *
+ * <p>A schedule never has more than one run in flight: a tick that arrives
+ * while the previous run is still going through the pipeline is either
+ * skipped or folded into a single follow-up run. Ticks missed during a
+ * pause collapse into one run, and a run missed while the application was
+ * down is caught up once on startup.
+ *
+ * <p>Schedules are set up when the context starts rather than when it is
+ * created, so a JVM restored from a checkpoint schedules from the time of
+ * the restore.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class WeatherCheckScheduler {
+public class WeatherCheckScheduler implements SmartLifecycle {
     
-    private final WeatherService weatherService;
-    private final HueService hueService;
+    static final String DEFAULT_SCHEDULE = "default";
+    
+    private static final Duration TICK = Duration.ofSeconds(1);
+    private static final int WHEEL_SIZE = 64;
+    /**
+     * How often changed last-run times are written to the state file; a crash
+     * loses at most this much, which at worst means one extra catch-up run
+     */
+    private static final Duration STATE_SAVE_INTERVAL = Duration.ofMinutes(1);
+    
+    private final WeatherPipeline weatherPipeline;
     private final ScheduleProperties scheduleProperties;
-    private final TaskScheduler taskScheduler;
-    private ScheduledFuture<?> scheduledTask;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Properties lastRuns = new Properties();
+    private final AtomicBoolean lastRunsChanged = new AtomicBoolean();
+    private final Object stateFileLock = new Object();
+    private volatile TimingWheel timingWheel;
+    private volatile boolean paused;
+    
+    /**
+     * One schedule with its run guard and counters
+     */
+    private static final class Job {
+        private final String name;
+        private final ScheduleProperties.Schedule schedule;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+        private final AtomicLong late = new AtomicLong();
+        private volatile Instant lastRunAt;
+        private volatile Instant nextRunAt;
+        private volatile TimingWheel.Timeout timeout;
+        private volatile CompletableFuture<CycleResult> current;
+        
+        private Job(String name, ScheduleProperties.Schedule schedule) {
+            this.name = name;
+            this.schedule = schedule;
+        }
+    }
     
-    @PostConstruct
-    public void initializeScheduler() {
+    @Override
+    public synchronized void start() {
+        if (timingWheel != null) {
+            return;
+        }
+        timingWheel = new TimingWheel(TICK, WHEEL_SIZE, Executors.newVirtualThreadPerTaskExecutor());
+        jobs.clear();
+        loadLastRuns();
+        
         long intervalMillis = scheduleProperties.getInterval().getIntervalMillis();
-        long initialDelayMillis = scheduleProperties.getInitialDelaySeconds() * 1000L;
+        Duration initialDelay = Duration.ofSeconds(scheduleProperties.getInitialDelaySeconds());
         
-        log.info("Initializing weather check scheduler: {} ({}ms interval)", 
-                scheduleProperties.getInterval().getDescription(), intervalMillis);
+        log.info("Initializing weather check scheduler: {} ({}ms interval, overlapping runs: {})",
+                scheduleProperties.getInterval().getDescription(), intervalMillis,
+                scheduleProperties.getOverlapPolicy());
         
-        PeriodicTrigger trigger = new PeriodicTrigger(Duration.ofMillis(intervalMillis));
-        trigger.setInitialDelay(Duration.ofMillis(initialDelayMillis));
+        // The global check always runs on startup, which doubles as its catch-up
+        Job defaultJob = new Job(DEFAULT_SCHEDULE, null);
+        jobs.put(DEFAULT_SCHEDULE, defaultJob);
+        schedule(defaultJob, initialDelay);
+        
+        for (ScheduleProperties.Schedule schedule : scheduleProperties.getSchedules()) {
+            if (schedule.getName() == null || jobs.containsKey(schedule.getName())) {
+                log.warn("Ignoring schedule without a unique name ('{}')", schedule.getName());
+                continue;
+            }
+            if (schedule.getCron() == null && schedule.getInterval() == null) {
+                log.warn("Ignoring schedule '{}': neither cron nor interval set", schedule.getName());
+                continue;
+            }
+            Job job = new Job(schedule.getName(), schedule);
+            jobs.put(job.name, job);
+            schedule(job, firstDelay(job, initialDelay));
+            log.info("Registered schedule '{}' ({}, room: {})", schedule.getName(), describe(job),
+                schedule.getRoom() != null ? schedule.getRoom() : "all");
+        }
         
-        scheduledTask = taskScheduler.schedule(this::checkWeather, trigger);
+        scheduleStateSave();
         
-        log.info("Weather check scheduler started with initial delay of {}s", 
+        log.info("Weather check scheduler started with initial delay of {}s",
                 scheduleProperties.getInitialDelaySeconds());
     }
     
-    public void updateSchedule(ScheduleProperties.ScheduleInterval newInterval) {
-        log.info("Updating scheduler from {} to {}", 
-                scheduleProperties.getInterval().getDescription(), 
-                newInterval.getDescription());
-        
-        // Cancel current schedule
-        if (scheduledTask != null && !scheduledTask.isCancelled()) {
-            scheduledTask.cancel(false);
+    @Override
+    public synchronized void stop() {
+        TimingWheel current = timingWheel;
+        if (current == null) {
+            return;
+        }
+        jobs.values().forEach(job -> {
+            if (job.timeout != null) {
+                job.timeout.cancel();
+            }
+        });
+        timingWheel = null;
+        current.close();
+        saveLastRuns();
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return timingWheel != null;
+    }
+    
+    /**
+     * Change the interval of the global schedule. A run already in progress
+     * carries on and still counts against the overlap guard.
+     *
+     * @return false, and nothing changed, while the scheduler is not running
+     */
+    public boolean updateSchedule(ScheduleProperties.ScheduleInterval newInterval) {
+        Optional<Job> job = defaultJob();
+        if (job.isEmpty()) {
+            return false;
         }
+        log.info("Updating scheduler from {} to {}",
+                scheduleProperties.getInterval().getDescription(),
+                newInterval.getDescription());
         
-        // Update configuration
+        // Update configuration, then restart the global schedule
         scheduleProperties.setInterval(newInterval);
-        
-        // Start new schedule
-        PeriodicTrigger trigger = new PeriodicTrigger(Duration.ofMillis(newInterval.getIntervalMillis()));
-        trigger.setInitialDelay(Duration.ofMillis(1000)); // 1 second delay for restart
-        
-        scheduledTask = taskScheduler.schedule(this::checkWeather, trigger);
+        schedule(job.get(), Duration.ofSeconds(1)); // 1 second delay for restart
         
         log.info("Weather check scheduler updated to run {}", newInterval.getDescription());
+        return true;
     }
     
+    /**
+     * Run the global check now, subject to its overlap policy
+     */
     public void checkWeather() {
-        log.info("Starting scheduled weather check");
-        
-        WeatherAnalysis analysis = weatherService.fetchAndAnalyzeWeather();
+        defaultJob().ifPresent(job -> {
+            log.info("Starting scheduled weather check");
+            trigger(job);
+        });
+    }
+    
+    /**
+     * Run the global check now, or join the run already in progress, so
+     * concurrent refreshes never cause more than one check. Works while paused.
+     *
+     * @return empty while the scheduler is not running
+     */
+    public Optional<CompletableFuture<CycleResult>> refresh() {
+        return defaultJob().map(job -> {
+            synchronized (job) {
+                if (!job.running.get()) {
+                    log.info("Starting weather check on request");
+                    trigger(job);
+                }
+                return job.current;
+            }
+        });
+    }
+    
+    /**
+     * The global schedule, once started and until stopped
+     */
+    private Optional<Job> defaultJob() {
+        return timingWheel != null ? Optional.ofNullable(jobs.get(DEFAULT_SCHEDULE)) : Optional.empty();
+    }
+    
+    /**
+     * Stop starting scheduled runs; runs in progress finish normally
+     */
+    public void pause() {
+        paused = true;
+        log.info("Weather check scheduler paused");
+    }
+    
+    public void resume() {
+        paused = false;
+        log.info("Weather check scheduler resumed");
+    }
+    
+    public boolean isPaused() {
+        return paused;
+    }
+    
+    /**
+     * Whether the timing wheel driving all schedules is turning on time
+     */
+    public boolean isWheelRunning() {
+        TimingWheel wheel = timingWheel;
+        return wheel != null && wheel.isRunning();
+    }
+    
+    public Duration getWheelLag() {
+        TimingWheel wheel = timingWheel;
+        return wheel != null ? wheel.getLag() : Duration.ZERO;
+    }
+    
+    public List<ScheduleStatus> getStatuses() {
+        return jobs.values().stream()
+            .map(job -> new ScheduleStatus(job.name, describe(job), overlapPolicy(job), job.running.get(),
+                job.lastRunAt, job.nextRunAt, job.runs.get(), job.skipped.get(), job.coalesced.get(),
+                job.late.get()))
+            .toList();
+    }
+    
+    private void schedule(Job job, Duration delay) {
+        TimingWheel wheel = timingWheel;
+        if (wheel == null) {
+            // Stopped; start() schedules every job again
+            return;
+        }
+        Instant due = Instant.now().plus(delay);
+        synchronized (job) {
+            job.nextRunAt = due;
+            TimingWheel.Timeout previous = job.timeout;
+            job.timeout = wheel.schedule(delay, () -> fire(job, due));
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+    }
+    
+    private void fire(Job job, Instant due) {
+        Duration lateness = Duration.between(due, Instant.now());
+        if (lateness.compareTo(scheduleProperties.getLateThreshold()) > 0) {
+            job.late.incrementAndGet();
+            log.warn("Schedule '{}' fired {}ms late", job.name, lateness.toMillis());
+        }
+        // Reschedule first so a slow run never shifts the next tick; ticks missed during a pause are not replayed
+        schedule(job, delayUntilNextRun(job));
+        if (paused) {
+            log.debug("Scheduler paused, not running '{}'", job.name);
+            return;
+        }
+        log.info("Starting weather check for schedule '{}'", job.name);
+        trigger(job);
+    }
+    
+    private void trigger(Job job) {
+        synchronized (job) {
+            if (!job.running.compareAndSet(false, true)) {
+                if (overlapPolicy(job) == ScheduleProperties.OverlapPolicy.COALESCE
+                        && job.pending.compareAndSet(false, true)) {
+                    job.coalesced.incrementAndGet();
+                    log.info("Previous run of '{}' still in progress, running again once it finishes", job.name);
+                } else {
+                    job.skipped.incrementAndGet();
+                    log.info("Previous run of '{}' still in progress, skipping this one", job.name);
+                }
+                return;
+            }
+            job.current = new CompletableFuture<>();
+        }
         
-        log.info("Weather Analysis Results:");
-        log.info("  - Is Raining: {}", analysis.isRaining());
-        log.info("  - Will Rain Soon: {}", analysis.isWillRainSoon());
-        log.info("  - Max Precipitation Probability: {}%", analysis.getMaxPrecipitationProbability());
-        log.info("  - Is Very Cold: {}", analysis.isVeryCold());
-        log.info("  - Will Be Very Cold: {}", analysis.isWillBeVeryCold());
-        log.info("  - Current Temperature: {}°C", analysis.getCurrentTemperature());
-        log.info("  - Summary: {}", analysis.getSummary());
+        job.lastRunAt = Instant.now();
+        job.runs.incrementAndGet();
+        // Persisted in the background; triggering never waits for the disk
+        lastRuns.setProperty(job.name, Long.toString(job.lastRunAt.toEpochMilli()));
+        lastRunsChanged.set(true);
         
-        // Update Hue lights based on weather conditions
-        boolean rainCondition = analysis.isRaining() || analysis.isWillRainSoon();
-        boolean coldCondition = analysis.isVeryCold() || analysis.isWillBeVeryCold();
+        ScheduleProperties.Schedule schedule = job.schedule;
+        WeatherCheckRequest request = schedule == null
+            ? WeatherCheckRequest.global(DEFAULT_SCHEDULE)
+            : new WeatherCheckRequest(schedule.getName(), schedule.getLatitude(), schedule.getLongitude(),
+                schedule.getRoom(), job.lastRunAt);
         
-        if (rainCondition) {
-            log.info("Rain detected or expected - setting blue/grey Hue light mood");
-        } else if (coldCondition) {
-            log.info("Cold weather detected - setting warm Hue light mood");
+        // Fetch, analysis and light updates run in the pipeline; this thread only queues the check
+        CompletableFuture<CycleResult> current = job.current;
+        weatherPipeline.requestWeatherCheck(request)
+            .orTimeout(scheduleProperties.getRunTimeout().toMillis(), TimeUnit.MILLISECONDS)
+            .whenComplete((result, error) -> finished(job, current, result, error));
+    }
+    
+    private void finished(Job job, CompletableFuture<CycleResult> current, CycleResult result, Throwable error) {
+        if (error instanceof TimeoutException) {
+            log.warn("Run of '{}' did not finish within {}, no longer waiting for it",
+                job.name, scheduleProperties.getRunTimeout());
+        }
+        job.running.set(false);
+        if (error != null) {
+            current.completeExceptionally(error);
         } else {
-            log.info("Normal weather conditions - setting standard Hue light mood");
+            current.complete(result);
+        }
+        if (job.pending.getAndSet(false)) {
+            trigger(job);
+        }
+    }
+    
+    private ScheduleProperties.OverlapPolicy overlapPolicy(Job job) {
+        return job.schedule != null && job.schedule.getOverlapPolicy() != null
+            ? job.schedule.getOverlapPolicy()
+            : scheduleProperties.getOverlapPolicy();
+    }
+    
+    private String describe(Job job) {
+        if (job.schedule == null) {
+            return scheduleProperties.getInterval().getDescription();
+        }
+        return job.schedule.getCron() != null ? "cron " + job.schedule.getCron() : "every " + job.schedule.getInterval();
+    }
+    
+    private Duration delayUntilNextRun(Job job) {
+        if (job.schedule == null) {
+            return Duration.ofMillis(scheduleProperties.getInterval().getIntervalMillis());
+        }
+        Instant now = Instant.now();
+        return Duration.between(now, nextRunAfter(job.schedule, now));
+    }
+    
+    /**
+     * Delay of a schedule's first run: when a run fell due while the
+     * application was down, catch up once right after startup; otherwise
+     * continue where the last run left off
+     */
+    private Duration firstDelay(Job job, Duration initialDelay) {
+        String lastRun = lastRuns.getProperty(job.name);
+        Instant now = Instant.now();
+        Instant due = nextRunAfter(job.schedule, lastRun != null ? Instant.ofEpochMilli(Long.parseLong(lastRun)) : now);
+        if (lastRun != null && !due.isAfter(now)) {
+            log.info("Schedule '{}' missed its run at {}, catching up once", job.name, due);
+        }
+        Duration delay = Duration.between(now, due);
+        return delay.compareTo(initialDelay) < 0 ? initialDelay : delay;
+    }
+    
+    static Instant nextRunAfter(ScheduleProperties.Schedule schedule, Instant from) {
+        if (schedule.getCron() == null) {
+            return from.plus(schedule.getInterval());
+        }
+        ZoneId zone = schedule.getZone() != null ? ZoneId.of(schedule.getZone()) : ZoneId.systemDefault();
+        ZonedDateTime next = CronExpression.parse(schedule.getCron()).next(from.atZone(zone));
+        if (next == null) {
+            throw new IllegalArgumentException("Cron expression '" + schedule.getCron() + "' never fires");
+        }
+        return next.toInstant();
+    }
+    
+    private void loadLastRuns() {
+        Path file = Path.of(scheduleProperties.getStateFile());
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(file)) {
+            lastRuns.clear();
+            lastRuns.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not read schedule state from {}, not catching up: {}", file, e.getMessage());
+            lastRuns.clear();
+        }
+    }
+    
+    private void scheduleStateSave() {
+        TimingWheel wheel = timingWheel;
+        if (wheel != null) {
+            wheel.schedule(STATE_SAVE_INTERVAL, () -> {
+                saveLastRuns();
+                scheduleStateSave();
+            });
+        }
+    }
+    
+    /**
+     * Write the last-run times if any changed since the last write
+     */
+    private void saveLastRuns() {
+        synchronized (stateFileLock) {
+            if (!lastRunsChanged.getAndSet(false)) {
+                return;
+            }
+            Path file = Path.of(scheduleProperties.getStateFile());
+            try {
+                AtomicFiles.writeProperties(file, lastRuns, "Hue Mood Orologist last run of each schedule");
+            } catch (IOException e) {
+                lastRunsChanged.set(true);
+                log.warn("Could not persist schedule state to {}: {}", file, e.getMessage());
+            }
         }
-        
-        hueService.setLightMoodForWeather(rainCondition, coldCondition);
     }
-}
\ No newline at end of file
+}
@@ -60,51 +60,82 @@ public class ColorParserService {
      * Supports named colors, hex colors (#RRGGBB), and RGB values (r,g,b)
      */
     public Color parseColor(String colorString) {
+        int[] rgb = parseRgb(colorString);
+        return Color.of(rgb[0], rgb[1], rgb[2]);
+    }
+    
+    /**
+     * Same as {@link #parseColor(String)}, but returns the raw RGB components
+     * for callers that build their own color payloads (e.g. scene actions)
+     */
+    public int[] parseRgb(String colorString) {
         if (colorString == null || colorString.trim().isEmpty()) {
             log.warn("Empty color string, using default white");
-            return Color.of(255, 255, 255);
+            return new int[]{255, 255, 255};
         }
         
-        String color = colorString.trim().toLowerCase();
-        
         try {
-            // Try hex color (#RRGGBB or #RGB)
-            if (color.startsWith("#")) {
-                return parseHexColor(color);
-            }
-            
-            // Try RGB format (r,g,b)
-            if (color.contains(",")) {
-                return parseRgbColor(color);
-            }
-            
-            // Try named color
-            int[] rgb = NAMED_COLORS.get(color);
-            if (rgb != null) {
-                log.debug("Parsed color '{}' as RGB({}, {}, {})", colorString, rgb[0], rgb[1], rgb[2]);
-                return Color.of(rgb[0], rgb[1], rgb[2]);
-            }
-            
-            // Fallback: try partial matches for compound color names
-            for (Map.Entry<String, int[]> entry : NAMED_COLORS.entrySet()) {
-                if (entry.getKey().contains(color) || color.contains(entry.getKey())) {
-                    rgb = entry.getValue();
-                    log.debug("Partial match for '{}' -> '{}' as RGB({}, {}, {})", 
-                            colorString, entry.getKey(), rgb[0], rgb[1], rgb[2]);
-                    return Color.of(rgb[0], rgb[1], rgb[2]);
-                }
-            }
-            
+            return parseRgbStrict(colorString);
+        } catch (UnknownColorException e) {
             log.warn("Unknown color '{}', using default white", colorString);
-            return Color.of(255, 255, 255);
-            
+            return new int[]{255, 255, 255};
         } catch (Exception e) {
             log.error("Error parsing color '{}', using default white: {}", colorString, e.getMessage());
-            return Color.of(255, 255, 255);
+            return new int[]{255, 255, 255};
+        }
+    }
+    
+    /**
+     * Same as {@link #parseRgb(String)}, but for colors sent by other
+     * systems: anything that can't be parsed is rejected rather than
+     * replaced with white
+     *
+     * @throws IllegalArgumentException if the color is empty, malformed or unknown
+     */
+    public int[] parseRgbStrict(String colorString) {
+        if (colorString == null || colorString.trim().isEmpty()) {
+            throw new IllegalArgumentException("Empty color");
+        }
+        
+        String color = colorString.trim().toLowerCase();
+        
+        // Try hex color (#RRGGBB or #RGB)
+        if (color.startsWith("#")) {
+            return parseHexColor(color);
+        }
+        
+        // Try RGB format (r,g,b)
+        if (color.contains(",")) {
+            return parseRgbColor(color);
+        }
+        
+        // Try named color
+        int[] rgb = NAMED_COLORS.get(color);
+        if (rgb != null) {
+            log.debug("Parsed color '{}' as RGB({}, {}, {})", colorString, rgb[0], rgb[1], rgb[2]);
+            return rgb.clone();
+        }
+        
+        // Fallback: try partial matches for compound color names
+        for (Map.Entry<String, int[]> entry : NAMED_COLORS.entrySet()) {
+            if (entry.getKey().contains(color) || color.contains(entry.getKey())) {
+                rgb = entry.getValue();
+                log.debug("Partial match for '{}' -> '{}' as RGB({}, {}, {})", 
+                        colorString, entry.getKey(), rgb[0], rgb[1], rgb[2]);
+                return rgb.clone();
+            }
+        }
+        
+        throw new UnknownColorException(colorString);
+    }
+    
+    private static class UnknownColorException extends IllegalArgumentException {
+        UnknownColorException(String color) {
+            super("Unknown color '" + color + "'");
         }
     }
     
-    private Color parseHexColor(String hex) {
+    private int[] parseHexColor(String hex) {
         // Remove # and handle 3-digit hex
         String hexValue = hex.substring(1);
         if (hexValue.length() == 3) {
@@ -123,10 +154,10 @@ public class ColorParserService {
         int b = Integer.parseInt(hexValue.substring(4, 6), 16);
         
         log.debug("Parsed hex color '{}' as RGB({}, {}, {})", hex, r, g, b);
-        return Color.of(r, g, b);
+        return new int[]{r, g, b};
     }
     
-    private Color parseRgbColor(String rgb) {
+    private int[] parseRgbColor(String rgb) {
         String[] parts = rgb.split(",");
         if (parts.length != 3) {
             throw new IllegalArgumentException("RGB format must be 'r,g,b': " + rgb);
@@ -142,7 +173,7 @@ public class ColorParserService {
         }
         
         log.debug("Parsed RGB color '{}' as RGB({}, {}, {})", rgb, r, g, b);
-        return Color.of(r, g, b);
+        return new int[]{r, g, b};
     }
     
     /**
@@ -0,0 +1,281 @@
+package io.github.greenstevester.hue_mood_orologist.service;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightCommandDispatcher;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightHoldStore;
+import io.github.greenstevester.hue_mood_orologist.events.MoodStateBroadcaster;
+import io.github.greenstevester.hue_mood_orologist.model.ColorPlanEntry;
+import io.github.greenstevester.hue_mood_orologist.model.ColorPlanResult;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.heuvana.v2.Group;
+import io.github.greenstevester.heuvana.v2.Hue;
+import io.github.greenstevester.heuvana.v2.Light;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Applies color plans sent in bulk by other systems. Every entry is
+ * resolved to the lights it targets, and each light gets the entry with
+ * the highest priority (the later one on a tie). The winners are posted to
+ * the bridges' mailboxes like any weather update, so lights set to the same
+ * color share grouped commands and a newer plan replaces unsent commands.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ColorPlanService {
+    
+    static final String REASON = "color plan";
+    
+    private final ColorParserService colorParserService;
+    private final LightCommandDispatcher lightCommandDispatcher;
+    private final LightHoldStore lightHoldStore;
+    private final BridgeRegistry bridgeRegistry;
+    private final ClusterCoordinator clusterCoordinator;
+    private final MoodStateBroadcaster moodStateBroadcaster;
+    
+    /**
+     * An entry that passed validation, with its command built
+     */
+    private record Accepted(int index, ColorPlanEntry entry, LightCommand command) {
+    }
+    
+    /**
+     * Entry that won one light
+     */
+    private record Target(BridgeView bridge, Light light, Accepted accepted) {
+    }
+    
+    private record DispatchKey(BridgeView bridge, Accepted accepted) {
+    }
+    
+    /**
+     * A connected bridge this instance drives; its rooms and zones are
+     * only read if an entry targets something that isn't a light
+     */
+    private static final class BridgeView {
+        private final HueBridgeConnection bridge;
+        private final Hue hue;
+        private final Map<UUID, Light> lights;
+        private List<Group> groups;
+        
+        BridgeView(HueBridgeConnection bridge, Hue hue, Map<UUID, Light> lights) {
+            this.bridge = bridge;
+            this.hue = hue;
+            this.lights = lights;
+        }
+        
+        List<Group> groups() {
+            if (groups == null) {
+                groups = new ArrayList<>();
+                try {
+                    groups.addAll(hue.getRooms().values());
+                    groups.addAll(hue.getZones().values());
+                } catch (Exception e) {
+                    log.warn("Could not read rooms/zones from bridge '{}': {}", bridge.getName(), e.getMessage());
+                }
+            }
+            return groups;
+        }
+    }
+    
+    /**
+     * Whether any bridge is connected that this instance drives
+     */
+    public boolean isReady() {
+        return bridgeRegistry.getBridges().stream()
+            .anyMatch(bridge -> bridge.getHue().isPresent() && clusterCoordinator.isBridgeLeader(bridge.getName()));
+    }
+    
+    /**
+     * Validate, coalesce and dispatch a plan. Returns without waiting for
+     * the bridges; the future completes once every reached light is done
+     * or the cycle deadline has passed.
+     */
+    public CompletableFuture<ColorPlanResult> apply(List<ColorPlanEntry> entries) {
+        Instant now = Instant.now();
+        List<ColorPlanResult.Rejection> rejected = new ArrayList<>();
+        List<Accepted> accepted = new ArrayList<>();
+        for (int index = 0; index < entries.size(); index++) {
+            ColorPlanEntry entry = entries.get(index);
+            String problem = validate(entry, now);
+            if (problem == null) {
+                try {
+                    accepted.add(new Accepted(index, entry, toCommand(entry)));
+                    continue;
+                } catch (IllegalArgumentException e) {
+                    problem = e.getMessage();
+                }
+            }
+            rejected.add(new ColorPlanResult.Rejection(index, entry != null ? entry.target() : null, problem));
+        }
+        
+        // Coalesce per light: highest priority wins, the later entry on a tie
+        List<BridgeView> bridges = readBridges();
+        Map<UUID, Target> winners = new LinkedHashMap<>();
+        List<Accepted> resolved = new ArrayList<>();
+        for (Accepted candidate : accepted) {
+            boolean matched = false;
+            for (BridgeView bridge : bridges) {
+                for (Map.Entry<UUID, Light> light : resolve(bridge, candidate.entry().target()).entrySet()) {
+                    matched = true;
+                    Target current = winners.get(light.getKey());
+                    if (current == null || candidate.entry().effectivePriority() 
+                            >= current.accepted().entry().effectivePriority()) {
+                        winners.put(light.getKey(), new Target(bridge, light.getValue(), candidate));
+                    }
+                }
+            }
+            if (matched) {
+                resolved.add(candidate);
+            } else {
+                rejected.add(new ColorPlanResult.Rejection(candidate.index(), candidate.entry().target(), 
+                    "no connected light, room or zone matches"));
+            }
+        }
+        
+        // Lights held by an earlier plan of higher priority keep its color
+        List<LightOutcome> held = new ArrayList<>();
+        Map<DispatchKey, Map<UUID, Light>> dispatches = new LinkedHashMap<>();
+        winners.forEach((lightId, target) -> {
+            ColorPlanEntry entry = target.accepted().entry();
+            Optional<LightHoldStore.Hold> hold = lightHoldStore.outranking(lightId, entry.effectivePriority());
+            if (hold.isPresent()) {
+                held.add(new LightOutcome(lightId, target.light().getName(), LightOutcome.Status.SKIPPED, 
+                    Duration.ZERO, "held by priority " + hold.get().priority() + " until " + hold.get().validUntil()));
+                return;
+            }
+            lightHoldStore.hold(lightId, entry.effectivePriority(), entry.validUntil());
+            dispatches.computeIfAbsent(new DispatchKey(target.bridge(), target.accepted()), key -> new LinkedHashMap<>())
+                .put(lightId, target.light());
+        });
+        
+        log.info("Color plan: {} of {} entries accepted, {} light(s) to update, {} held by other plans", 
+            resolved.size(), entries.size(), winners.size() - held.size(), held.size());
+        
+        List<CompletableFuture<List<LightOutcome>>> updates = new ArrayList<>();
+        dispatches.forEach((key, lights) -> {
+            LightCommand command = key.accepted().command();
+            updates.add(lightCommandDispatcher.dispatch(key.bridge().bridge, key.bridge().hue, lights, command)
+                .whenComplete((outcomes, error) -> {
+                    if (outcomes != null) {
+                        moodStateBroadcaster.publishLights(REASON, command, 
+                            new CycleResult(REASON, now, Duration.between(now, Instant.now()), outcomes));
+                    }
+                }));
+        });
+        
+        return CompletableFuture.allOf(updates.toArray(CompletableFuture[]::new))
+            .thenApply(done -> {
+                List<LightOutcome> outcomes = new ArrayList<>(held);
+                updates.forEach(update -> outcomes.addAll(update.join()));
+                rejected.sort(Comparator.comparingInt(ColorPlanResult.Rejection::getIndex));
+                return new ColorPlanResult(entries.size(), resolved.size(), List.copyOf(rejected), outcomes);
+            });
+    }
+    
+    private static String validate(ColorPlanEntry entry, Instant now) {
+        if (entry == null) {
+            return "empty entry";
+        }
+        if (entry.target() == null || entry.target().isBlank()) {
+            return "target is required";
+        }
+        if (entry.color() == null || entry.color().isBlank()) {
+            return "color is required";
+        }
+        if (entry.transition() != null && entry.transition().isNegative()) {
+            return "transition must not be negative";
+        }
+        if (entry.validUntil() != null && !entry.validUntil().isAfter(now)) {
+            return "already expired";
+        }
+        return null;
+    }
+    
+    private LightCommand toCommand(ColorPlanEntry entry) {
+        if ("off".equalsIgnoreCase(entry.color().trim())) {
+            return LightCommand.off(REASON, entry.transition());
+        }
+        return LightCommand.on(colorParserService.parseRgbStrict(entry.color()), REASON, entry.transition());
+    }
+    
+    /**
+     * Lights of the bridge the target names: "all", a light id, light
+     * name, or the name of a room or zone, in that order
+     */
+    private static Map<UUID, Light> resolve(BridgeView bridge, String target) {
+        String name = target.trim();
+        if ("all".equalsIgnoreCase(name) || "*".equals(name)) {
+            return bridge.lights;
+        }
+        
+        Map<UUID, Light> matches = new LinkedHashMap<>();
+        try {
+            UUID lightId = UUID.fromString(name);
+            Light light = bridge.lights.get(lightId);
+            if (light != null) {
+                matches.put(lightId, light);
+            }
+            return matches;
+        } catch (IllegalArgumentException e) {
+            // Not an id
+        }
+        
+        bridge.lights.forEach((lightId, light) -> {
+            if (name.equalsIgnoreCase(light.getName())) {
+                matches.put(lightId, light);
+            }
+        });
+        if (!matches.isEmpty()) {
+            return matches;
+        }
+        
+        for (Group group : bridge.groups()) {
+            if (name.equalsIgnoreCase(group.getName()) && group.getLights() != null) {
+                group.getLights().forEach(light -> {
+                    Light known = bridge.lights.get(light.getId());
+                    if (known != null) {
+                        matches.put(light.getId(), known);
+                    }
+                });
+            }
+        }
+        return matches;
+    }
+    
+    private List<BridgeView> readBridges() {
+        List<BridgeView> result = new ArrayList<>();
+        for (HueBridgeConnection bridge : bridgeRegistry.getBridges()) {
+            if (!clusterCoordinator.isBridgeLeader(bridge.getName())) {
+                // Another instance drives this bridge
+                continue;
+            }
+            bridge.getHue().ifPresent(hue -> {
+                try {
+                    result.add(new BridgeView(bridge, hue, hue.getLights()));
+                } catch (Exception e) {
+                    log.error("Error reading lights from bridge '{}'", bridge.getName(), e);
+                    bridge.markFailed();
+                }
+            });
+        }
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.greenstevester.hue_mood_orologist.service;
+
+import java.util.List;
+
+/**
+ * What to ask Open-Meteo for: the variables of each block and how far
+ * ahead. Blocks without variables are left out of the request.
+ */
+public record ForecastQuery(List<String> hourly, int forecastHours, List<String> current,
+                            List<String> minutely15, int forecastMinutely15) {
+    
+    public static final String TEMPERATURE = "temperature_2m";
+    public static final String PRECIPITATION = "precipitation";
+    public static final String PRECIPITATION_PROBABILITY = "precipitation_probability";
+    
+    /**
+     * Query parameters to append after latitude and longitude
+     */
+    public String toQueryString() {
+        StringBuilder query = new StringBuilder();
+        if (!hourly.isEmpty()) {
+            query.append("&hourly=").append(String.join(",", hourly))
+                .append("&forecast_hours=").append(forecastHours);
+        }
+        if (!current.isEmpty()) {
+            query.append("&current=").append(String.join(",", current));
+        }
+        if (!minutely15.isEmpty()) {
+            query.append("&minutely_15=").append(String.join(",", minutely15))
+                .append("&forecast_minutely_15=").append(forecastMinutely15);
+        }
+        return query.toString();
+    }
+}
@@ -1,173 +1,407 @@
 package io.github.greenstevester.hue_mood_orologist.service;
 
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
 import io.github.greenstevester.hue_mood_orologist.config.ColorMappingProperties;
 import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightCommandDispatcher;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightHoldStore;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightShadowStore;
+import io.github.greenstevester.hue_mood_orologist.events.MoodStateBroadcaster;
+import io.github.greenstevester.hue_mood_orologist.metrics.PipelineMetrics;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.LightMoodPlan;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
 import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
 import io.github.greenstevester.heuvana.Color;
-import io.github.greenstevester.heuvana.HueBridge;
-import io.github.greenstevester.heuvana.HueBridgeConnectionBuilder;
-import io.github.greenstevester.heuvana.v2.UpdateState;
-import io.github.greenstevester.heuvana.discovery.HueBridgeDiscoveryService;
 import io.github.greenstevester.heuvana.v2.Hue;
 import io.github.greenstevester.heuvana.v2.Light;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class HueService {
     
+    /**
+     * Every condition {@link #legacyAnalysis(boolean, boolean)} can plan,
+     * and so every condition the lights are ever set for
+     */
+    public static final Set<String> PLANNED_CONDITIONS = Set.of("rain", "cold", "clear");
+    
     private final HueProperties hueProperties;
     private final ColorMappingProperties colorMappingProperties;
     private final ColorParserService colorParserService;
-    private Hue hue;
+    private final LightCommandDispatcher lightCommandDispatcher;
+    private final LightShadowStore lightShadowStore;
+    private final LightHoldStore lightHoldStore;
+    private final BridgeRegistry bridgeRegistry;
+    private final WeatherSceneService weatherSceneService;
+    private final ClusterCoordinator clusterCoordinator;
+    private final PipelineMetrics pipelineMetrics;
+    private final MoodStateBroadcaster moodStateBroadcaster;
+    private final ObservationRegistry observationRegistry;
+    private final AtomicReference<PendingMood> pendingMood = new AtomicReference<>();
+    private final AtomicLong moodsPlanned = new AtomicLong();
+    private final AtomicBoolean firstUpdateLogged = new AtomicBoolean();
     
+    /**
+     * Connection to the primary bridge, if it is currently established
+     */
     public Optional<Hue> getHueConnection() {
-        if (hue != null) {
-            return Optional.of(hue);
+        return bridgeRegistry.getPrimary().flatMap(HueBridgeConnection::getHue);
+    }
+    
+    public void listLights() {
+        List<BridgeLights> bridges = readAllLights();
+        if (bridges.isEmpty()) {
+            log.warn("No Hue connection available");
+            return;
         }
         
-        try {
-            String bridgeIp = hueProperties.getBridgeIp();
-            String apiKey = hueProperties.getApiKey();
-            
-            // If bridge IP is not configured, try to discover it
-            if ((bridgeIp == null || bridgeIp.isEmpty()) && hueProperties.isAutoDiscoverBridge()) {
-                log.info("Bridge IP not configured, attempting to discover Hue bridges...");
-                Optional<String> discoveredIp = discoverBridge();
-                if (discoveredIp.isPresent()) {
-                    bridgeIp = discoveredIp.get();
-                    log.info("Discovered Hue bridge at: {}", bridgeIp);
-                } else {
-                    log.warn("No Hue bridges found on the network");
-                    return Optional.empty();
-                }
+        Map<UUID, Light> allLights = new LinkedHashMap<>();
+        for (BridgeLights bridgeLights : bridges) {
+            Map<UUID, Light> lights = bridgeLights.lights();
+            allLights.putAll(lights);
+            if (lights.isEmpty()) {
+                log.info("No lights found on the Hue bridge '{}'", bridgeLights.bridge().getName());
+            } else {
+                log.info("Found {} lights on bridge '{}':", lights.size(), bridgeLights.bridge().getName());
+                lights.forEach((uuid, light) -> 
+                    log.info("  - {} (ID: {})", 
+                        light.getName(), 
+                        uuid)
+                );
             }
-            
-            // If API key is not configured, we need to register with the bridge
-            if (apiKey == null || apiKey.isEmpty()) {
-                log.warn("Hue API key not configured. Please press the button on your Hue bridge and configure the API key.");
-                log.info("To register: Press the button on your Hue bridge and run the following:");
-                log.info("String apiKey = new HueBridgeConnectionBuilder(\"{}\").initializeApiConnection(\"{}\").get();", 
-                        bridgeIp, hueProperties.getAppName());
-                return Optional.empty();
+        }
+        
+        // Show targeting configuration
+        if (hueProperties.isTargetAllLights()) {
+            log.info("Configuration: Targeting ALL lights");
+        } else if (hueProperties.getTargetLightName() != null) {
+            log.info("Configuration: Targeting specific light: '{}'", hueProperties.getTargetLightName());
+            boolean foundTarget = allLights.values().stream()
+                .anyMatch(light -> light.getName().equalsIgnoreCase(hueProperties.getTargetLightName()));
+            if (!foundTarget) {
+                log.warn("Target light '{}' not found! Available lights: {}", 
+                    hueProperties.getTargetLightName(),
+                    allLights.values().stream().map(Light::getName).toList());
             }
-            
-            // Create Hue connection
-            hue = new Hue(bridgeIp, apiKey);
-            log.info("Successfully connected to Hue bridge at {}", bridgeIp);
-            return Optional.of(hue);
-            
+        }
+    }
+    
+    /**
+     * Apply the weather mood to all target lights. Returns without waiting
+     * for the bridges; the future completes with every light's outcome once
+     * all lights are done or the cycle deadline has passed.
+     */
+    public CompletableFuture<CycleResult> setLightMoodForWeather(WeatherAnalysis weatherAnalysis) {
+        Instant startedAt = Instant.now();
+        try {
+            return planLightMood(weatherAnalysis)
+                .map(this::applyPlan)
+                .orElseGet(() -> CompletableFuture.completedFuture(
+                    CycleResult.empty(weatherAnalysis.getWeatherCondition(), startedAt)));
         } catch (Exception e) {
-            log.error("Failed to connect to Hue bridge", e);
+            log.error("Error setting light mood", e);
+            return CompletableFuture.completedFuture(CycleResult.empty(weatherAnalysis.getWeatherCondition(), startedAt));
+        }
+    }
+    
+    /**
+     * Read the lights of every connected bridge and work out which command
+     * goes to which of them. Empty when there is nothing to send; if no
+     * bridge is connected yet, the analysis is kept and applied on connect.
+     */
+    public Optional<LightMoodPlan> planLightMood(WeatherAnalysis weatherAnalysis) {
+        return planLightMood(weatherAnalysis, null);
+    }
+    
+    /**
+     * Same as {@link #planLightMood(WeatherAnalysis)}, limited to the target
+     * lights of one room when a room name is given
+     */
+    public Optional<LightMoodPlan> planLightMood(WeatherAnalysis weatherAnalysis, String room) {
+        String condition = weatherAnalysis.getWeatherCondition();
+        long sequence = room == null ? moodsPlanned.incrementAndGet() : moodsPlanned.get();
+        List<BridgeLights> bridges = readAllLights();
+        if (bridges.isEmpty()) {
+            log.warn("No Hue bridge connected yet - lights will be updated once a bridge connects");
+            if (room == null) {
+                PendingMood pending = new PendingMood(weatherAnalysis, sequence);
+                pendingMood.set(pending);
+                // A bridge that connected since the read above has already looked for pending work
+                if (anyBridgeToDrive() && pendingMood.compareAndSet(pending, null)) {
+                    return planLightMood(weatherAnalysis, null);
+                }
+            }
             return Optional.empty();
         }
+        if (room == null) {
+            pendingMood.set(null);
+        }
+        
+        Map<UUID, Light> allLights = new LinkedHashMap<>();
+        bridges.forEach(bridgeLights -> {
+            lightShadowStore.reconcile(bridgeLights.lights());
+            allLights.putAll(bridgeLights.lights());
+        });
+        Map<UUID, Light> targetLights = getTargetLights(allLights);
+        if (room != null) {
+            targetLights = new LinkedHashMap<>(targetLights);
+            targetLights.keySet().retainAll(lightsInRoom(bridges, room));
+        }
+        if (targetLights.keySet().stream().anyMatch(lightHoldStore::isHeld)) {
+            // Lights held by a color plan keep its color until the hold expires
+            targetLights = new LinkedHashMap<>(targetLights);
+            targetLights.keySet().removeIf(lightHoldStore::isHeld);
+        }
+        
+        if (targetLights.isEmpty()) {
+            log.warn("No target lights found to control{}", room != null ? " in room '" + room + "'" : "");
+            return Optional.empty();
+        }
+        
+        log.info("Controlling {} light(s) on {} bridge(s) for weather condition: {}", 
+            targetLights.size(), bridges.size(), condition);
+        
+        // Determine color to use
+        long colorStartedAt = System.nanoTime();
+        Color lightColor = determineColorForWeather(weatherAnalysis);
+        pipelineMetrics.recordColorResolution(Duration.ofNanos(System.nanoTime() - colorStartedAt));
+        LightCommand command = LightCommand.on(lightColor, condition);
+        
+        // Scenes cover whole rooms, so they only apply when every light is targeted
+        boolean useScenes = hueProperties.isScenesEnabled() && targetLights.size() == allLights.size();
+        
+        // Shard target lights by owning bridge; each bridge is updated on its own lane
+        Map<UUID, Light> selectedLights = targetLights;
+        List<LightMoodPlan.BridgeTargets> shards = new ArrayList<>();
+        for (BridgeLights bridgeLights : bridges) {
+            Map<UUID, Light> bridgeTargets = new LinkedHashMap<>();
+            bridgeLights.lights().forEach((uuid, light) -> {
+                if (selectedLights.containsKey(uuid)) {
+                    bridgeTargets.put(uuid, light);
+                }
+            });
+            if (!bridgeTargets.isEmpty()) {
+                shards.add(new LightMoodPlan.BridgeTargets(bridgeLights.bridge(), bridgeLights.hue(), bridgeTargets));
+            }
+        }
+        return Optional.of(new LightMoodPlan(condition, Instant.now(), command, useScenes, shards));
     }
     
-    private Optional<String> discoverBridge() {
-        try {
-            Future<List<HueBridge>> bridgesFuture = new HueBridgeDiscoveryService()
-                .discoverBridges(bridge -> log.debug("Found bridge: {}", bridge));
-            
-            List<HueBridge> bridges = bridgesFuture.get(hueProperties.getDiscoveryTimeout(), TimeUnit.SECONDS);
-            
-            if (!bridges.isEmpty()) {
-                return Optional.of(bridges.get(0).getIp());
+    /**
+     * Hand the plan to the bridges' dispatch lanes
+     */
+    public CompletableFuture<CycleResult> applyPlan(LightMoodPlan plan) {
+        Instant startedAt = plan.getPlannedAt();
+        List<CompletableFuture<List<LightOutcome>>> updates = new ArrayList<>();
+        for (LightMoodPlan.BridgeTargets targets : plan.getBridges()) {
+            if (plan.isUseScenes()) {
+                updates.add(recallScenesThenDispatch(targets, plan.getCommand(), plan.getWeatherCondition()));
+            } else {
+                updates.add(lightCommandDispatcher.dispatch(
+                    targets.getBridge(), targets.getHue(), targets.getLights(), plan.getCommand()));
             }
-        } catch (Exception e) {
-            log.error("Error during bridge discovery", e);
         }
-        return Optional.empty();
+        
+        return CompletableFuture.allOf(updates.toArray(CompletableFuture[]::new))
+            .thenApply(done -> new CycleResult(plan.getWeatherCondition(), startedAt, 
+                Duration.between(startedAt, Instant.now()),
+                updates.stream().flatMap(update -> update.join().stream()).toList()))
+            .whenComplete((result, error) -> {
+                if (result != null) {
+                    pipelineMetrics.recordCycle(result);
+                    moodStateBroadcaster.publishLights(plan.getWeatherCondition(), plan.getCommand(), result);
+                    logFirstUpdate(result);
+                }
+            });
+    }
+    
+    /**
+     * Weather update that arrived while no bridge was connected
+     *
+     * @param sequence how many moods had been planned when it arrived
+     */
+    public record PendingMood(WeatherAnalysis analysis, long sequence) {
+    }
+    
+    /**
+     * Take the weather update kept while no bridge was connected, to be
+     * planned once one is
+     */
+    public Optional<PendingMood> takePendingMood() {
+        return Optional.ofNullable(pendingMood.getAndSet(null));
+    }
+    
+    /**
+     * Plan a pending weather update, unless a newer one has been planned
+     * since it arrived; that one already reflects the current weather
+     */
+    public Optional<LightMoodPlan> planPendingMood(PendingMood pending) {
+        if (moodsPlanned.get() != pending.sequence()) {
+            log.info("Dropping pending {} mood, a newer weather update was planned since", 
+                pending.analysis().getWeatherCondition());
+            return Optional.empty();
+        }
+        return planLightMood(pending.analysis(), null);
     }
     
-    public void listLights() {
-        getHueConnection().ifPresentOrElse(
-            hueConnection -> {
-                try {
-                    Map<UUID, Light> lights = hueConnection.getLights();
-                    if (lights.isEmpty()) {
-                        log.info("No lights found on the Hue bridge");
+    /**
+     * Whichever of the forecast and the bridge connection is ready last
+     * triggers the first update, so it is logged here rather than in the pipeline
+     */
+    private void logFirstUpdate(CycleResult result) {
+        if (!result.getOutcomes().isEmpty() && firstUpdateLogged.compareAndSet(false, true)) {
+            // startup-benchmark.sh measures time to first light update from this line
+            ProcessHandle.current().info().startInstant().ifPresent(processStart -> 
+                log.info("First light update after {} ms", Duration.between(processStart, Instant.now()).toMillis()));
+        }
+    }
+    
+    /**
+     * Recall the condition's scene in each room of the bridge that doesn't
+     * show it yet, then send individual commands only to the lights no scene covered
+     */
+    private CompletableFuture<List<LightOutcome>> recallScenesThenDispatch(LightMoodPlan.BridgeTargets targets,
+                                                                          LightCommand command, 
+                                                                          String weatherCondition) {
+        HueBridgeConnection bridge = targets.getBridge();
+        // The recall and the remaining commands run on the bridge lane, away from the cycle's observation
+        Observation cycle = observationRegistry.getCurrentObservation();
+        long started = System.nanoTime();
+        Duration cycleDeadline = hueProperties.getCycleDeadline();
+        Instant deadline = cycleDeadline != null ? Instant.now().plus(cycleDeadline) : null;
+        CompletableFuture<WeatherSceneService.RecallResult> recalling = CompletableFuture
+            .supplyAsync(() -> Observation.createNotStarted("hue.scene.recall", observationRegistry)
+                .parentObservation(cycle)
+                .lowCardinalityKeyValue("weather.condition", Objects.requireNonNullElse(weatherCondition, "unknown"))
+                .highCardinalityKeyValue("hue.bridge", bridge.getName())
+                .observe(() -> weatherSceneService.recall(bridge.getName(), weatherCondition, command, deadline)), 
+                bridge.getLane());
+        if (cycleDeadline != null) {
+            // null marks a recall still running at the deadline; each scene call is bounded by the CLIP timeout
+            recalling.completeOnTimeout(null, cycleDeadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return recalling
+            .thenCompose(recall -> {
+                if (recall == null) {
+                    return CompletableFuture.completedFuture(targets.getLights().entrySet().stream()
+                        .map(entry -> LightOutcome.timedOut(entry.getKey(), entry.getValue().getName(), cycleDeadline))
+                        .toList());
+                }
+                Duration recallLatency = Duration.ofNanos(System.nanoTime() - started);
+                List<LightOutcome> outcomes = new ArrayList<>();
+                Map<UUID, Light> remaining = new LinkedHashMap<>();
+                targets.getLights().forEach((lightId, light) -> {
+                    if (recall.recalled().contains(lightId)) {
+                        outcomes.add(new LightOutcome(lightId, light.getName(), 
+                            LightOutcome.Status.SUCCESS, recallLatency, null));
+                    } else if (recall.unchanged().contains(lightId)) {
+                        outcomes.add(new LightOutcome(lightId, light.getName(), 
+                            LightOutcome.Status.SKIPPED, recallLatency, "already applied"));
                     } else {
-                        log.info("Found {} lights:", lights.size());
-                        lights.forEach((uuid, light) -> 
-                            log.info("  - {} (ID: {})", 
-                                light.getName(), 
-                                uuid)
-                        );
-                        
-                        // Show targeting configuration
-                        if (hueProperties.isTargetAllLights()) {
-                            log.info("Configuration: Targeting ALL lights");
-                        } else if (hueProperties.getTargetLightName() != null) {
-                            log.info("Configuration: Targeting specific light: '{}'", hueProperties.getTargetLightName());
-                            boolean foundTarget = lights.values().stream()
-                                .anyMatch(light -> light.getName().equalsIgnoreCase(hueProperties.getTargetLightName()));
-                            if (!foundTarget) {
-                                log.warn("Target light '{}' not found! Available lights: {}", 
-                                    hueProperties.getTargetLightName(),
-                                    lights.values().stream().map(Light::getName).toList());
-                            }
-                        }
+                        remaining.put(lightId, light);
                     }
-                } catch (Exception e) {
-                    log.error("Error listing lights", e);
+                });
+                if (remaining.isEmpty()) {
+                    return CompletableFuture.completedFuture(outcomes);
                 }
-            },
-            () -> log.warn("No Hue connection available")
-        );
+                Duration timeLeft = deadline != null ? Duration.between(Instant.now(), deadline) : null;
+                return lightCommandDispatcher.dispatch(bridge, targets.getHue(), remaining, command, cycle, timeLeft)
+                    .thenApply(dispatched -> {
+                        outcomes.addAll(dispatched);
+                        return outcomes;
+                    });
+            });
     }
     
-    public void setLightMoodForWeather(WeatherAnalysis weatherAnalysis) {
-        getHueConnection().ifPresent(hueConnection -> {
+    /**
+     * Ids of the lights in every room with this name, across all bridges
+     */
+    private Set<UUID> lightsInRoom(List<BridgeLights> bridges, String room) {
+        Set<UUID> lightIds = new HashSet<>();
+        for (BridgeLights bridgeLights : bridges) {
             try {
-                Map<UUID, Light> allLights = hueConnection.getLights();
-                Map<UUID, Light> targetLights = getTargetLights(allLights);
-                
-                if (targetLights.isEmpty()) {
-                    log.warn("No target lights found to control");
-                    return;
-                }
-                
-                log.info("Controlling {} light(s) for weather condition: {}", 
-                    targetLights.size(), weatherAnalysis.getWeatherCondition());
-                
-                // Determine color to use
-                Color lightColor = determineColorForWeather(weatherAnalysis);
-                
-                targetLights.values().forEach(light -> {
-                    try {
-                        light.setState(new UpdateState().color(lightColor).on());
-                        log.info("Set {} to {} mood (RGB: {})", 
-                            light.getName(), 
-                            weatherAnalysis.getWeatherCondition(),
-                            lightColor.toString());
-                    } catch (Exception e) {
-                        log.error("Error controlling light: {}", light.getName(), e);
-                    }
-                });
+                bridgeLights.hue().getRooms().values().stream()
+                    .filter(group -> group.getName().equalsIgnoreCase(room))
+                    .flatMap(group -> group.getLights().stream())
+                    .forEach(light -> lightIds.add(light.getId()));
             } catch (Exception e) {
-                log.error("Error setting light mood", e);
+                log.warn("Could not read rooms from bridge '{}': {}", bridgeLights.bridge().getName(), e.getMessage());
             }
-        });
+        }
+        return lightIds;
+    }
+    
+    private record BridgeLights(HueBridgeConnection bridge, Hue hue, Map<UUID, Light> lights) {
     }
     
-    public void setLightMoodForWeather(boolean isRaining, boolean isCold) {
+    private boolean anyBridgeToDrive() {
+        return bridgeRegistry.getBridges().stream()
+            .anyMatch(bridge -> bridge.getHue().isPresent() && clusterCoordinator.isBridgeLeader(bridge.getName()));
+    }
+    
+    /**
+     * Read the light list of every connected bridge
+     */
+    private List<BridgeLights> readAllLights() {
+        List<BridgeLights> result = new ArrayList<>();
+        for (HueBridgeConnection bridge : bridgeRegistry.getBridges()) {
+            if (!clusterCoordinator.isBridgeLeader(bridge.getName())) {
+                // Another instance drives this bridge
+                continue;
+            }
+            bridge.getHue().ifPresent(hueConnection -> {
+                try {
+                    result.add(new BridgeLights(bridge, hueConnection, hueConnection.getLights()));
+                } catch (Exception e) {
+                    log.error("Error reading lights from bridge '{}'", bridge.getName(), e);
+                    bridge.markFailed();
+                }
+            });
+        }
+        return result;
+    }
+    
+    public CompletableFuture<CycleResult> setLightMoodForWeather(boolean isRaining, boolean isCold) {
         // Legacy method for backward compatibility
-        WeatherAnalysis legacyAnalysis = WeatherAnalysis.builder()
+        return setLightMoodForWeather(legacyAnalysis(isRaining, isCold));
+    }
+    
+    /**
+     * The rain/cold/clear mood the scheduler has always applied
+     */
+    public static WeatherAnalysis legacyAnalysis(boolean isRaining, boolean isCold) {
+        return WeatherAnalysis.builder()
             .isRaining(isRaining)
             .isVeryCold(isCold)
             .weatherCondition(isRaining ? "rain" : (isCold ? "cold" : "clear"))
             .build();
-        setLightMoodForWeather(legacyAnalysis);
     }
     
     private Color determineColorForWeather(WeatherAnalysis weatherAnalysis) {
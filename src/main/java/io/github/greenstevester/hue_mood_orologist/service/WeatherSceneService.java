@@ -0,0 +1,433 @@
+package io.github.greenstevester.hue_mood_orologist.service;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueClipClient;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueConnectionStateChangedEvent;
+import io.github.greenstevester.hue_mood_orologist.cluster.BridgeLeadershipChangedEvent;
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
+import io.github.greenstevester.hue_mood_orologist.config.ColorMappingProperties;
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightShadowStore;
+import io.github.greenstevester.hue_mood_orologist.model.ClipResource;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.XyColor;
+import io.github.greenstevester.hue_mood_orologist.storage.AtomicFiles;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one bridge-side scene per weather condition in every room, so a
+ * weather change is a single scene recall per room and the bridge fans the
+ * colors out to its lights itself. Scenes are only rewritten when the color
+ * mapping or a room's lights change; the scene ids, the lights they cover
+ * and a hash of what they contain are kept in a local properties file, read
+ * when the context starts and before any bridge connects.
+ *
+ * <p>A scene is only recalled in rooms where the shadow store doesn't
+ * already know every light to show the condition, and the recalled state is
+ * recorded there, so an unchanged condition costs no bridge call at all.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WeatherSceneService implements SmartLifecycle {
+    
+    static final String DEFAULT_CONDITION = "default";
+    private static final String HASH_KEY = "hash";
+    private static final String LIGHTS_KEY = "lights";
+    private static final int MAX_SCENE_NAME_LENGTH = 32;
+    
+    private final HueProperties hueProperties;
+    private final ColorMappingProperties colorMappingProperties;
+    private final ColorParserService colorParserService;
+    private final BridgeRegistry bridgeRegistry;
+    private final ClusterCoordinator clusterCoordinator;
+    private final LightShadowStore lightShadowStore;
+    private final Map<String, Map<UUID, RoomScenes>> scenesByBridge = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    
+    /**
+     * Scenes of one room, the hash of the colors and lights they were written
+     * with, and the lights a recall covers
+     */
+    record RoomScenes(String hash, Map<String, UUID> sceneIds, Set<UUID> lightIds) {
+    }
+    
+    /**
+     * Lights a recall set to the condition, and lights the shadow store
+     * already knew to show it; neither needs an individual command
+     */
+    public record RecallResult(Set<UUID> recalled, Set<UUID> unchanged) {
+        
+        static final RecallResult NONE = new RecallResult(Set.of(), Set.of());
+        
+        public boolean covers(UUID lightId) {
+            return recalled.contains(lightId) || unchanged.contains(lightId);
+        }
+    }
+    
+    @Override
+    public void start() {
+        // Read again on every start; a restored checkpoint may hold an older copy
+        scenesByBridge.clear();
+        load();
+        running = true;
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+    
+    public void load() {
+        if (!hueProperties.isScenesEnabled()) {
+            return;
+        }
+        Path file = stateFile();
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+            Map<String, Map<UUID, String>> hashes = new HashMap<>();
+            Map<String, Map<UUID, Set<UUID>>> lightIds = new HashMap<>();
+            Map<String, Map<UUID, Map<String, UUID>>> sceneIds = new HashMap<>();
+            for (String key : properties.stringPropertyNames()) {
+                // Format: bridgeName|roomId|condition (or hash) = value
+                int conditionStart = key.lastIndexOf('|');
+                int roomStart = key.lastIndexOf('|', conditionStart - 1);
+                if (roomStart < 0) {
+                    continue;
+                }
+                String bridgeName = key.substring(0, roomStart);
+                UUID roomId = UUID.fromString(key.substring(roomStart + 1, conditionStart));
+                String condition = key.substring(conditionStart + 1);
+                String value = properties.getProperty(key);
+                if (condition.equals(HASH_KEY)) {
+                    hashes.computeIfAbsent(bridgeName, k -> new HashMap<>()).put(roomId, value);
+                } else if (condition.equals(LIGHTS_KEY)) {
+                    lightIds.computeIfAbsent(bridgeName, k -> new HashMap<>()).put(roomId, parseLightIds(value));
+                } else {
+                    sceneIds.computeIfAbsent(bridgeName, k -> new HashMap<>())
+                        .computeIfAbsent(roomId, k -> new HashMap<>())
+                        .put(condition, UUID.fromString(value));
+                }
+            }
+            sceneIds.forEach((bridgeName, rooms) -> rooms.forEach((roomId, ids) -> 
+                scenesByBridge.computeIfAbsent(bridgeName, k -> new ConcurrentHashMap<>()).put(roomId, 
+                    new RoomScenes(hashes.getOrDefault(bridgeName, Map.of()).get(roomId), ids, 
+                        lightIds.getOrDefault(bridgeName, Map.of()).getOrDefault(roomId, Set.of())))));
+            log.info("Restored weather scenes for {} bridge(s) from {}", scenesByBridge.size(), file);
+        } catch (Exception e) {
+            log.warn("Could not read weather scene state from {}, scenes will be re-synced: {}", file, e.getMessage());
+            scenesByBridge.clear();
+        }
+    }
+    
+    /**
+     * Sync a bridge's scenes as soon as it connects, on its own dispatch lane
+     */
+    @EventListener
+    public void onConnectionStateChanged(HueConnectionStateChangedEvent event) {
+        if (event.state() == HueBridgeConnection.State.CONNECTED 
+                && clusterCoordinator.isBridgeLeader(event.bridgeName())) {
+            syncOnLane(event.bridgeName());
+        }
+    }
+    
+    /**
+     * Sync when this instance takes over a bridge that was already connected
+     */
+    @EventListener
+    public void onBridgeLeadershipChanged(BridgeLeadershipChangedEvent event) {
+        if (event.leader()) {
+            syncOnLane(event.bridgeName());
+        }
+    }
+    
+    private void syncOnLane(String bridgeName) {
+        if (!hueProperties.isScenesEnabled()) {
+            return;
+        }
+        bridgeRegistry.getBridges().stream()
+            .filter(bridge -> bridge.getName().equals(bridgeName))
+            .filter(bridge -> bridge.getState() == HueBridgeConnection.State.CONNECTED)
+            .findFirst()
+            .ifPresent(bridge -> bridgeRegistry.getClipClient(bridge.getName()).ifPresent(client -> 
+                bridge.getLane().execute(() -> {
+                    try {
+                        sync(bridge.getName(), client);
+                    } catch (Exception e) {
+                        log.warn("Could not sync weather scenes to bridge '{}': {}", bridge.getName(), e.getMessage());
+                    }
+                })));
+    }
+    
+    /**
+     * Create or update the weather scenes of every room on the bridge.
+     *
+     * @return number of scenes written to the bridge
+     */
+    public synchronized int sync(String bridgeName, HueClipClient client) {
+        Map<String, XyColor> colors = desiredColors();
+        if (colors.isEmpty()) {
+            log.debug("Color mapping is disabled or empty, no weather scenes to sync");
+            return 0;
+        }
+        
+        Map<UUID, List<UUID>> lightsByDevice = client.getResources("light").stream()
+            .filter(light -> light.getOwner() != null)
+            .collect(Collectors.groupingBy(light -> light.getOwner().getRid(), 
+                Collectors.mapping(ClipResource::getId, Collectors.toList())));
+        Set<UUID> existingScenes = client.getResources("scene").stream()
+            .map(ClipResource::getId)
+            .collect(Collectors.toSet());
+        
+        Map<UUID, RoomScenes> known = scenesByBridge.computeIfAbsent(bridgeName, k -> new ConcurrentHashMap<>());
+        Set<UUID> currentRooms = new HashSet<>();
+        int written = 0;
+        boolean lightsChanged = false;
+        
+        for (ClipResource room : client.getResources("room")) {
+            Set<UUID> roomLights = new TreeSet<>();
+            for (ClipResource.Reference child : room.getChildren()) {
+                if ("light".equals(child.getRtype())) {
+                    roomLights.add(child.getRid());
+                } else {
+                    roomLights.addAll(lightsByDevice.getOrDefault(child.getRid(), List.of()));
+                }
+            }
+            if (roomLights.isEmpty()) {
+                continue;
+            }
+            currentRooms.add(room.getId());
+            
+            String hash = hash(colors, roomLights);
+            RoomScenes previous = known.get(room.getId());
+            Map<String, UUID> sceneIds = new HashMap<>();
+            
+            for (Map.Entry<String, XyColor> condition : colors.entrySet()) {
+                Map<UUID, XyColor> lightColors = new LinkedHashMap<>();
+                roomLights.forEach(lightId -> lightColors.put(lightId, condition.getValue()));
+                
+                UUID sceneId = previous != null ? previous.sceneIds().get(condition.getKey()) : null;
+                if (sceneId != null && existingScenes.contains(sceneId)) {
+                    if (!hash.equals(previous.hash())) {
+                        client.updateScene(sceneId, lightColors);
+                        written++;
+                    }
+                } else {
+                    ClipResource.Reference group = new ClipResource.Reference();
+                    group.setRid(room.getId());
+                    group.setRtype("room");
+                    sceneId = client.createScene(sceneName(condition.getKey()), group, lightColors);
+                    written++;
+                }
+                sceneIds.put(condition.getKey(), sceneId);
+            }
+            
+            // Conditions dropped from the mapping leave no orphaned scenes behind
+            if (previous != null) {
+                previous.sceneIds().forEach((condition, sceneId) -> {
+                    if (!colors.containsKey(condition) && existingScenes.contains(sceneId)) {
+                        client.deleteScene(sceneId);
+                    }
+                });
+            }
+            // State files from before the lights were kept get them on the first sync
+            lightsChanged |= previous == null || !previous.lightIds().equals(roomLights);
+            known.put(room.getId(), new RoomScenes(hash, sceneIds, roomLights));
+        }
+        
+        boolean roomsRemoved = known.keySet().retainAll(currentRooms);
+        if (written > 0 || roomsRemoved || lightsChanged) {
+            save();
+        }
+        log.info("Weather scenes on bridge '{}' in sync for {} room(s), {} scene(s) written", 
+            bridgeName, currentRooms.size(), written);
+        return written;
+    }
+    
+    /**
+     * Recall the scene for the condition in every synced room of the bridge
+     * where a light doesn't show it yet.
+     *
+     * @param command the command the scene stands in for, as recorded in the shadow store
+     * @return the lights the scenes cover; these need no individual command
+     */
+    public RecallResult recall(String bridgeName, String weatherCondition, LightCommand command) {
+        return recall(bridgeName, weatherCondition, command, null);
+    }
+    
+    /**
+     * Like {@link #recall(String, String, LightCommand)}, but rooms not
+     * reached by the deadline are left out and their lights not covered
+     *
+     * @param deadline when to stop recalling; null for no limit
+     */
+    public RecallResult recall(String bridgeName, String weatherCondition, LightCommand command, Instant deadline) {
+        Map<UUID, RoomScenes> rooms = scenesByBridge.getOrDefault(bridgeName, Map.of());
+        if (!hueProperties.isScenesEnabled() || rooms.isEmpty()) {
+            return RecallResult.NONE;
+        }
+        HueClipClient client = bridgeRegistry.getClipClient(bridgeName).orElse(null);
+        if (client == null) {
+            return RecallResult.NONE;
+        }
+        
+        String condition = sceneCondition(weatherCondition);
+        Set<UUID> recalled = new HashSet<>();
+        Set<UUID> unchanged = new HashSet<>();
+        rooms.forEach((roomId, room) -> {
+            UUID sceneId = room.sceneIds().get(condition);
+            // A room without known lights is left to individual commands until it is synced
+            if (sceneId == null || room.lightIds().isEmpty()) {
+                return;
+            }
+            if (deadline != null && Instant.now().isAfter(deadline)) {
+                log.debug("Cycle deadline passed, not recalling scene {} in room {}", sceneId, roomId);
+                return;
+            }
+            if (room.lightIds().stream().allMatch(lightId -> lightShadowStore.isApplied(lightId, command))) {
+                unchanged.addAll(room.lightIds());
+                return;
+            }
+            try {
+                client.recallScene(sceneId);
+                room.lightIds().forEach(lightId -> lightShadowStore.recordApplied(lightId, command));
+                recalled.addAll(room.lightIds());
+            } catch (Exception e) {
+                // Most likely deleted in the Hue app; the next sync recreates it
+                log.warn("Could not recall scene {} in room {} on bridge '{}': {}", 
+                    sceneId, roomId, bridgeName, e.getMessage());
+                rooms.remove(roomId);
+            }
+        });
+        if (!recalled.isEmpty()) {
+            lightShadowStore.flush();
+        }
+        log.debug("Recalled '{}' scenes on bridge '{}' for {} light(s), {} light(s) already showed it", 
+            condition, bridgeName, recalled.size(), unchanged.size());
+        return new RecallResult(recalled, unchanged);
+    }
+    
+    /**
+     * Scene color for each condition a weather update can recall: the mapped
+     * color of every planned condition, and the default color if a planned
+     * condition is unmapped. Mapped conditions the planner never produces get no scene.
+     */
+    Map<String, XyColor> desiredColors() {
+        Map<String, XyColor> colors = new TreeMap<>();
+        if (!colorMappingProperties.isEnabled() || colorMappingProperties.getConditions().isEmpty()) {
+            return colors;
+        }
+        for (String planned : HueService.PLANNED_CONDITIONS) {
+            String condition = sceneCondition(planned);
+            String color = condition.equals(DEFAULT_CONDITION) 
+                ? colorMappingProperties.getDefaultColor() 
+                : colorMappingProperties.getConditions().get(condition);
+            colors.computeIfAbsent(condition, key -> XyColor.fromRgb(colorParserService.parseRgb(color)));
+        }
+        return colors;
+    }
+    
+    private String sceneCondition(String weatherCondition) {
+        if (weatherCondition == null) {
+            return DEFAULT_CONDITION;
+        }
+        String condition = weatherCondition.toLowerCase();
+        return colorMappingProperties.getConditions().containsKey(condition) ? condition : DEFAULT_CONDITION;
+    }
+    
+    private static String sceneName(String condition) {
+        String name = "Weather " + condition;
+        return name.length() > MAX_SCENE_NAME_LENGTH ? name.substring(0, MAX_SCENE_NAME_LENGTH) : name;
+    }
+    
+    private static String hash(Map<String, XyColor> colors, Set<UUID> lightIds) {
+        StringBuilder content = new StringBuilder();
+        colors.forEach((condition, color) -> content.append(condition).append('=')
+            .append(color.getX()).append(',').append(color.getY()).append(',').append(color.getBrightness()).append(';'));
+        lightIds.forEach(lightId -> content.append(lightId).append(';'));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private void save() {
+        Path file = stateFile();
+        Properties properties = new Properties();
+        scenesByBridge.forEach((bridgeName, rooms) -> rooms.forEach((roomId, room) -> {
+            String prefix = bridgeName + "|" + roomId + "|";
+            if (room.hash() != null) {
+                properties.setProperty(prefix + HASH_KEY, room.hash());
+            }
+            if (!room.lightIds().isEmpty()) {
+                properties.setProperty(prefix + LIGHTS_KEY, 
+                    room.lightIds().stream().map(UUID::toString).collect(Collectors.joining(",")));
+            }
+            room.sceneIds().forEach((condition, sceneId) -> 
+                properties.setProperty(prefix + condition, sceneId.toString()));
+        }));
+        
+        try {
+            AtomicFiles.writeProperties(file, properties, "Hue Mood Orologist weather scenes");
+        } catch (IOException e) {
+            log.warn("Could not persist weather scene state to {}: {}", file, e.getMessage());
+        }
+    }
+    
+    private static Set<UUID> parseLightIds(String value) {
+        Set<UUID> lightIds = new TreeSet<>();
+        for (String lightId : value.split(",")) {
+            if (!lightId.isBlank()) {
+                lightIds.add(UUID.fromString(lightId.trim()));
+            }
+        }
+        return lightIds;
+    }
+    
+    private Path stateFile() {
+        return Path.of(hueProperties.getSceneStateFile());
+    }
+}
@@ -1,5 +1,9 @@
 package io.github.greenstevester.hue_mood_orologist.service;
 
+import io.github.greenstevester.hue_mood_orologist.config.ColorMappingProperties;
+import io.github.greenstevester.hue_mood_orologist.config.ForecastProperties;
+import io.github.greenstevester.hue_mood_orologist.config.StreamingProperties;
+import io.github.greenstevester.hue_mood_orologist.model.CurrentData;
 import io.github.greenstevester.hue_mood_orologist.model.HourlyData;
 import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
 import io.github.greenstevester.hue_mood_orologist.model.WeatherResponse;
@@ -11,99 +15,220 @@ import org.springframework.web.client.RestClient;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.OptionalDouble;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+/**
+ * Fetches the forecast and turns it into a {@link WeatherAnalysis}. The
+ * request only asks for the variables something reads: rain by amount
+ * needs precipitation, rain by probability needs its probability and cold
+ * needs temperature. Conditions that color mappings or streaming effects
+ * react to add the variables that decide them, so a snow effect still
+ * gets temperature with the cold rule off. Leaving a threshold empty
+ * switches its rule off, and the analysis works with whatever variables
+ * the response has.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class WeatherService {
     
+    private static final double DEFAULT_LATITUDE = 47.3769;
+    private static final double DEFAULT_LONGITUDE = 8.5417;
+    
+    /**
+     * Variables {@link #determineWeatherCondition} needs to tell each
+     * condition apart; rain and cold come from their rules instead
+     */
+    private static final Map<String, List<String>> CONDITION_VARIABLES = Map.of(
+        "snow", List.of(ForecastQuery.TEMPERATURE, ForecastQuery.PRECIPITATION, 
+            ForecastQuery.PRECIPITATION_PROBABILITY),
+        "sunshine", List.of(ForecastQuery.TEMPERATURE),
+        "overcast", List.of(ForecastQuery.TEMPERATURE, ForecastQuery.PRECIPITATION_PROBABILITY));
+    
+    private static final List<String> VARIABLE_ORDER = List.of(
+        ForecastQuery.TEMPERATURE, ForecastQuery.PRECIPITATION_PROBABILITY, ForecastQuery.PRECIPITATION);
+    
     private final RestClient.Builder restClientBuilder;
+    private final ForecastProperties forecastProperties;
+    private final ColorMappingProperties colorMappingProperties;
+    private final StreamingProperties streamingProperties;
     
     @Value("${weather.api.url:https://api.open-meteo.com/v1/forecast}")
     private String apiBaseUrl;
     
     @Value("${weather.cold.threshold:5.0}")
-    private double coldThreshold;
+    private Double coldThreshold;
     
     @Value("${weather.rain.probability.threshold:30}")
-    private int rainProbabilityThreshold;
+    private Integer rainProbabilityThreshold;
     
     @Value("${weather.rain.amount.threshold:0.1}")
-    private double rainAmountThreshold;
+    private Double rainAmountThreshold;
     
     public WeatherAnalysis fetchAndAnalyzeWeather() {
+        try {
+            return analyzeWeather(fetchWeather());
+        } catch (Exception e) {
+            log.error("Error fetching weather data", e);
+            return fetchFailedAnalysis(e);
+        }
+    }
+    
+    /**
+     * What a check goes on with when its forecast couldn't be fetched:
+     * condition "unknown", which sets the standard light mood
+     */
+    public WeatherAnalysis fetchFailedAnalysis(Exception e) {
+        return createErrorAnalysis("Error fetching weather: " + e.getMessage());
+    }
+    
+    /**
+     * The network half of a weather check; throws if the forecast can't be fetched
+     */
+    public WeatherResponse fetchWeather() {
+        return fetchWeather(DEFAULT_LATITUDE, DEFAULT_LONGITUDE);
+    }
+    
+    public WeatherResponse fetchWeather(double latitude, double longitude) {
         log.info("Fetching weather data from Open-Meteo API");
         
+        RestClient restClient = restClientBuilder.build();
+        
+        String url = apiBaseUrl + 
+            "?latitude=" + latitude + "&longitude=" + longitude +
+            forecastQuery().toQueryString() +
+            "&timezone=Europe/Berlin";
+        
+        return restClient
+            .get()
+            .uri(url)
+            .retrieve()
+            .body(WeatherResponse.class);
+    }
+    
+    /**
+     * The smallest request that answers the active rules and the conditions
+     * something reacts to
+     */
+    public ForecastQuery forecastQuery() {
+        Set<String> needed = new HashSet<>();
+        if (coldThreshold != null) {
+            needed.add(ForecastQuery.TEMPERATURE);
+        }
+        if (rainProbabilityThreshold != null) {
+            needed.add(ForecastQuery.PRECIPITATION_PROBABILITY);
+        }
+        if (rainAmountThreshold != null) {
+            needed.add(ForecastQuery.PRECIPITATION);
+        }
+        for (String condition : reactedToConditions()) {
+            needed.addAll(CONDITION_VARIABLES.getOrDefault(condition.toLowerCase(), List.of()));
+        }
+        List<String> variables = VARIABLE_ORDER.stream().filter(needed::contains).toList();
+        
+        // Open-Meteo has no probability for the current conditions
+        List<String> current = forecastProperties.isCurrent()
+            ? variables.stream().filter(variable -> !variable.equals(ForecastQuery.PRECIPITATION_PROBABILITY)).toList()
+            : List.of();
+        List<String> minutely15 = forecastProperties.getMinutely15Hours() > 0 && rainAmountThreshold != null
+            ? List.of(ForecastQuery.PRECIPITATION)
+            : List.of();
+        return new ForecastQuery(variables, Math.max(1, forecastProperties.getHours()), current, 
+            minutely15, forecastProperties.getMinutely15Hours() * 4);
+    }
+    
+    /**
+     * Conditions a color mapping or a streaming effect is set for
+     */
+    private Set<String> reactedToConditions() {
+        Set<String> conditions = new HashSet<>();
+        if (colorMappingProperties.isEnabled()) {
+            conditions.addAll(colorMappingProperties.getConditions().keySet());
+        }
+        if (streamingProperties.isEnabled()) {
+            conditions.addAll(streamingProperties.getEffects().keySet());
+        }
+        return conditions;
+    }
+    
+    /**
+     * The CPU half of a weather check; never touches the network
+     */
+    public WeatherAnalysis analyzeWeather(WeatherResponse response) {
+        if (response == null || (response.getHourly() == null && response.getCurrent() == null)) {
+            log.error("Invalid weather response received");
+            return createErrorAnalysis("Invalid weather data received");
+        }
+        
         try {
-            RestClient restClient = restClientBuilder.build();
-            
-            String url = apiBaseUrl + 
-                "?latitude=47.3769&longitude=8.5417" +
-                "&hourly=temperature_2m,precipitation_probability,precipitation" +
-                "&timezone=Europe/Berlin&forecast_hours=8";
-            
-            WeatherResponse response = restClient
-                .get()
-                .uri(url)
-                .retrieve()
-                .body(WeatherResponse.class);
-            
-            if (response == null || response.getHourly() == null) {
-                log.error("Invalid weather response received");
-                return createErrorAnalysis("Invalid weather data received");
-            }
-            
             return analyzeWeatherData(response);
-            
         } catch (Exception e) {
-            log.error("Error fetching weather data", e);
+            log.error("Error analyzing weather data", e);
             return createErrorAnalysis("Error fetching weather: " + e.getMessage());
         }
     }
     
     private WeatherAnalysis analyzeWeatherData(WeatherResponse response) {
-        HourlyData hourly = response.getHourly();
+        HourlyData hourly = response.getHourly() != null ? response.getHourly() : new HourlyData();
+        List<Double> temperatures = valuesOf(hourly.getTemperature2m());
+        List<Double> precipitation = valuesOf(hourly.getPrecipitation());
+        List<Integer> precipitationProbability = valuesOf(hourly.getPrecipitationProbability());
+        List<Double> minutelyPrecipitation = response.getMinutely15() != null 
+            ? valuesOf(response.getMinutely15().getPrecipitation()) 
+            : List.of();
+        CurrentData current = response.getCurrent();
         
-        // Current conditions (first hour)
-        double currentTemp = hourly.getTemperature2m().get(0);
-        double currentPrecipitation = hourly.getPrecipitation().get(0);
-        int currentPrecipProb = hourly.getPrecipitationProbability().get(0);
+        // Current conditions: the current block if requested, else the first hour
+        Double currentTemp = current != null && current.getTemperature2m() != null 
+            ? current.getTemperature2m() 
+            : first(temperatures);
+        double currentPrecipitation = current != null && current.getPrecipitation() != null 
+            ? current.getPrecipitation() 
+            : Objects.requireNonNullElse(first(precipitation), 0.0);
+        if (!minutelyPrecipitation.isEmpty()) {
+            // The hourly value is spread over the hour; the next 15 minutes are sharper
+            currentPrecipitation = Math.max(currentPrecipitation, minutelyPrecipitation.getFirst());
+        }
+        int currentPrecipProb = Objects.requireNonNullElse(first(precipitationProbability), 0);
         
         // Analyze rain conditions
-        boolean isRaining = currentPrecipitation > rainAmountThreshold || 
-                           currentPrecipProb > rainProbabilityThreshold;
+        boolean isRaining = exceedsRainAmount(currentPrecipitation) || exceedsRainProbability(currentPrecipProb);
         
         // Check if it will rain in the next hours
         boolean willRainSoon = false;
         int maxPrecipProb = currentPrecipProb;
         double maxPrecipAmount = currentPrecipitation;
         
-        for (int i = 1; i < hourly.getPrecipitation().size(); i++) {
-            double precip = hourly.getPrecipitation().get(i);
-            int precipProb = hourly.getPrecipitationProbability().get(i);
-            
-            if (precip > maxPrecipAmount) {
-                maxPrecipAmount = precip;
-            }
-            if (precipProb > maxPrecipProb) {
-                maxPrecipProb = precipProb;
-            }
-            
-            if (precip > rainAmountThreshold || precipProb > rainProbabilityThreshold) {
-                willRainSoon = true;
-            }
+        for (int i = 1; i < precipitation.size(); i++) {
+            double precip = precipitation.get(i);
+            maxPrecipAmount = Math.max(maxPrecipAmount, precip);
+            willRainSoon |= exceedsRainAmount(precip);
+        }
+        for (int i = 1; i < precipitationProbability.size(); i++) {
+            int precipProb = precipitationProbability.get(i);
+            maxPrecipProb = Math.max(maxPrecipProb, precipProb);
+            willRainSoon |= exceedsRainProbability(precipProb);
+        }
+        for (int i = 1; i < minutelyPrecipitation.size(); i++) {
+            double precip = minutelyPrecipitation.get(i);
+            maxPrecipAmount = Math.max(maxPrecipAmount, precip);
+            willRainSoon |= exceedsRainAmount(precip);
         }
         
         // Analyze temperature conditions
-        boolean isVeryCold = currentTemp < coldThreshold;
-        
-        OptionalDouble minTempOpt = hourly.getTemperature2m().stream()
-            .mapToDouble(Double::doubleValue)
-            .min();
+        boolean isVeryCold = isBelowColdThreshold(currentTemp);
         
-        double minTemp = minTempOpt.orElse(currentTemp);
-        boolean willBeVeryCold = minTemp < coldThreshold;
+        Double minTemp = temperatures.stream()
+            .min(Double::compare)
+            .orElse(currentTemp);
+        if (minTemp != null && currentTemp != null) {
+            minTemp = Math.min(minTemp, currentTemp);
+        }
+        boolean willBeVeryCold = isBelowColdThreshold(minTemp);
         
         // Determine specific weather condition
         String weatherCondition = determineWeatherCondition(
@@ -134,9 +259,32 @@ public class WeatherService {
             .build();
     }
     
+    private boolean exceedsRainAmount(double precipitation) {
+        return rainAmountThreshold != null && precipitation > rainAmountThreshold;
+    }
+    
+    private boolean exceedsRainProbability(int probability) {
+        return rainProbabilityThreshold != null && probability > rainProbabilityThreshold;
+    }
+    
+    private boolean isBelowColdThreshold(Double temperature) {
+        return coldThreshold != null && temperature != null && temperature < coldThreshold;
+    }
+    
+    /**
+     * Values of a variable, without the gaps Open-Meteo leaves as null
+     */
+    private static <T> List<T> valuesOf(List<T> values) {
+        return values == null ? List.of() : values.stream().filter(Objects::nonNull).toList();
+    }
+    
+    private static <T> T first(List<T> values) {
+        return values.isEmpty() ? null : values.getFirst();
+    }
+    
     private String createWeatherSummary(boolean isRaining, boolean willRainSoon, int maxPrecipProb,
                                        boolean isVeryCold, boolean willBeVeryCold, 
-                                       double currentTemp, double minTemp) {
+                                       Double currentTemp, Double minTemp) {
         StringBuilder summary = new StringBuilder();
         
         // Rain status
@@ -149,7 +297,9 @@ public class WeatherService {
         }
         
         // Temperature status
-        summary.append("Current temp: ").append(String.format("%.1f°C", currentTemp)).append(". ");
+        if (currentTemp != null) {
+            summary.append("Current temp: ").append(String.format("%.1f°C", currentTemp)).append(". ");
+        }
         
         if (isVeryCold) {
             summary.append("It's very cold! ");
@@ -161,17 +311,17 @@ public class WeatherService {
         return summary.toString().trim();
     }
     
-    private String determineWeatherCondition(double currentTemp, double currentPrecip, int currentPrecipProb,
+    private String determineWeatherCondition(Double currentTemp, double currentPrecip, int currentPrecipProb,
                                            double maxPrecipAmount, int maxPrecipProb, 
                                            boolean isRaining, boolean isVeryCold) {
         
         // Snow conditions (cold + precipitation)
-        if (currentTemp <= 0 && (currentPrecip > 0.1 || currentPrecipProb > 20)) {
+        if (currentTemp != null && currentTemp <= 0 && (currentPrecip > 0.1 || currentPrecipProb > 20)) {
             return "snow";
         }
         
         // Rain conditions based on intensity
-        if (isRaining || maxPrecipAmount > rainAmountThreshold || maxPrecipProb > rainProbabilityThreshold) {
+        if (isRaining || exceedsRainAmount(maxPrecipAmount) || exceedsRainProbability(maxPrecipProb)) {
             if (maxPrecipAmount > 2.0 || maxPrecipProb > 70) {
                 return "showers"; // Heavy precipitation
             } else {
@@ -185,7 +335,10 @@ public class WeatherService {
         }
         
         // Cloud/visibility conditions based on temperature ranges and lack of precipitation
-        if (currentTemp > 25) {
+        if (currentTemp == null) {
+            // Temperature not requested; only the cloud hint of the probability is left
+            return maxPrecipProb > 20 ? "overcast" : "clear";
+        } else if (currentTemp > 25) {
             return "sunshine"; // Hot and clear
         } else if (currentTemp > 15) {
             // Moderate temperature - check if it might be overcast
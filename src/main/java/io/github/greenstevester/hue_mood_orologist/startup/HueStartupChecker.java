@@ -1,13 +1,16 @@
 package io.github.greenstevester.hue_mood_orologist.startup;
 
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueConnectionStateChangedEvent;
 import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
 import io.github.greenstevester.hue_mood_orologist.service.HueService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -15,21 +18,40 @@ public class HueStartupChecker {
     
     private final HueService hueService;
     private final HueProperties hueProperties;
+    private final AtomicBoolean checked = new AtomicBoolean(false);
     
-    @EventListener(ApplicationReadyEvent.class)
-    public void checkHueLightsOnStartup() {
-        log.info("=== Checking for Philips Hue lights on startup ===");
-        
-        // Try to connect to Hue bridge and list available lights
-        hueService.listLights();
-        
-        // Run debug color information if enabled
-        if (hueProperties.isDebugColors()) {
-            log.info("Debug colors enabled - reading current light color information...");
-            hueService.debugLightColors();
-            hueService.debugLightColorsWithRawApi();
+    /**
+     * Runs once, when the first bridge connection is established by the
+     * connection manager, instead of blocking application startup. The
+     * listing and debug dumps run on their own virtual thread, so they hold
+     * up neither the connection manager nor the first light update.
+     */
+    @EventListener
+    public void checkHueLightsOnFirstConnect(HueConnectionStateChangedEvent event) {
+        if (event.state() != HueBridgeConnection.State.CONNECTED || !checked.compareAndSet(false, true)) {
+            return;
         }
         
-        log.info("=== Hue lights check completed ===");
+        Thread.ofVirtual().name("hue-startup-check").start(this::checkHueLights);
+    }
+    
+    void checkHueLights() {
+        try {
+            log.info("=== Checking for Philips Hue lights on startup ===");
+            
+            // List available lights now that the bridge is connected
+            hueService.listLights();
+            
+            // Run debug color information if enabled
+            if (hueProperties.isDebugColors()) {
+                log.info("Debug colors enabled - reading current light color information...");
+                hueService.debugLightColors();
+                hueService.debugLightColorsWithRawApi();
+            }
+            
+            log.info("=== Hue lights check completed ===");
+        } catch (Exception e) {
+            log.warn("Hue lights check on startup failed: {}", e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
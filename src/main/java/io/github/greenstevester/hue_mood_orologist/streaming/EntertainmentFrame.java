@@ -0,0 +1,82 @@
+package io.github.greenstevester.hue_mood_orologist.streaming;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * One color frame for a set of entertainment channels, encoded in the
+ * layout of the Hue Entertainment (HueStream v2) protocol:
+ * <pre>
+ *   "HueStream" | version 2.0 | sequence | 2 reserved | color space | 1 reserved
+ *   | entertainment configuration id (36 ASCII chars)
+ *   | per channel: channel id, red, green, blue (16-bit big-endian each)
+ * </pre>
+ */
+public final class EntertainmentFrame {
+    
+    public static final byte[] PROTOCOL_NAME = "HueStream".getBytes(StandardCharsets.US_ASCII);
+    public static final int HEADER_SIZE = 16;
+    public static final int CONFIGURATION_ID_SIZE = 36;
+    public static final int CHANNEL_SIZE = 7;
+    private static final byte COLOR_SPACE_RGB = 0x00;
+    
+    private final List<Integer> channels;
+    
+    /**
+     * 16-bit RGB per channel: colors[channel][0..2]
+     */
+    private final int[][] colors;
+    
+    public EntertainmentFrame(List<Integer> channels, int[][] colors) {
+        if (channels.size() != colors.length) {
+            throw new IllegalArgumentException("Need one color per channel");
+        }
+        this.channels = List.copyOf(channels);
+        this.colors = colors;
+    }
+    
+    /**
+     * Frame with every channel set to the same 8-bit RGB color
+     */
+    public static EntertainmentFrame uniform(List<Integer> channels, int red, int green, int blue) {
+        int[][] colors = new int[channels.size()][];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = new int[]{red * 257, green * 257, blue * 257};
+        }
+        return new EntertainmentFrame(channels, colors);
+    }
+    
+    public int encodedSize() {
+        return HEADER_SIZE + CONFIGURATION_ID_SIZE + channels.size() * CHANNEL_SIZE;
+    }
+    
+    /**
+     * Write this frame into the buffer, replacing its contents
+     */
+    public void encode(ByteBuffer buffer, int sequence, byte[] configurationId) {
+        buffer.clear();
+        buffer.put(PROTOCOL_NAME);
+        buffer.put((byte) 0x02).put((byte) 0x00);
+        buffer.put((byte) sequence);
+        buffer.put((byte) 0x00).put((byte) 0x00);
+        buffer.put(COLOR_SPACE_RGB);
+        buffer.put((byte) 0x00);
+        buffer.put(configurationId, 0, CONFIGURATION_ID_SIZE);
+        for (int i = 0; i < channels.size(); i++) {
+            buffer.put(channels.get(i).byteValue());
+            buffer.putShort((short) colors[i][0]);
+            buffer.putShort((short) colors[i][1]);
+            buffer.putShort((short) colors[i][2]);
+        }
+        buffer.flip();
+    }
+    
+    public List<Integer> getChannels() {
+        return channels;
+    }
+    
+    public int[] getColor(int channelIndex) {
+        return colors[channelIndex].clone();
+    }
+}
@@ -0,0 +1,206 @@
+package io.github.greenstevester.hue_mood_orologist.streaming;
+
+import io.github.greenstevester.hue_mood_orologist.config.StreamingProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams precomputed color frames over UDP at a fixed frame rate, modeled on
+ * the Hue Entertainment protocol. Frames are sent from one dedicated
+ * high-priority thread that sleeps until absolute deadlines, so jitter
+ * doesn't accumulate; if the thread falls more than a frame behind it skips
+ * the missed slots instead of sending a burst.
+ *
+ * <p>The real bridge expects these frames inside a DTLS-PSK session opened
+ * for an entertainment configuration. This sender writes the frames as
+ * plain UDP datagrams, for a local receiver or a DTLS proxy in front of the
+ * bridge.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EntertainmentStreamer implements SmartLifecycle {
+    
+    /**
+     * Most channels one entertainment configuration can address
+     */
+    public static final int MAX_CHANNELS = 20;
+    
+    private final StreamingProperties streamingProperties;
+    
+    private final AtomicReference<Effect> currentEffect = new AtomicReference<>(Effect.NONE);
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong lateFrames = new AtomicLong();
+    private volatile long maxLatenessNanos;
+    private volatile boolean running;
+    private volatile Thread senderThread;
+    
+    private record Effect(String name, List<EntertainmentFrame> frames) {
+        static final Effect NONE = new Effect("none", List.of());
+    }
+    
+    @Override
+    public void start() {
+        if (!streamingProperties.isEnabled() || running) {
+            return;
+        }
+        int channels = streamingProperties.getChannels().size();
+        if (channels == 0 || channels > MAX_CHANNELS) {
+            throw new IllegalStateException("streaming.channels must list 1 to " + MAX_CHANNELS 
+                + " channels, got " + channels);
+        }
+        running = true;
+        senderThread = Thread.ofPlatform()
+            .name("entertainment-sender")
+            .daemon(true)
+            .priority(Thread.MAX_PRIORITY)
+            .start(this::sendLoop);
+        log.info("Entertainment streaming to {}:{} at {} fps", 
+            streamingProperties.getHost(), streamingProperties.getPort(), streamingProperties.getFrameRate());
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = senderThread;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        senderThread = null;
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Play the effect mapped to the weather condition, or stop streaming if none is mapped
+     */
+    public void applyWeather(String weatherCondition) {
+        if (!streamingProperties.isEnabled() || weatherCondition == null) {
+            return;
+        }
+        String effect = streamingProperties.getEffects().get(weatherCondition.toLowerCase());
+        if (effect == null) {
+            stopEffect();
+        } else if (!effect.equals(currentEffect.get().name())) {
+            play(effect);
+        }
+    }
+    
+    public void play(String effect) {
+        List<EntertainmentFrame> frames = WeatherEffects.frames(
+            effect, streamingProperties.getChannels(), streamingProperties.getFrameRate());
+        if (frames.isEmpty()) {
+            log.warn("Unknown streaming effect '{}'", effect);
+            return;
+        }
+        playFrames(effect, frames);
+    }
+    
+    /**
+     * Loop the given frames until another effect is played
+     */
+    public void playFrames(String name, List<EntertainmentFrame> frames) {
+        if (frames.stream().anyMatch(frame -> frame.getChannels().size() > MAX_CHANNELS)) {
+            throw new IllegalArgumentException("Frames may address at most " + MAX_CHANNELS + " channels");
+        }
+        currentEffect.set(new Effect(name, List.copyOf(frames)));
+        log.info("Streaming effect '{}' ({} frames)", name, frames.size());
+    }
+    
+    public void stopEffect() {
+        if (currentEffect.getAndSet(Effect.NONE) != Effect.NONE) {
+            log.info("Streaming effect stopped");
+        }
+    }
+    
+    private void sendLoop() {
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, streamingProperties.getFrameRate());
+        byte[] configurationId = Arrays.copyOf(
+            streamingProperties.getEntertainmentConfigurationId().getBytes(StandardCharsets.US_ASCII), 
+            EntertainmentFrame.CONFIGURATION_ID_SIZE);
+        ByteBuffer buffer = ByteBuffer.allocate(EntertainmentFrame.HEADER_SIZE 
+            + EntertainmentFrame.CONFIGURATION_ID_SIZE + MAX_CHANNELS * EntertainmentFrame.CHANNEL_SIZE);
+        DatagramPacket packet = new DatagramPacket(buffer.array(), 0);
+        
+        try (DatagramSocket socket = new DatagramSocket()) {
+            socket.connect(new InetSocketAddress(streamingProperties.getHost(), streamingProperties.getPort()));
+            
+            Effect playing = Effect.NONE;
+            int frameIndex = 0;
+            int sequence = 0;
+            long nextFrameAt = System.nanoTime();
+            
+            while (running) {
+                long now = System.nanoTime();
+                if (now < nextFrameAt) {
+                    LockSupport.parkNanos(nextFrameAt - now);
+                    continue;
+                }
+                
+                long lateness = now - nextFrameAt;
+                maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+                if (lateness > periodNanos) {
+                    lateFrames.incrementAndGet();
+                    nextFrameAt = now;
+                }
+                nextFrameAt += periodNanos;
+                
+                Effect effect = currentEffect.get();
+                if (effect != playing) {
+                    playing = effect;
+                    frameIndex = 0;
+                }
+                if (playing.frames().isEmpty()) {
+                    continue;
+                }
+                
+                EntertainmentFrame frame = playing.frames().get(frameIndex);
+                frameIndex = (frameIndex + 1) % playing.frames().size();
+                frame.encode(buffer, sequence++, configurationId);
+                packet.setLength(buffer.limit());
+                socket.send(packet);
+                framesSent.incrementAndGet();
+            }
+        } catch (Exception e) {
+            if (running) {
+                log.error("Entertainment streaming stopped unexpectedly", e);
+            }
+        } finally {
+            running = false;
+        }
+    }
+    
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+    
+    public long getLateFrames() {
+        return lateFrames.get();
+    }
+    
+    public long getMaxLatenessMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLatenessNanos);
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.greenstevester.hue_mood_orologist.streaming;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Precomputed, looping frame sequences for weather effects. Everything is
+ * computed up front so the sender thread only has to copy bytes.
+ */
+public final class WeatherEffects {
+    
+    public static final String LIGHTNING = "lightning";
+    public static final String RAIN_FLICKER = "rain-flicker";
+    public static final String SNOW_DRIFT = "snow-drift";
+    
+    private WeatherEffects() {
+    }
+    
+    /**
+     * Frames for the named effect, or an empty list if the effect is unknown
+     */
+    public static List<EntertainmentFrame> frames(String effect, List<Integer> channels, int frameRate) {
+        if (effect == null) {
+            return List.of();
+        }
+        return switch (effect.trim().toLowerCase()) {
+            case LIGHTNING -> lightning(channels, frameRate);
+            case RAIN_FLICKER -> rainFlicker(channels, frameRate);
+            case SNOW_DRIFT -> snowDrift(channels, frameRate);
+            default -> List.of();
+        };
+    }
+    
+    /**
+     * Dark storm blue with sudden white flashes that decay over a few frames
+     */
+    static List<EntertainmentFrame> lightning(List<Integer> channels, int frameRate) {
+        Random random = new Random(42);
+        int frameCount = frameRate * 6;
+        double[][] flash = new double[frameCount][channels.size()];
+        
+        for (int strike = 0; strike < 3; strike++) {
+            int start = random.nextInt(frameCount - frameRate / 2);
+            for (int channel = 0; channel < channels.size(); channel++) {
+                // Neighbouring channels light up a frame or two apart
+                int offset = random.nextInt(3);
+                for (int decay = 0; decay < frameRate / 4; decay++) {
+                    int frame = start + offset + decay;
+                    if (frame < frameCount) {
+                        double intensity = decay < 2 ? 1.0 : Math.pow(0.6, decay - 1);
+                        flash[frame][channel] = Math.max(flash[frame][channel], intensity);
+                    }
+                }
+            }
+        }
+        
+        List<EntertainmentFrame> frames = new ArrayList<>(frameCount);
+        for (int frame = 0; frame < frameCount; frame++) {
+            int[][] colors = new int[channels.size()][];
+            for (int channel = 0; channel < channels.size(); channel++) {
+                colors[channel] = blend(new int[]{20, 24, 48}, new int[]{255, 255, 255}, flash[frame][channel]);
+            }
+            frames.add(new EntertainmentFrame(channels, colors));
+        }
+        return frames;
+    }
+    
+    /**
+     * Blue with smoothed random brightness changes per channel
+     */
+    static List<EntertainmentFrame> rainFlicker(List<Integer> channels, int frameRate) {
+        Random random = new Random(7);
+        int frameCount = frameRate * 2;
+        double[] level = new double[channels.size()];
+        Arrays.fill(level, 0.85);
+        
+        List<EntertainmentFrame> frames = new ArrayList<>(frameCount);
+        for (int frame = 0; frame < frameCount; frame++) {
+            int[][] colors = new int[channels.size()][];
+            for (int channel = 0; channel < channels.size(); channel++) {
+                double target = 0.7 + random.nextDouble() * 0.3;
+                level[channel] = level[channel] * 0.7 + target * 0.3;
+                colors[channel] = blend(new int[]{0, 0, 0}, new int[]{60, 90, 160}, level[channel]);
+            }
+            frames.add(new EntertainmentFrame(channels, colors));
+        }
+        return frames;
+    }
+    
+    /**
+     * Slow shimmer between snow white and a cool blue
+     */
+    static List<EntertainmentFrame> snowDrift(List<Integer> channels, int frameRate) {
+        int frameCount = frameRate * 4;
+        List<EntertainmentFrame> frames = new ArrayList<>(frameCount);
+        for (int frame = 0; frame < frameCount; frame++) {
+            int[][] colors = new int[channels.size()][];
+            for (int channel = 0; channel < channels.size(); channel++) {
+                double phase = 2 * Math.PI * (frame / (double) frameCount + channel / (double) channels.size());
+                colors[channel] = blend(new int[]{200, 220, 255}, new int[]{255, 250, 250}, (Math.sin(phase) + 1) / 2);
+            }
+            frames.add(new EntertainmentFrame(channels, colors));
+        }
+        return frames;
+    }
+    
+    /**
+     * Linear blend of two 8-bit colors, returned as 16-bit channel values
+     */
+    private static int[] blend(int[] from, int[] to, double amount) {
+        int[] color = new int[3];
+        for (int i = 0; i < 3; i++) {
+            double value = from[i] + (to[i] - from[i]) * amount;
+            color[i] = (int) Math.round(value * 257);
+        }
+        return color;
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.greenstevester.hue_mood_orologist.api;
+
+import io.github.greenstevester.hue_mood_orologist.config.ApiProperties;
+import io.github.greenstevester.hue_mood_orologist.config.ScheduleProperties;
+import io.github.greenstevester.hue_mood_orologist.pipeline.WeatherPipeline;
+import io.github.greenstevester.hue_mood_orologist.scheduler.WeatherCheckScheduler;
+import io.github.greenstevester.hue_mood_orologist.service.ColorPlanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisabledInNativeImage
+class ApiTokenFilterTest {
+    
+    private final WeatherCheckScheduler weatherCheckScheduler = mock(WeatherCheckScheduler.class);
+    private final ColorPlanService colorPlanService = mock(ColorPlanService.class);
+    private final ApiProperties apiProperties = new ApiProperties();
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() {
+        when(weatherCheckScheduler.getStatuses()).thenReturn(List.of());
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new ControlController(weatherCheckScheduler, mock(WeatherPipeline.class), new ScheduleProperties()),
+                new ColorPlanController(colorPlanService))
+            .addFilters(new ApiTokenFilter(apiProperties))
+            .build();
+    }
+    
+    @Test
+    @DisplayName("Should serve local clients when no token is configured")
+    void shouldServeLocalClientsWithoutToken() throws Exception {
+        mockMvc.perform(get("/api/schedule").with(from("127.0.0.1")))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/schedule").with(from("0:0:0:0:0:0:0:1")))
+            .andExpect(status().isOk());
+    }
+    
+    @Test
+    @DisplayName("Should refuse other hosts when no token is configured")
+    void shouldRefuseRemoteClientsWithoutToken() throws Exception {
+        mockMvc.perform(post("/api/pause").with(from("192.168.1.20")))
+            .andExpect(status().isForbidden());
+        
+        verify(weatherCheckScheduler, never()).pause();
+    }
+    
+    @Test
+    @DisplayName("Should require the bearer token from every client once one is configured")
+    void shouldRequireConfiguredToken() throws Exception {
+        // Given
+        apiProperties.setToken("s3cret");
+        
+        // When / Then
+        mockMvc.perform(post("/api/pause").with(from("127.0.0.1")))
+            .andExpect(status().isUnauthorized())
+            .andExpect(header().string("WWW-Authenticate", "Bearer"));
+        mockMvc.perform(post("/api/pause").with(from("192.168.1.20")).header("Authorization", "Bearer wrong"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/pause").with(from("192.168.1.20")).header("Authorization", "Bearer s3cret"))
+            .andExpect(status().isOk());
+        
+        verify(weatherCheckScheduler).pause();
+    }
+    
+    @Test
+    @DisplayName("Should not let other hosts hold lights with a color plan without the token")
+    void shouldRefuseRemoteColorPlansWithoutToken() throws Exception {
+        // Given
+        apiProperties.setToken("s3cret");
+        String plan = "{\"entries\":[{\"target\":\"all\",\"color\":\"red\",\"priority\":100,"
+            + "\"validUntil\":\"2099-01-01T00:00:00Z\"}]}";
+        
+        // When / Then
+        mockMvc.perform(post("/api/color-plans").with(from("192.168.1.20"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(plan))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(post(URI.create("/api;x/color-plans")).with(from("192.168.1.20"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(plan))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(post(URI.create("/%61pi/color-plans")).with(from("192.168.1.20"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(plan))
+            .andExpect(status().isUnauthorized());
+        
+        verify(colorPlanService, never()).apply(any());
+    }
+    
+    @Test
+    @DisplayName("Should guard the API however its path is spelled")
+    void shouldGuardEncodedAndParameterizedPaths() throws Exception {
+        mockMvc.perform(post(URI.create("/api;x/pause")).with(from("192.168.1.20")))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(post(URI.create("/%61pi/pause")).with(from("192.168.1.20")))
+            .andExpect(status().isForbidden());
+        
+        verify(weatherCheckScheduler, never()).pause();
+    }
+    
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.greenstevester.hue_mood_orologist.api;
+
+import io.github.greenstevester.hue_mood_orologist.config.ScheduleProperties;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.pipeline.WeatherPipeline;
+import io.github.greenstevester.hue_mood_orologist.scheduler.WeatherCheckScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisabledInNativeImage
+class ControlControllerTest {
+    
+    private final WeatherCheckScheduler weatherCheckScheduler = mock(WeatherCheckScheduler.class);
+    private final WeatherPipeline weatherPipeline = mock(WeatherPipeline.class);
+    private final ScheduleProperties scheduleProperties = new ScheduleProperties();
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() {
+        when(weatherCheckScheduler.getStatuses()).thenReturn(List.of());
+        mockMvc = MockMvcBuilders.standaloneSetup(
+            new ControlController(weatherCheckScheduler, weatherPipeline, scheduleProperties)).build();
+    }
+    
+    @Test
+    @DisplayName("Should change the interval live")
+    void shouldChangeInterval() throws Exception {
+        when(weatherCheckScheduler.updateSchedule(any())).thenReturn(true);
+        
+        mockMvc.perform(put("/api/schedule/interval")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"interval\":\"FOUR_HOURS\"}"))
+            .andExpect(status().isOk());
+        
+        verify(weatherCheckScheduler).updateSchedule(ScheduleProperties.ScheduleInterval.FOUR_HOURS);
+    }
+    
+    @Test
+    @DisplayName("Should reject an unknown interval")
+    void shouldRejectUnknownInterval() throws Exception {
+        mockMvc.perform(put("/api/schedule/interval")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"interval\":\"FORTNIGHT\"}"))
+            .andExpect(status().isBadRequest());
+        
+        verify(weatherCheckScheduler, never()).updateSchedule(any());
+    }
+    
+    @Test
+    @DisplayName("Should answer a refresh once the check has finished")
+    void shouldRefresh() throws Exception {
+        // Given
+        when(weatherCheckScheduler.refresh()).thenReturn(
+            Optional.of(CompletableFuture.completedFuture(CycleResult.empty("rain", Instant.now()))));
+        
+        // When
+        MvcResult result = mockMvc.perform(post("/api/refresh"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.weatherCondition").value("rain"));
+    }
+    
+    @Test
+    @DisplayName("Should answer 503 while the scheduler is not running")
+    void shouldRejectRequestsWhileStopped() throws Exception {
+        // Given
+        when(weatherCheckScheduler.refresh()).thenReturn(Optional.empty());
+        when(weatherCheckScheduler.updateSchedule(any())).thenReturn(false);
+        
+        // When
+        MvcResult result = mockMvc.perform(post("/api/refresh"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // Then
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isServiceUnavailable());
+        mockMvc.perform(put("/api/schedule/interval")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"interval\":\"FOUR_HOURS\"}"))
+            .andExpect(status().isServiceUnavailable());
+    }
+    
+    @Test
+    @DisplayName("Should pause and resume the scheduler")
+    void shouldPauseAndResume() throws Exception {
+        when(weatherCheckScheduler.isPaused()).thenReturn(true);
+        mockMvc.perform(post("/api/pause"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.paused").value(true));
+        verify(weatherCheckScheduler).pause();
+        
+        mockMvc.perform(post("/api/resume")).andExpect(status().isOk());
+        verify(weatherCheckScheduler).resume();
+    }
+    
+    @Test
+    @DisplayName("Should answer 404 until the first analysis is done")
+    void shouldReportMissingAnalysis() throws Exception {
+        when(weatherPipeline.getLatestAnalysis()).thenReturn(Optional.empty());
+        
+        mockMvc.perform(get("/api/analysis")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.security.auth.x500.X500Principal;
+import java.nio.file.Path;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+class BridgeCertificateVerifierTest {
+
+    private static final String BRIDGE_ID = "001788fffe0fa4e0";
+    
+    @TempDir
+    Path tempDir;
+    
+    private HueProperties hueProperties;
+    private BridgeCertificateVerifier verifier;
+    
+    @BeforeEach
+    void setUp() {
+        hueProperties = new HueProperties();
+        hueProperties.setCertificatePinFile(tempDir.resolve("pins.properties").toString());
+        verifier = new BridgeCertificateVerifier(hueProperties);
+    }
+    
+    @Test
+    @DisplayName("Should accept only certificates issued to the bridge id")
+    void shouldMatchBridgeId() throws Exception {
+        assertThat(BridgeCertificateVerifier.isIssuedTo(certificate(BRIDGE_ID, 1), "001788FFFE0FA4E0")).isTrue();
+        assertThat(BridgeCertificateVerifier.isIssuedTo(certificate("attacker", 1), BRIDGE_ID)).isFalse();
+        assertThat(BridgeCertificateVerifier.isIssuedTo(certificate("attacker", 1), null)).isTrue();
+    }
+    
+    @Test
+    @DisplayName("Should pin the first certificate and refuse a different one, also after a restart")
+    void shouldPinFirstCertificate() throws Exception {
+        // Given
+        X509Certificate original = certificate(BRIDGE_ID, 1);
+        X509Certificate impostor = certificate(BRIDGE_ID, 2);
+        verifier.verifyPin("primary", original);
+        
+        // When
+        BridgeCertificateVerifier restarted = new BridgeCertificateVerifier(hueProperties);
+        
+        // Then
+        assertThatCode(() -> restarted.verifyPin("primary", original)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> restarted.verifyPin("primary", impostor))
+            .isInstanceOf(CertificateException.class)
+            .hasMessageContaining("pinned");
+        assertThatCode(() -> restarted.verifyPin("upstairs", impostor)).doesNotThrowAnyException();
+    }
+    
+    private static X509Certificate certificate(String commonName, int serial) throws Exception {
+        X509Certificate certificate = mock(X509Certificate.class);
+        when(certificate.getSubjectX500Principal()).thenReturn(new X500Principal("CN=" + commonName + ", O=Philips Hue"));
+        when(certificate.getEncoded()).thenReturn(new byte[]{(byte) serial, 42});
+        return certificate;
+    }
+}
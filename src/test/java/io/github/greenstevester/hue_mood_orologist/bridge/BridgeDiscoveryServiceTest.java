@@ -0,0 +1,97 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.model.DiscoveredBridge;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.RestClient;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BridgeDiscoveryServiceTest {
+
+    @TempDir
+    Path tempDir;
+    
+    private HttpServer bridge;
+    private String bridgeAddress;
+    private HueProperties hueProperties;
+    private BridgeDiscoveryService discoveryService;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        bridge = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        bridge.createContext("/api/0/config", exchange -> {
+            byte[] body = "{\"name\":\"Hue Bridge\",\"bridgeid\":\"001788FFFE000001\",\"apiversion\":\"1.60.0\"}"
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        bridge.start();
+        bridgeAddress = "127.0.0.1:" + bridge.getAddress().getPort();
+        
+        hueProperties = new HueProperties();
+        hueProperties.setDiscoveryCacheFile(tempDir.resolve("bridge.properties").toString());
+        hueProperties.setDiscoveryStrategies(new ArrayList<>());
+        discoveryService = new BridgeDiscoveryService(hueProperties, RestClient.builder());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        bridge.stop(0);
+    }
+    
+    @Test
+    @DisplayName("Should reuse the cached bridge when it still answers with the same identity")
+    void shouldReuseVerifiedCachedBridge() {
+        // Given
+        discoveryService.saveCache(new DiscoveredBridge("001788FFFE000001", bridgeAddress, "mdns"));
+        
+        // When
+        Optional<DiscoveredBridge> discovered = discoveryService.discover();
+        
+        // Then
+        assertThat(discovered).isPresent();
+        assertThat(discovered.get().getIp()).isEqualTo(bridgeAddress);
+        assertThat(discovered.get().getSource()).isEqualTo("cache");
+    }
+    
+    @Test
+    @DisplayName("Should rediscover when a different bridge answers at the cached address")
+    void shouldRejectCachedBridgeWithDifferentIdentity() {
+        // Given
+        discoveryService.saveCache(new DiscoveredBridge("001788FFFE00FFFF", bridgeAddress, "mdns"));
+        
+        // When - no discovery strategies configured
+        Optional<DiscoveredBridge> discovered = discoveryService.discover();
+        
+        // Then
+        assertThat(discovered).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should verify a bridge from its unauthenticated config")
+    void shouldVerifyBridgeFromConfig() {
+        // When
+        Optional<DiscoveredBridge> verified = discoveryService.verify(
+            bridgeAddress, hueProperties.getDiscoveryVerifyTimeout(), "subnet");
+        
+        // Then
+        assertThat(verified).isPresent();
+        assertThat(verified.get().getBridgeId()).isEqualTo("001788FFFE000001");
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@DisabledInNativeImage
+class BridgeRegistryTest {
+    
+    private HueProperties hueProperties;
+    private BridgeRegistry bridgeRegistry;
+    
+    @BeforeEach
+    void setUp() {
+        hueProperties = new HueProperties();
+        bridgeRegistry = new BridgeRegistry(hueProperties, mock(BridgeDiscoveryService.class), RestClient.builder(),
+            mock(BridgeCertificateVerifier.class));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        bridgeRegistry.shutdown();
+    }
+    
+    @Test
+    @DisplayName("Should register the primary bridge when no bridges are listed")
+    void shouldRegisterPrimaryByDefault() {
+        // When
+        bridgeRegistry.registerBridges();
+        
+        // Then
+        assertThat(bridgeRegistry.getBridges())
+            .extracting(HueBridgeConnection::getName)
+            .containsExactly(BridgeRegistry.PRIMARY_BRIDGE);
+    }
+    
+    @Test
+    @DisplayName("Should not look for a primary bridge when only listed bridges are configured")
+    void shouldSkipPrimaryForListedBridges() {
+        // Given
+        hueProperties.getBridges().add(bridge("upstairs", "10.0.0.2"));
+        hueProperties.getBridges().add(bridge("downstairs", "10.0.0.3"));
+        
+        // When
+        bridgeRegistry.registerBridges();
+        
+        // Then
+        assertThat(bridgeRegistry.getBridges())
+            .extracting(HueBridgeConnection::getName)
+            .containsExactly("upstairs", "downstairs");
+        assertThat(bridgeRegistry.getPrimary()).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should register the primary bridge next to the listed ones when its address is set")
+    void shouldRegisterPrimaryWithBridgeIp() {
+        // Given
+        hueProperties.setBridgeIp("10.0.0.1");
+        hueProperties.getBridges().add(bridge("upstairs", "10.0.0.2"));
+        
+        // When
+        bridgeRegistry.registerBridges();
+        
+        // Then
+        assertThat(bridgeRegistry.getBridges())
+            .extracting(HueBridgeConnection::getName)
+            .containsExactly(BridgeRegistry.PRIMARY_BRIDGE, "upstairs");
+    }
+    
+    @Test
+    @DisplayName("Should reject bridges sharing a name, including the primary's")
+    void shouldRejectDuplicateNames() {
+        // Given
+        hueProperties.getBridges().add(bridge("upstairs", "10.0.0.2"));
+        hueProperties.getBridges().add(bridge("upstairs", "10.0.0.3"));
+        
+        // When / Then
+        assertThatThrownBy(() -> bridgeRegistry.registerBridges())
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("'upstairs'");
+        
+        hueProperties.getBridges().clear();
+        hueProperties.getBridges().add(bridge(BridgeRegistry.PRIMARY_BRIDGE, "10.0.0.2"));
+        assertThatThrownBy(() -> bridgeRegistry.registerBridges())
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("'primary'");
+    }
+    
+    private static HueProperties.Bridge bridge(String name, String ip) {
+        HueProperties.Bridge bridge = new HueProperties.Bridge();
+        bridge.setName(name);
+        bridge.setIp(ip);
+        bridge.setApiKey("key-" + name);
+        return bridge;
+    }
+}
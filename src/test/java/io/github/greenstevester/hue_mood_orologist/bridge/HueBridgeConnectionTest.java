@@ -0,0 +1,105 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import io.github.greenstevester.heuvana.v2.Hue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DisabledInNativeImage
+class HueBridgeConnectionTest {
+
+    private Hue hue;
+    private AtomicReference<Optional<Hue>> connectorResult;
+    private Runnable probe;
+    private HueBridgeConnection bridge;
+    
+    @BeforeEach
+    void setUp() {
+        hue = mock(Hue.class);
+        connectorResult = new AtomicReference<>(Optional.of(hue));
+        probe = mock(Runnable.class);
+        bridge = new HueBridgeConnection("primary", connectorResult::get, probe, Runnable::run);
+    }
+    
+    @Test
+    @DisplayName("Should not expose a connection before it is established")
+    void shouldNotExposeConnectionBeforeConnect() {
+        assertThat(bridge.getState()).isEqualTo(HueBridgeConnection.State.DISCONNECTED);
+        assertThat(bridge.getHue()).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should expose the connection once connected")
+    void shouldExposeConnectionOnceConnected() {
+        // When
+        boolean connected = bridge.connect();
+        
+        // Then
+        assertThat(connected).isTrue();
+        assertThat(bridge.getState()).isEqualTo(HueBridgeConnection.State.CONNECTED);
+        assertThat(bridge.getHue()).contains(hue);
+    }
+    
+    @Test
+    @DisplayName("Should count consecutive failures until a connect succeeds")
+    void shouldCountConsecutiveFailures() {
+        // Given
+        connectorResult.set(Optional.empty());
+        
+        // When
+        bridge.connect();
+        bridge.connect();
+        
+        // Then
+        assertThat(bridge.getState()).isEqualTo(HueBridgeConnection.State.FAILED);
+        assertThat(bridge.getConsecutiveFailures()).isEqualTo(2);
+        
+        // When
+        connectorResult.set(Optional.of(hue));
+        bridge.connect();
+        
+        // Then
+        assertThat(bridge.getConsecutiveFailures()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should drop a connection that fails its health check")
+    void shouldDropConnectionFailingHealthCheck() {
+        // Given
+        bridge.connect();
+        doThrow(new RuntimeException("bridge unreachable")).when(probe).run();
+        
+        // When
+        boolean healthy = bridge.healthCheck();
+        
+        // Then
+        assertThat(healthy).isFalse();
+        assertThat(bridge.getState()).isEqualTo(HueBridgeConnection.State.FAILED);
+        assertThat(bridge.getHue()).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should probe the bridge instead of re-reading all of its resources")
+    void shouldProbeInsteadOfRefreshing() {
+        // Given
+        bridge.connect();
+        
+        // When
+        boolean healthy = bridge.healthCheck();
+        
+        // Then
+        assertThat(healthy).isTrue();
+        verify(probe).run();
+        verify(hue, never()).refresh();
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.greenstevester.hue_mood_orologist.bridge;
+
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.heuvana.v2.Hue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+class HueConnectionManagerTest {
+    
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HueConnectionManager manager;
+    
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (manager != null) {
+            manager.stop();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should connect a bridge while another one is stuck connecting")
+    void shouldConnectBridgesIndependently() throws Exception {
+        // Given
+        HueBridgeConnection stuck = new HueBridgeConnection(BridgeRegistry.PRIMARY_BRIDGE, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.empty();
+        }, Runnable::run);
+        HueBridgeConnection upstairs = new HueBridgeConnection("upstairs", () -> Optional.of(mock(Hue.class)), 
+            Runnable::run);
+        BridgeRegistry bridgeRegistry = mock(BridgeRegistry.class);
+        when(bridgeRegistry.getBridges()).thenReturn(List.of(stuck, upstairs));
+        manager = new HueConnectionManager(bridgeRegistry, new HueProperties(), mock(ApplicationEventPublisher.class));
+        
+        // When
+        manager.start();
+        
+        // Then
+        long deadline = System.currentTimeMillis() + 3000;
+        while (upstairs.getState() != HueBridgeConnection.State.CONNECTED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(upstairs.getState()).isEqualTo(HueBridgeConnection.State.CONNECTED);
+        assertThat(stuck.getState()).isNotEqualTo(HueBridgeConnection.State.CONNECTED);
+    }
+}
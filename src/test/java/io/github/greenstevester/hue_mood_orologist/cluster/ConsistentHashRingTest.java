@@ -0,0 +1,54 @@
+package io.github.greenstevester.hue_mood_orologist.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+    
+    private static final List<String> KEYS = IntStream.range(0, 3000).mapToObj(i -> "location:" + i).toList();
+    
+    @Test
+    @DisplayName("Should spread keys roughly evenly over the nodes")
+    void shouldSpreadKeysEvenly() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        
+        // When
+        Map<String, Integer> counts = new HashMap<>();
+        KEYS.forEach(key -> counts.merge(ring.ownerOf(key), 1, Integer::sum));
+        
+        // Then
+        assertThat(counts).containsOnlyKeys("a", "b", "c");
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(700, 1300));
+    }
+    
+    @Test
+    @DisplayName("Should only move the keys of a node that leaves")
+    void shouldMoveOnlyKeysOfLeavingNode() {
+        // Given
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        
+        // When
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b"), 128);
+        
+        // Then
+        for (String key : KEYS) {
+            if (!before.ownerOf(key).equals("c")) {
+                assertThat(after.ownerOf(key)).isEqualTo(before.ownerOf(key));
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Should have no owner when there are no nodes")
+    void shouldHandleEmptyRing() {
+        assertThat(new ConsistentHashRing(List.of(), 128).ownerOf("location:default")).isNull();
+    }
+}
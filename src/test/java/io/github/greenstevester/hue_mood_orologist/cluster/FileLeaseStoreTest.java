@@ -0,0 +1,69 @@
+package io.github.greenstevester.hue_mood_orologist.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileLeaseStoreTest {
+    
+    private static final Duration LEASE = Duration.ofSeconds(15);
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    @DisplayName("Should give a lease to one node until it expires")
+    void shouldHoldLeaseUntilExpiry() throws Exception {
+        // Given
+        FileLeaseStore nodeA = store(NOW);
+        FileLeaseStore nodeB = store(NOW.plusSeconds(5));
+        
+        // When
+        assertThat(nodeA.tryAcquire("bridge-primary", "a")).contains(NOW.plus(LEASE));
+        
+        // Then
+        assertThat(nodeB.tryAcquire("bridge-primary", "b")).isEmpty();
+        assertThat(nodeB.holder("bridge-primary")).contains("a");
+        assertThat(store(NOW.plusSeconds(16)).tryAcquire("bridge-primary", "b")).isPresent();
+    }
+    
+    @Test
+    @DisplayName("Should let the holder renew and release its lease")
+    void shouldRenewAndRelease() throws Exception {
+        // Given
+        store(NOW).tryAcquire("bridge-primary", "a");
+        
+        // When
+        assertThat(store(NOW.plusSeconds(10)).tryAcquire("bridge-primary", "a")).contains(NOW.plusSeconds(25));
+        store(NOW.plusSeconds(10)).release("bridge-primary", "a");
+        
+        // Then
+        assertThat(store(NOW.plusSeconds(11)).tryAcquire("bridge-primary", "b")).isPresent();
+    }
+    
+    @Test
+    @DisplayName("Should list the holders of unexpired leases by prefix")
+    void shouldListLiveMembers() throws Exception {
+        // Given
+        store(NOW).tryAcquire("member-a", "a");
+        store(NOW.plusSeconds(10)).tryAcquire("member-b", "b");
+        store(NOW.plusSeconds(10)).tryAcquire("bridge-primary", "b");
+        
+        // When / Then
+        assertThat(store(NOW.plusSeconds(12)).holders("member-")).containsExactly("a", "b");
+        assertThat(store(NOW.plusSeconds(20)).holders("member-")).containsExactly("b");
+    }
+    
+    private FileLeaseStore store(Instant now) {
+        return new FileLeaseStore(directory, LEASE, Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.greenstevester.hue_mood_orologist.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.github.greenstevester.hue_mood_orologist.config.ClusterProperties;
+import io.github.greenstevester.hue_mood_orologist.model.HourlyData;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SharedForecastStoreTest {
+    
+    private static final String LOCATION = "52.52,13.41";
+    
+    @TempDir
+    Path directory;
+    
+    private SharedForecastStore store;
+    
+    @BeforeEach
+    void setUp() {
+        ClusterProperties clusterProperties = new ClusterProperties();
+        clusterProperties.setEnabled(true);
+        clusterProperties.setDirectory(directory.toString());
+        clusterProperties.setForecastWait(Duration.ZERO);
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        store = new SharedForecastStore(clusterProperties, objectMapper);
+    }
+    
+    @Test
+    @DisplayName("Should hand a published forecast to the other instances as JSON")
+    void shouldShareForecastAsJson() throws Exception {
+        // Given
+        Instant before = Instant.now();
+        WeatherResponse response = new WeatherResponse();
+        response.setTimezone("Europe/Berlin");
+        HourlyData hourly = new HourlyData();
+        hourly.setTemperature2m(List.of(3.5, 2.0));
+        response.setHourly(hourly);
+        
+        // When
+        store.publish(LOCATION, response);
+        
+        // Then
+        assertThat(store.await(LOCATION, before)).hasValueSatisfying(shared -> {
+            assertThat(shared.getTimezone()).isEqualTo("Europe/Berlin");
+            assertThat(shared.getHourly().getTemperature2m()).containsExactly(3.5, 2.0);
+        });
+        try (var files = Files.list(directory.resolve("forecasts"))) {
+            assertThat(files).singleElement()
+                .satisfies(file -> assertThat(Files.readString(file)).startsWith("{"));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should ignore a shared forecast that isn't JSON")
+    void shouldIgnoreSerializedObjects() throws Exception {
+        // Given - a Java-serialized object where a forecast should be
+        store.publish(LOCATION, new WeatherResponse());
+        Path file;
+        try (var files = Files.list(directory.resolve("forecasts"))) {
+            file = files.findFirst().orElseThrow();
+        }
+        try (OutputStream out = Files.newOutputStream(file);
+             ObjectOutputStream objects = new ObjectOutputStream(out)) {
+            objects.writeObject(new ArrayList<>(List.of("not a forecast")));
+        }
+        
+        // When / Then
+        assertThat(store.await(LOCATION, Instant.EPOCH)).isEmpty();
+    }
+}
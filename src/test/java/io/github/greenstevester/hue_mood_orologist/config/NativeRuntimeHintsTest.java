@@ -0,0 +1,55 @@
+package io.github.greenstevester.hue_mood_orologist.config;
+
+import io.github.greenstevester.hue_mood_orologist.model.HourlyData;
+import io.github.greenstevester.hue_mood_orologist.model.NupnpBridge;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherResponse;
+import io.github.greenstevester.heuvana.v2.Light;
+import io.github.greenstevester.heuvana.v2.UpdateState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeRuntimeHintsTest {
+    
+    private final RuntimeHints hints = new RuntimeHints();
+    
+    @BeforeEach
+    void setUp() {
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+    
+    @Test
+    @DisplayName("Should register the JSON types bound by the REST clients")
+    void shouldRegisterJsonBindings() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(WeatherResponse.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(HourlyData.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(NupnpBridge.class)).accepts(hints);
+    }
+    
+    @Test
+    @DisplayName("Should register the huevana classes the bridge's JSON is bound to")
+    void shouldRegisterHuevanaBindings() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(Light.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(UpdateState.class)).accepts(hints);
+    }
+    
+    @Test
+    @DisplayName("Should register the configuration properties")
+    void shouldRegisterConfigurationProperties() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(ScheduleProperties.Schedule.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(HueProperties.Bridge.class)).accepts(hints);
+    }
+    
+    @Test
+    @DisplayName("Should register shared forecasts for JSON binding, not Java serialization")
+    void shouldRegisterSharedForecastBinding() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of(
+            "io.github.greenstevester.hue_mood_orologist.cluster.SharedForecastStore$SharedForecast"))).accepts(hints);
+        assertThat(RuntimeHintsPredicates.serialization().onType(WeatherResponse.class)).rejects(hints);
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.greenstevester.hue_mood_orologist.dispatch;
+
+import io.github.greenstevester.hue_mood_orologist.model.GroupedLightPlan;
+import io.github.greenstevester.heuvana.v2.Group;
+import io.github.greenstevester.heuvana.v2.Light;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+class GroupedLightPlannerTest {
+
+    private GroupedLightPlanner planner;
+    private Light kitchen1;
+    private Light kitchen2;
+    private Light bedroom1;
+    private Light bedroom2;
+    
+    @BeforeEach
+    void setUp() {
+        planner = new GroupedLightPlanner();
+        kitchen1 = mockLight();
+        kitchen2 = mockLight();
+        bedroom1 = mockLight();
+        bedroom2 = mockLight();
+    }
+    
+    @Test
+    @DisplayName("Should use one grouped command for a fully targeted room")
+    void shouldGroupFullyTargetedRoom() {
+        // Given
+        Group kitchen = mockGroup("Kitchen", kitchen1, kitchen2);
+        Map<UUID, Light> targets = lights(kitchen1, kitchen2, bedroom1);
+        
+        // When
+        GroupedLightPlan plan = planner.plan(targets, List.of(kitchen));
+        
+        // Then
+        assertThat(plan.getGroups()).containsExactly(kitchen);
+        assertThat(plan.getRemainingLights()).containsOnlyKeys(bedroom1.getId());
+        assertThat(plan.commandCount()).isEqualTo(2);
+    }
+    
+    @Test
+    @DisplayName("Should not group a partially targeted room")
+    void shouldNotGroupPartiallyTargetedRoom() {
+        // Given
+        Group bedroom = mockGroup("Bedroom", bedroom1, bedroom2);
+        Map<UUID, Light> targets = lights(kitchen1, bedroom1);
+        
+        // When
+        GroupedLightPlan plan = planner.plan(targets, List.of(bedroom));
+        
+        // Then
+        assertThat(plan.getGroups()).isEmpty();
+        assertThat(plan.getRemainingLights()).hasSize(2);
+    }
+    
+    @Test
+    @DisplayName("Should prefer the larger zone and never cover a light twice")
+    void shouldPreferLargerZoneWithoutOverlap() {
+        // Given
+        Group kitchen = mockGroup("Kitchen", kitchen1, kitchen2);
+        Group downstairs = mockGroup("Downstairs", kitchen1, kitchen2, bedroom1);
+        Map<UUID, Light> targets = lights(kitchen1, kitchen2, bedroom1, bedroom2);
+        
+        // When
+        GroupedLightPlan plan = planner.plan(targets, List.of(kitchen, downstairs));
+        
+        // Then
+        assertThat(plan.getGroups()).containsExactly(downstairs);
+        assertThat(plan.getRemainingLights()).containsOnlyKeys(bedroom2.getId());
+    }
+    
+    @Test
+    @DisplayName("Should ignore single-light groups")
+    void shouldIgnoreSingleLightGroups() {
+        // Given
+        Group lamp = mockGroup("Lamp", kitchen1);
+        Map<UUID, Light> targets = lights(kitchen1);
+        
+        // When
+        GroupedLightPlan plan = planner.plan(targets, List.of(lamp));
+        
+        // Then
+        assertThat(plan.getGroups()).isEmpty();
+        assertThat(plan.getRemainingLights()).hasSize(1);
+    }
+    
+    private Light mockLight() {
+        Light light = mock(Light.class);
+        when(light.getId()).thenReturn(UUID.randomUUID());
+        return light;
+    }
+    
+    private Group mockGroup(String name, Light... members) {
+        Group group = mock(Group.class);
+        when(group.getName()).thenReturn(name);
+        when(group.getLights()).thenReturn(List.of(members));
+        return group;
+    }
+    
+    private Map<UUID, Light> lights(Light... lights) {
+        Map<UUID, Light> map = new LinkedHashMap<>();
+        for (Light light : lights) {
+            map.put(light.getId(), light);
+        }
+        return map;
+    }
+}
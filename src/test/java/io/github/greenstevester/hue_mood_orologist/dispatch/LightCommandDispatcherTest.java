@@ -0,0 +1,240 @@
+package io.github.greenstevester.hue_mood_orologist.dispatch;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueClipClient;
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.fakebridge.FakeHueBridge;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.v2.Hue;
+import io.github.greenstevester.heuvana.v2.Light;
+import io.github.greenstevester.heuvana.v2.UpdateState;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClient;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the dispatcher and the CLIP client against {@link FakeHueBridge}s
+ */
+@DisabledInNativeImage
+class LightCommandDispatcherTest {
+    
+    private static final LightCommand COLD = LightCommand.on(new int[]{255, 140, 0}, "cold", null);
+    
+    @TempDir
+    Path tempDir;
+    
+    private final List<FakeHueBridge> fakeBridges = new ArrayList<>();
+    private final List<ExecutorService> lanes = new ArrayList<>();
+    private HueProperties hueProperties;
+    private BridgeRegistry bridgeRegistry;
+    private LightCommandDispatcher dispatcher;
+    
+    @BeforeEach
+    void setUp() {
+        hueProperties = new HueProperties();
+        hueProperties.setShadowStateFile(tempDir.resolve("shadow.properties").toString());
+        hueProperties.setRateLimitBackoff(Duration.ofMillis(100));
+        bridgeRegistry = mock(BridgeRegistry.class);
+        dispatcher = new LightCommandDispatcher(hueProperties, new GroupedLightPlanner(),
+            new LightShadowStore(hueProperties), bridgeRegistry, ObservationRegistry.NOOP);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        lanes.forEach(ExecutorService::shutdownNow);
+        fakeBridges.forEach(FakeHueBridge::close);
+    }
+    
+    @Test
+    @DisplayName("Should send one command per light, each bridge on its own lane")
+    void shouldFanOutToEveryLightOfEveryBridge() {
+        // Given
+        FakeHueBridge upstairs = startBridge(FakeHueBridge.builder().lights(8).latency(Duration.ofMillis(20)));
+        FakeHueBridge downstairs = startBridge(FakeHueBridge.builder().lights(6).latency(Duration.ofMillis(20)));
+        Hue upstairsHue = mock(Hue.class);
+        Hue downstairsHue = mock(Hue.class);
+        
+        // When
+        List<LightOutcome> outcomes = new ArrayList<>();
+        var upstairsDone = dispatcher.dispatch(connect("upstairs", upstairs), upstairsHue, lights(upstairs), COLD);
+        var downstairsDone = dispatcher.dispatch(connect("downstairs", downstairs), downstairsHue,
+            lights(downstairs), COLD);
+        outcomes.addAll(upstairsDone.orTimeout(10, TimeUnit.SECONDS).join());
+        outcomes.addAll(downstairsDone.orTimeout(10, TimeUnit.SECONDS).join());
+        
+        // Then
+        assertThat(outcomes).hasSize(14)
+            .allMatch(outcome -> outcome.getStatus() == LightOutcome.Status.SUCCESS);
+        assertThat(upstairs.getCommands("light"))
+            .extracting(FakeHueBridge.RecordedCommand::path)
+            .containsExactlyInAnyOrderElementsOf(paths(upstairs));
+        assertThat(downstairs.getCommands("light"))
+            .extracting(FakeHueBridge.RecordedCommand::path)
+            .containsExactlyInAnyOrderElementsOf(paths(downstairs));
+        assertThat(upstairs.getCommands("light"))
+            .allMatch(command -> command.body().contains("\"xy\""));
+    }
+    
+    @Test
+    @DisplayName("Should back off and retry lights the bridge rate-limits")
+    void shouldRetryRateLimitedLights() {
+        // Given
+        hueProperties.setRateLimitRetries(5);
+        FakeHueBridge bridge = startBridge(FakeHueBridge.builder().lights(8).lightCommandsPerSecond(5));
+        
+        // When
+        List<LightOutcome> outcomes = dispatcher.dispatch(connect("primary", bridge), mock(Hue.class),
+            lights(bridge), COLD).orTimeout(20, TimeUnit.SECONDS).join();
+        
+        // Then
+        assertThat(outcomes).hasSize(8)
+            .allMatch(outcome -> outcome.getStatus() == LightOutcome.Status.SUCCESS);
+        assertThat(bridge.countByStatus(429)).isPositive();
+        assertThat(bridge.getCommands("light"))
+            .filteredOn(command -> command.status() == 200)
+            .extracting(FakeHueBridge.RecordedCommand::path)
+            .containsExactlyInAnyOrderElementsOf(paths(bridge));
+    }
+    
+    @Test
+    @DisplayName("Should back off and retry lights rate-limited on the library's setState path")
+    void shouldRetryRateLimitedLibraryCalls() {
+        // Given - a named color has no xy, so it goes through Light.setState
+        hueProperties.setRateLimitRetries(5);
+        FakeHueBridge bridge = startBridge(FakeHueBridge.builder().lights(8).lightCommandsPerSecond(5));
+        LightCommand purple = LightCommand.on(Color.of(221, 160, 221), "rain");
+        
+        // When
+        List<LightOutcome> outcomes = dispatcher.dispatch(connect("primary", bridge), mock(Hue.class),
+            libraryLights(bridge), purple).orTimeout(20, TimeUnit.SECONDS).join();
+        
+        // Then
+        assertThat(outcomes).hasSize(8)
+            .allMatch(outcome -> outcome.getStatus() == LightOutcome.Status.SUCCESS);
+        assertThat(bridge.countByStatus(429)).isPositive();
+        assertThat(bridge.getCommands("light"))
+            .filteredOn(command -> command.status() == 200)
+            .extracting(FakeHueBridge.RecordedCommand::path)
+            .containsExactlyInAnyOrderElementsOf(paths(bridge));
+    }
+    
+    @Test
+    @DisplayName("Should give up on a light once the bridge stays unavailable past the retries")
+    void shouldFailLightsAfterRetriesOnServiceUnavailable() {
+        // Given
+        hueProperties.setRateLimitRetries(2);
+        hueProperties.setRateLimitBackoff(Duration.ofMillis(10));
+        FakeHueBridge bridge = startBridge(FakeHueBridge.builder().lights(3).serviceUnavailableRate(1.0));
+        
+        // When
+        List<LightOutcome> outcomes = dispatcher.dispatch(connect("primary", bridge), mock(Hue.class),
+            lights(bridge), COLD).orTimeout(10, TimeUnit.SECONDS).join();
+        
+        // Then - the first attempt and two retries per light
+        assertThat(outcomes).hasSize(3)
+            .allMatch(outcome -> outcome.getStatus() == LightOutcome.Status.FAILED);
+        assertThat(bridge.countByStatus(503)).isEqualTo(9);
+    }
+    
+    @Test
+    @DisplayName("Should time out lights still being retried at the cycle deadline")
+    void shouldTimeOutRetriesAtCycleDeadline() {
+        // Given
+        hueProperties.setRateLimitRetries(10);
+        hueProperties.setRateLimitBackoff(Duration.ofMillis(200));
+        hueProperties.setCycleDeadline(Duration.ofMillis(500));
+        FakeHueBridge bridge = startBridge(FakeHueBridge.builder().lights(2).serviceUnavailableRate(1.0));
+        
+        // When
+        List<LightOutcome> outcomes = dispatcher.dispatch(connect("primary", bridge), mock(Hue.class),
+            lights(bridge), COLD).orTimeout(10, TimeUnit.SECONDS).join();
+        
+        // Then
+        assertThat(outcomes).hasSize(2)
+            .allMatch(outcome -> outcome.getStatus() == LightOutcome.Status.TIMED_OUT);
+    }
+    
+    private FakeHueBridge startBridge(FakeHueBridge.Settings settings) {
+        FakeHueBridge bridge = settings.build().start();
+        fakeBridges.add(bridge);
+        return bridge;
+    }
+    
+    private HueBridgeConnection connect(String name, FakeHueBridge bridge) {
+        ExecutorService lane = Executors.newSingleThreadExecutor();
+        lanes.add(lane);
+        HueClipClient clipClient = new HueClipClient(RestClient.builder(), bridge.getBaseUrl(),
+            FakeHueBridge.API_KEY, Duration.ofSeconds(2));
+        when(bridgeRegistry.getClipClient(name)).thenReturn(Optional.of(clipClient));
+        return new HueBridgeConnection(name, Optional::empty, lane);
+    }
+    
+    private static Map<UUID, Light> lights(FakeHueBridge bridge) {
+        Map<UUID, Light> lights = new LinkedHashMap<>();
+        for (UUID lightId : bridge.getLightIds()) {
+            Light light = mock(Light.class);
+            when(light.getId()).thenReturn(lightId);
+            when(light.getName()).thenReturn("Light " + lightId);
+            lights.put(lightId, light);
+        }
+        return lights;
+    }
+    
+    /**
+     * Lights whose setState talks to the bridge the way the Hue library
+     * does, reporting a refused request as a plain exception with its status
+     */
+    private static Map<UUID, Light> libraryLights(FakeHueBridge bridge) {
+        RestClient restClient = RestClient.builder()
+            .baseUrl(bridge.getBaseUrl())
+            .defaultHeader("hue-application-key", FakeHueBridge.API_KEY)
+            .build();
+        Map<UUID, Light> lights = lights(bridge);
+        lights.forEach((lightId, light) -> doAnswer(invocation -> {
+            try {
+                restClient.put()
+                    .uri("/clip/v2/resource/light/{id}", lightId)
+                    .body(Map.of("on", Map.of("on", true)))
+                    .retrieve()
+                    .toBodilessEntity();
+            } catch (HttpStatusCodeException e) {
+                throw new IllegalStateException("Bridge request failed with status " + e.getStatusCode().value());
+            }
+            return null;
+        }).when(light).setState(any(UpdateState.class)));
+        return lights;
+    }
+    
+    private static List<String> paths(FakeHueBridge bridge) {
+        return bridge.getLightIds().stream()
+            .map(lightId -> "/clip/v2/resource/light/" + lightId)
+            .toList();
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.greenstevester.hue_mood_orologist.dispatch;
+
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.v2.Hue;
+import io.github.greenstevester.heuvana.v2.Light;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisabledInNativeImage
+class LightCommandMailboxTest {
+
+    private LightCommandMailbox mailbox;
+    private Hue hue;
+    private Light light;
+    private final UUID lightId = UUID.randomUUID();
+    
+    @BeforeEach
+    void setUp() {
+        mailbox = new LightCommandMailbox();
+        hue = mock(Hue.class);
+        light = mock(Light.class);
+    }
+    
+    @Test
+    @DisplayName("Should keep only the latest pending command per light")
+    void shouldKeepOnlyLatestCommand() {
+        // Given
+        LightCommand rain = LightCommand.on(Color.of(221, 160, 221), "rain");
+        LightCommand override = LightCommand.on(Color.of(255, 0, 0), "override");
+        
+        // When
+        mailbox.post(lightId, light, hue, rain);
+        mailbox.post(lightId, light, hue, override);
+        List<LightCommandMailbox.PendingCommand> taken = mailbox.takeAll();
+        
+        // Then
+        assertThat(taken).hasSize(1);
+        assertThat(taken.get(0).command().getReason()).isEqualTo("override");
+        assertThat(mailbox.getSupersededCount()).isEqualTo(1);
+        assertThat(mailbox.size()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should allow only one drainer at a time")
+    void shouldAllowOnlyOneDrainer() {
+        // When
+        boolean first = mailbox.tryStartDrain();
+        boolean second = mailbox.tryStartDrain();
+        
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should report commands posted while draining")
+    void shouldReportCommandsPostedWhileDraining() {
+        // Given
+        mailbox.tryStartDrain();
+        mailbox.takeAll();
+        
+        // When
+        mailbox.post(lightId, light, hue, LightCommand.off("pause"));
+        
+        // Then
+        assertThat(mailbox.finishDrain()).isTrue();
+        assertThat(mailbox.tryStartDrain()).isTrue();
+    }
+    
+    @Test
+    @DisplayName("Should complete a superseded command as skipped")
+    void shouldCompleteSupersededCommandAsSkipped() {
+        // Given
+        CompletableFuture<LightOutcome> rain = 
+            mailbox.post(lightId, light, hue, LightCommand.on(Color.of(221, 160, 221), "rain"));
+        
+        // When
+        CompletableFuture<LightOutcome> override = mailbox.post(lightId, light, hue, LightCommand.off("override"));
+        
+        // Then
+        assertThat(rain).isCompleted();
+        assertThat(rain.join().getStatus()).isEqualTo(LightOutcome.Status.SKIPPED);
+        assertThat(rain.join().getDetail()).isEqualTo("superseded by override");
+        assertThat(override).isNotDone();
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.greenstevester.hue_mood_orologist.dispatch;
+
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.v2.Light;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+class LightShadowStoreTest {
+
+    @TempDir
+    Path tempDir;
+    
+    private HueProperties hueProperties;
+    private LightShadowStore store;
+    private final UUID lightId = UUID.randomUUID();
+    private final LightCommand purple = LightCommand.on(Color.of(221, 160, 221), "rain");
+    
+    @BeforeEach
+    void setUp() {
+        hueProperties = new HueProperties();
+        hueProperties.setShadowStateFile(tempDir.resolve("shadow.properties").toString());
+        store = new LightShadowStore(hueProperties);
+        store.load();
+    }
+    
+    @Test
+    @DisplayName("Should report a recorded command as applied regardless of reason")
+    void shouldReportRecordedCommandAsApplied() {
+        // When
+        store.recordApplied(lightId, purple);
+        
+        // Then
+        assertThat(store.isApplied(lightId, LightCommand.on(Color.of(221, 160, 221), "showers"))).isTrue();
+        assertThat(store.isApplied(lightId, LightCommand.on(Color.of(255, 255, 0), "sunshine"))).isFalse();
+        assertThat(store.isApplied(UUID.randomUUID(), purple)).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should restore shadow state after a restart")
+    void shouldRestoreShadowStateAfterRestart() {
+        // Given
+        store.recordApplied(lightId, purple);
+        store.flush();
+        
+        // When
+        LightShadowStore restarted = new LightShadowStore(hueProperties);
+        restarted.load();
+        
+        // Then
+        assertThat(restarted.isApplied(lightId, purple)).isTrue();
+    }
+    
+    @Test
+    @DisplayName("Should drop shadow entries the bridge contradicts")
+    void shouldDropContradictedEntries() {
+        // Given
+        store.recordApplied(lightId, purple);
+        Light switchedOff = mock(Light.class);
+        when(switchedOff.isOn()).thenReturn(false);
+        
+        // When
+        store.reconcile(Map.of(lightId, switchedOff));
+        
+        // Then
+        assertThat(store.isApplied(lightId, purple)).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should treat entries older than the max age as stale")
+    void shouldTreatOldEntriesAsStale() {
+        // Given
+        hueProperties.setShadowStateMaxAge(Duration.ZERO);
+        
+        // When
+        store.recordApplied(lightId, purple);
+        
+        // Then
+        assertThat(store.isApplied(lightId, purple)).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should never skip commands when shadow state is disabled")
+    void shouldNeverSkipWhenDisabled() {
+        // Given
+        hueProperties.setShadowStateEnabled(false);
+        
+        // When
+        store.recordApplied(lightId, purple);
+        
+        // Then
+        assertThat(store.isApplied(lightId, purple)).isFalse();
+    }
+}
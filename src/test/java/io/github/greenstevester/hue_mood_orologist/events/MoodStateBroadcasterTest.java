@@ -0,0 +1,158 @@
+package io.github.greenstevester.hue_mood_orologist.events;
+
+import io.github.greenstevester.hue_mood_orologist.api.EventsController;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.hue_mood_orologist.model.MoodSnapshot;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class MoodStateBroadcasterTest {
+    
+    private final MoodStateBroadcaster broadcaster = new MoodStateBroadcaster();
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new EventsController(broadcaster)).build();
+    
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+    
+    @Test
+    @DisplayName("Should publish a new snapshot version only when something changed")
+    void shouldPublishSnapshotPerChange() {
+        // Given
+        UUID lightId = UUID.randomUUID();
+        LightCommand command = new LightCommand(true, "blue", null, "rain", null, null);
+        CycleResult cycle = new CycleResult("rain", Instant.now(), Duration.ZERO, 
+            List.of(new LightOutcome(lightId, "Desk", LightOutcome.Status.SUCCESS, Duration.ZERO, null)));
+        
+        // When
+        broadcaster.publishAnalysis(analysis("rain"));
+        broadcaster.publishLights("rain", command, cycle);
+        broadcaster.publishLights("rain", command, cycle);
+        
+        // Then
+        MoodSnapshot snapshot = broadcaster.getSnapshot();
+        assertThat(snapshot.getVersion()).isEqualTo(2);
+        assertThat(snapshot.getWeatherCondition()).isEqualTo("rain");
+        assertThat(snapshot.getLights()).containsOnlyKeys(lightId);
+        assertThat(snapshot.getLights().get(lightId).getColorKey()).isEqualTo("blue");
+    }
+    
+    @Test
+    @DisplayName("Should not record lights that failed to update")
+    void shouldIgnoreFailedLights() {
+        // Given
+        CycleResult cycle = new CycleResult("rain", Instant.now(), Duration.ZERO, List.of(
+            new LightOutcome(UUID.randomUUID(), "Desk", LightOutcome.Status.FAILED, Duration.ZERO, "unreachable")));
+        
+        // When
+        broadcaster.publishLights("rain", new LightCommand(true, "blue", null, "rain", null, null), cycle);
+        
+        // Then
+        assertThat(broadcaster.getSnapshot().getVersion()).isZero();
+        assertThat(broadcaster.getSnapshot().getLights()).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should stream the current snapshot to a late client, then every change")
+    void shouldStreamSnapshotThenChanges() throws Exception {
+        // Given
+        broadcaster.start();
+        broadcaster.publishAnalysis(analysis("rain"));
+        
+        // When
+        MockHttpServletResponse response = mockMvc.perform(get("/api/events"))
+            .andExpect(request().asyncStarted())
+            .andReturn().getResponse();
+        awaitContent(response, "event:snapshot");
+        broadcaster.publishAnalysis(analysis("snow"));
+        
+        // Then
+        String content = awaitContent(response, "event:condition");
+        assertThat(content).contains("id:1", "\"weatherCondition\":\"rain\"");
+        assertThat(content.indexOf("event:snapshot")).isLessThan(content.indexOf("event:analysis"));
+        assertThat(content).contains("\"previous\":\"rain\"", "\"current\":\"snow\"");
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("Should drop a client that falls behind without holding up the others")
+    void shouldDropSlowClient() throws Exception {
+        // Given
+        broadcaster.start();
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<String> fastEvents = new LinkedBlockingQueue<>();
+        SseEmitter slow = new SseEmitter(0L) {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException("interrupted", e);
+                }
+            }
+        };
+        SseEmitter fast = new SseEmitter(0L) {
+            @Override
+            public void send(SseEventBuilder builder) {
+                builder.build().forEach(part -> fastEvents.add(String.valueOf(part.getData())));
+            }
+        };
+        broadcaster.subscribe(slow);
+        broadcaster.subscribe(fast);
+        
+        // When - each update is an analysis and a condition change
+        for (int i = 0; i <= MoodStateBroadcaster.CLIENT_BACKLOG / 2; i++) {
+            broadcaster.publishAnalysis(analysis(i % 2 == 0 ? "rain" : "snow"));
+            awaitEvent(fastEvents, broadcaster.getSnapshot().getVersion());
+        }
+        
+        // Then
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+        release.countDown();
+    }
+    
+    private static void awaitEvent(BlockingQueue<String> events, long version) throws Exception {
+        String id = "id:" + version + "\n";
+        long deadline = System.currentTimeMillis() + 2000;
+        while (events.stream().noneMatch(part -> part.contains(id)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(events).anyMatch(part -> part.contains(id));
+    }
+    
+    private static WeatherAnalysis analysis(String condition) {
+        return WeatherAnalysis.builder().weatherCondition(condition).summary(condition).build();
+    }
+    
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!response.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(response.getContentAsString()).contains(expected);
+        return response.getContentAsString();
+    }
+}
@@ -0,0 +1,461 @@
+package io.github.greenstevester.hue_mood_orologist.fakebridge;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Embedded stand-in for a Hue bridge serving the CLIP v2 resource API
+ * (light, room, zone, grouped_light, scene and the event stream) over plain
+ * HTTP. Simulates per-request latency, the bridge's per-second command rate
+ * limits and injected 503s, and records every command it receives, so
+ * fan-out and rate-limit behavior can be measured without hardware.
+ *
+ * <pre>
+ *   try (FakeHueBridge bridge = FakeHueBridge.builder().lights(200).rooms(10).build().start()) {
+ *       ... bridge.getBaseUrl() + "/clip/v2/resource/light"
+ *   }
+ * </pre>
+ */
+public class FakeHueBridge implements AutoCloseable {
+    
+    public static final String API_KEY = "fake-bridge-api-key";
+    public static final String BRIDGE_ID = "001788FFFE0FA4E0";
+    private static final String RESOURCE_PATH = "/clip/v2/resource/";
+    
+    public record RecordedCommand(Instant receivedAt, String method, String path, String body, int status) {
+    }
+    
+    public record Light(UUID id, UUID ownerId, String name) {
+    }
+    
+    public record Group(UUID id, String type, String name, List<UUID> lightIds, UUID groupedLightId) {
+    }
+    
+    public record Scene(UUID id, String name, UUID groupId, String groupType, String body) {
+    }
+    
+    private final Settings settings;
+    private final Map<UUID, Light> lights = new LinkedHashMap<>();
+    private final Map<UUID, Group> groups = new LinkedHashMap<>();
+    private final Map<UUID, Scene> scenes = new ConcurrentHashMap<>();
+    private final List<RecordedCommand> commands = new CopyOnWriteArrayList<>();
+    private final List<BlockingQueue<String>> eventSubscribers = new CopyOnWriteArrayList<>();
+    private final RateLimiter lightLimiter;
+    private final RateLimiter groupLimiter;
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    public static final class Settings {
+        private int lightCount = 10;
+        private int roomCount = 2;
+        private int zoneCount = 1;
+        private Duration latency = Duration.ZERO;
+        private int lightCommandsPerSecond = 0;
+        private int groupCommandsPerSecond = 0;
+        private double serviceUnavailableRate = 0.0;
+        
+        public Settings lights(int count) {
+            this.lightCount = count;
+            return this;
+        }
+        
+        public Settings rooms(int count) {
+            this.roomCount = count;
+            return this;
+        }
+        
+        public Settings zones(int count) {
+            this.zoneCount = count;
+            return this;
+        }
+        
+        public Settings latency(Duration latency) {
+            this.latency = latency;
+            return this;
+        }
+        
+        /**
+         * Commands per second before the bridge answers 429; 0 means unlimited.
+         * Real bridges manage about 10 light and 1 grouped_light command per second.
+         */
+        public Settings lightCommandsPerSecond(int limit) {
+            this.lightCommandsPerSecond = limit;
+            return this;
+        }
+        
+        public Settings groupCommandsPerSecond(int limit) {
+            this.groupCommandsPerSecond = limit;
+            return this;
+        }
+        
+        /**
+         * Fraction of requests answered with 503
+         */
+        public Settings serviceUnavailableRate(double rate) {
+            this.serviceUnavailableRate = rate;
+            return this;
+        }
+        
+        public FakeHueBridge build() {
+            return new FakeHueBridge(this);
+        }
+    }
+    
+    public static Settings builder() {
+        return new Settings();
+    }
+    
+    private FakeHueBridge(Settings settings) {
+        this.settings = settings;
+        this.lightLimiter = new RateLimiter(settings.lightCommandsPerSecond);
+        this.groupLimiter = new RateLimiter(settings.groupCommandsPerSecond);
+        
+        List<UUID> lightIds = new ArrayList<>();
+        for (int i = 1; i <= settings.lightCount; i++) {
+            Light light = new Light(UUID.randomUUID(), UUID.randomUUID(), "Light " + i);
+            lights.put(light.id(), light);
+            lightIds.add(light.id());
+        }
+        
+        // Rooms split the lights evenly; zones span the first half of the lights
+        for (int room = 0; room < settings.roomCount; room++) {
+            List<UUID> members = new ArrayList<>();
+            for (int i = room; i < lightIds.size(); i += settings.roomCount) {
+                members.add(lightIds.get(i));
+            }
+            addGroup("room", "Room " + (room + 1), members);
+        }
+        for (int zone = 0; zone < settings.zoneCount; zone++) {
+            addGroup("zone", "Zone " + (zone + 1), lightIds.subList(0, lightIds.size() / 2));
+        }
+    }
+    
+    private void addGroup(String type, String name, List<UUID> members) {
+        Group group = new Group(UUID.randomUUID(), type, name, List.copyOf(members), UUID.randomUUID());
+        groups.put(group.id(), group);
+    }
+    
+    public FakeHueBridge start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start fake bridge", e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/0/config", this::handleConfig);
+        server.createContext(RESOURCE_PATH, this::handleResource);
+        server.createContext("/eventstream/clip/v2", this::handleEventStream);
+        server.start();
+        return this;
+    }
+    
+    @Override
+    public void close() {
+        eventSubscribers.forEach(queue -> queue.offer(""));
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+    
+    public String getBaseUrl() {
+        return "http://" + getAddress();
+    }
+    
+    /**
+     * host:port, usable wherever a bridge IP is expected
+     */
+    public String getAddress() {
+        return server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+    
+    public List<RecordedCommand> getCommands() {
+        return commands;
+    }
+    
+    public List<RecordedCommand> getCommands(String resourceType) {
+        return commands.stream()
+            .filter(command -> command.path().startsWith(RESOURCE_PATH + resourceType))
+            .toList();
+    }
+    
+    public long countByStatus(int status) {
+        return commands.stream().filter(command -> command.status() == status).count();
+    }
+    
+    public void clearCommands() {
+        commands.clear();
+    }
+    
+    public List<UUID> getLightIds() {
+        return List.copyOf(lights.keySet());
+    }
+    
+    public List<UUID> getGroupedLightIds() {
+        return groups.values().stream().map(Group::groupedLightId).toList();
+    }
+    
+    public List<UUID> getRoomIds() {
+        return groups.values().stream().filter(group -> group.type().equals("room")).map(Group::id).toList();
+    }
+    
+    public Map<UUID, Scene> getScenes() {
+        return scenes;
+    }
+    
+    private void handleConfig(HttpExchange exchange) throws IOException {
+        respond(exchange, 200, "{\"name\":\"Fake Hue Bridge\",\"bridgeid\":\"" + BRIDGE_ID 
+            + "\",\"modelid\":\"BSB002\",\"apiversion\":\"1.60.0\"}");
+    }
+    
+    private void handleResource(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        
+        simulateLatency();
+        
+        if (!API_KEY.equals(exchange.getRequestHeaders().getFirst("hue-application-key"))) {
+            reply(exchange, method, path, body, 403, error("unauthorized user"));
+            return;
+        }
+        if (ThreadLocalRandom.current().nextDouble() < settings.serviceUnavailableRate) {
+            reply(exchange, method, path, body, 503, error("service unavailable"));
+            return;
+        }
+        
+        String[] segments = path.substring(RESOURCE_PATH.length()).split("/");
+        String type = segments[0];
+        Optional<UUID> id = segments.length > 1 ? Optional.of(UUID.fromString(segments[1])) : Optional.empty();
+        
+        if (method.equals("GET")) {
+            reply(exchange, method, path, body, 200, data(list(type, id)));
+            return;
+        }
+        
+        RateLimiter limiter = type.equals("grouped_light") ? groupLimiter : lightLimiter;
+        if (!limiter.tryAcquire()) {
+            reply(exchange, method, path, body, 429, error("too many requests"));
+            return;
+        }
+        
+        if (method.equals("POST") && type.equals("scene")) {
+            UUID sceneId = UUID.randomUUID();
+            scenes.put(sceneId, new Scene(sceneId, extract(body, "name"), 
+                UUID.fromString(extract(body, "rid")), extract(body, "rtype"), body));
+            reply(exchange, method, path, body, 200, data(List.of(reference(sceneId, "scene"))));
+            return;
+        }
+        if (method.equals("PUT") && id.isPresent() && knows(type, id.get())) {
+            if (type.equals("scene") && !body.contains("\"recall\"")) {
+                Scene scene = scenes.get(id.get());
+                scenes.put(scene.id(), new Scene(scene.id(), scene.name(), scene.groupId(), scene.groupType(), body));
+            }
+            publishEvent(type, id.get(), body);
+            reply(exchange, method, path, body, 200, data(List.of(reference(id.get(), type))));
+            return;
+        }
+        if (method.equals("DELETE") && id.isPresent() && type.equals("scene") && scenes.remove(id.get()) != null) {
+            reply(exchange, method, path, body, 200, data(List.of(reference(id.get(), type))));
+            return;
+        }
+        reply(exchange, method, path, body, 404, error("resource not found"));
+    }
+    
+    private void handleEventStream(HttpExchange exchange) throws IOException {
+        if (!API_KEY.equals(exchange.getRequestHeaders().getFirst("hue-application-key"))) {
+            respond(exchange, 403, error("unauthorized user"));
+            return;
+        }
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        eventSubscribers.add(events);
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(": hi\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            while (true) {
+                String event = events.poll(30, TimeUnit.SECONDS);
+                if (event == null || event.isEmpty()) {
+                    return;
+                }
+                out.write(event.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            eventSubscribers.remove(events);
+        }
+    }
+    
+    private void publishEvent(String type, UUID id, String body) {
+        if (eventSubscribers.isEmpty()) {
+            return;
+        }
+        String event = "id: " + Instant.now().getEpochSecond() + ":0\ndata: [{\"creationtime\":\"" + Instant.now()
+            + "\",\"id\":\"" + UUID.randomUUID() + "\",\"type\":\"update\",\"data\":[{\"id\":\"" + id 
+            + "\",\"type\":\"" + type + "\",\"update\":" + (body.isBlank() ? "{}" : body) + "}]}]\n\n";
+        eventSubscribers.forEach(queue -> queue.offer(event));
+    }
+    
+    private List<String> list(String type, Optional<UUID> id) {
+        List<String> resources = switch (type) {
+            case "light" -> lights.values().stream().map(this::lightJson).toList();
+            case "room", "zone" -> groups.values().stream()
+                .filter(group -> group.type().equals(type))
+                .map(this::groupJson).toList();
+            case "grouped_light" -> groups.values().stream().map(this::groupedLightJson).toList();
+            case "scene" -> scenes.values().stream().map(this::sceneJson).toList();
+            default -> List.of();
+        };
+        return id.map(uuid -> resources.stream().filter(json -> json.contains("\"id\":\"" + uuid + "\"")).toList())
+            .orElse(resources);
+    }
+    
+    private boolean knows(String type, UUID id) {
+        return switch (type) {
+            case "light" -> lights.containsKey(id);
+            case "room", "zone" -> groups.containsKey(id);
+            case "grouped_light" -> getGroupedLightIds().contains(id);
+            case "scene" -> scenes.containsKey(id);
+            default -> false;
+        };
+    }
+    
+    private String lightJson(Light light) {
+        return "{\"id\":\"" + light.id() + "\",\"type\":\"light\",\"metadata\":{\"name\":\"" + light.name() 
+            + "\",\"archetype\":\"sultan_bulb\"},\"owner\":" + reference(light.ownerId(), "device")
+            + ",\"on\":{\"on\":true},\"dimming\":{\"brightness\":100.0},"
+            + "\"color\":{\"xy\":{\"x\":0.3227,\"y\":0.329}}}";
+    }
+    
+    private String groupJson(Group group) {
+        String children = group.lightIds().stream()
+            .map(lightId -> group.type().equals("room") 
+                ? reference(lights.get(lightId).ownerId(), "device") 
+                : reference(lightId, "light"))
+            .collect(Collectors.joining(","));
+        return "{\"id\":\"" + group.id() + "\",\"type\":\"" + group.type() + "\",\"metadata\":{\"name\":\"" 
+            + group.name() + "\",\"archetype\":\"living_room\"},\"children\":[" + children + "],\"services\":[" 
+            + reference(group.groupedLightId(), "grouped_light") + "]}";
+    }
+    
+    private String groupedLightJson(Group group) {
+        return "{\"id\":\"" + group.groupedLightId() + "\",\"type\":\"grouped_light\",\"owner\":" 
+            + reference(group.id(), group.type()) + ",\"on\":{\"on\":true}}";
+    }
+    
+    private String sceneJson(Scene scene) {
+        return "{\"id\":\"" + scene.id() + "\",\"type\":\"scene\",\"metadata\":{\"name\":\"" + scene.name() 
+            + "\"},\"group\":" + reference(scene.groupId(), scene.groupType()) + "}";
+    }
+    
+    private static String reference(UUID id, String type) {
+        return "{\"rid\":\"" + id + "\",\"rtype\":\"" + type + "\"}";
+    }
+    
+    private static String data(List<String> resources) {
+        return "{\"errors\":[],\"data\":[" + String.join(",", resources) + "]}";
+    }
+    
+    private static String error(String description) {
+        return "{\"errors\":[{\"description\":\"" + description + "\"}],\"data\":[]}";
+    }
+    
+    /**
+     * First string value of the given key; enough for the payloads this bridge accepts
+     */
+    private static String extract(String json, String key) {
+        String marker = "\"" + key + "\":\"";
+        int start = json.indexOf(marker);
+        if (start < 0) {
+            return null;
+        }
+        start += marker.length();
+        return json.substring(start, json.indexOf('"', start));
+    }
+    
+    private void simulateLatency() {
+        if (!settings.latency.isZero()) {
+            try {
+                Thread.sleep(settings.latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private void reply(HttpExchange exchange, String method, String path, String body, 
+                       int status, String response) throws IOException {
+        if (!method.equals("GET")) {
+            commands.add(new RecordedCommand(Instant.now(), method, path, body, status));
+        }
+        respond(exchange, status, response);
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String response) throws IOException {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    /**
+     * Fixed one-second window counter, like the bridge's own throttling
+     */
+    private static final class RateLimiter {
+        private final int limitPerSecond;
+        private long windowStart;
+        private int used;
+        
+        RateLimiter(int limitPerSecond) {
+            this.limitPerSecond = limitPerSecond;
+        }
+        
+        synchronized boolean tryAcquire() {
+            if (limitPerSecond <= 0) {
+                return true;
+            }
+            long now = System.nanoTime();
+            if (used == 0 || now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                windowStart = now;
+                used = 0;
+            }
+            if (used < limitPerSecond) {
+                used++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
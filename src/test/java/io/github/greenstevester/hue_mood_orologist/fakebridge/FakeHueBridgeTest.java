@@ -0,0 +1,144 @@
+package io.github.greenstevester.hue_mood_orologist.fakebridge;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FakeHueBridgeTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private FakeHueBridge bridge;
+    
+    @AfterEach
+    void tearDown() {
+        if (bridge != null) {
+            bridge.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should serve the configured number of lights, rooms and zones")
+    void shouldServeConfiguredResources() throws Exception {
+        bridge = FakeHueBridge.builder().lights(24).rooms(4).zones(1).build().start();
+        
+        String lights = get("/clip/v2/resource/light").body();
+        String rooms = get("/clip/v2/resource/room").body();
+        String groupedLights = get("/clip/v2/resource/grouped_light").body();
+        
+        assertThat(count(lights, "\"type\":\"light\"")).isEqualTo(24);
+        assertThat(count(rooms, "\"type\":\"room\"")).isEqualTo(4);
+        assertThat(count(groupedLights, "\"type\":\"grouped_light\"")).isEqualTo(5);
+    }
+    
+    @Test
+    @DisplayName("Should reject requests without the application key")
+    void shouldRejectMissingApplicationKey() throws Exception {
+        bridge = FakeHueBridge.builder().build().start();
+        
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(URI.create(bridge.getBaseUrl() + "/clip/v2/resource/light")).build(),
+            HttpResponse.BodyHandlers.ofString());
+        
+        assertThat(response.statusCode()).isEqualTo(403);
+    }
+    
+    @Test
+    @DisplayName("Should record every light command fanned out in parallel")
+    void shouldRecordParallelFanOut() {
+        bridge = FakeHueBridge.builder().lights(100).latency(Duration.ofMillis(20)).build().start();
+        
+        long started = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = bridge.getLightIds().stream()
+            .map(id -> putAsync("/clip/v2/resource/light/" + id, "{\"on\":{\"on\":true}}"))
+            .toList();
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        
+        assertThat(responses).allSatisfy(response -> assertThat(response.join().statusCode()).isEqualTo(200));
+        assertThat(bridge.getCommands("light")).hasSize(100);
+        // Serially this would take 100 x 20ms; the fan-out has to overlap the latency
+        assertThat(elapsedMillis).isLessThan(2000);
+    }
+    
+    @Test
+    @DisplayName("Should answer 429 once the per-second command budget is spent")
+    void shouldRateLimitCommands() {
+        bridge = FakeHueBridge.builder().lights(30).lightCommandsPerSecond(10).build().start();
+        
+        bridge.getLightIds().stream()
+            .map(id -> putAsync("/clip/v2/resource/light/" + id, "{\"on\":{\"on\":false}}"))
+            .toList()
+            .forEach(CompletableFuture::join);
+        
+        assertThat(bridge.countByStatus(200)).isBetween(10L, 20L);
+        assertThat(bridge.countByStatus(429)).isEqualTo(30 - bridge.countByStatus(200));
+    }
+    
+    @Test
+    @DisplayName("Should inject service unavailable responses")
+    void shouldInjectServiceUnavailable() throws Exception {
+        bridge = FakeHueBridge.builder().serviceUnavailableRate(1.0).build().start();
+        
+        UUID groupedLight = bridge.getGroupedLightIds().getFirst();
+        HttpResponse<String> response = putAsync("/clip/v2/resource/grouped_light/" + groupedLight, "{}").join();
+        
+        assertThat(response.statusCode()).isEqualTo(503);
+        assertThat(bridge.getCommands("grouped_light")).singleElement()
+            .satisfies(command -> assertThat(command.status()).isEqualTo(503));
+    }
+    
+    @Test
+    @DisplayName("Should push applied commands to event stream subscribers")
+    void shouldPublishEvents() throws Exception {
+        bridge = FakeHueBridge.builder().lights(1).build().start();
+        
+        HttpResponse<InputStream> stream = client.send(request("/eventstream/clip/v2").build(),
+            HttpResponse.BodyHandlers.ofInputStream());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream.body(), StandardCharsets.UTF_8));
+        assertThat(reader.readLine()).isEqualTo(": hi");
+        
+        UUID light = bridge.getLightIds().getFirst();
+        putAsync("/clip/v2/resource/light/" + light, "{\"on\":{\"on\":false}}").join();
+        
+        String line;
+        do {
+            line = reader.readLine();
+        } while (line != null && !line.startsWith("data:"));
+        assertThat(line).contains(light.toString()).contains("\"on\":{\"on\":false}");
+    }
+    
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(bridge.getBaseUrl() + path))
+            .header("hue-application-key", FakeHueBridge.API_KEY);
+    }
+    
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(request(path).build(), HttpResponse.BodyHandlers.ofString());
+    }
+    
+    private CompletableFuture<HttpResponse<String>> putAsync(String path, String body) {
+        return client.sendAsync(request(path).PUT(HttpRequest.BodyPublishers.ofString(body)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+    
+    private static int count(String json, String token) {
+        return json.split(Pattern.quote(token), -1).length - 1;
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.greenstevester.hue_mood_orologist.health;
+
+import io.github.greenstevester.hue_mood_orologist.config.ScheduleProperties;
+import io.github.greenstevester.hue_mood_orologist.pipeline.WeatherPipeline;
+import io.github.greenstevester.hue_mood_orologist.scheduler.WeatherCheckScheduler;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+class ForecastHealthIndicatorTest {
+    
+    private final WeatherPipeline weatherPipeline = mock(WeatherPipeline.class);
+    private final ScheduleProperties scheduleProperties = new ScheduleProperties();
+    private final WeatherCheckScheduler weatherCheckScheduler = mock(WeatherCheckScheduler.class);
+    private final ForecastHealthIndicator indicator = 
+        new ForecastHealthIndicator(weatherPipeline, scheduleProperties, weatherCheckScheduler);
+    
+    @Test
+    @DisplayName("Should be unknown before the first forecast")
+    void shouldBeUnknownBeforeFirstForecast() {
+        when(weatherPipeline.getLastForecastAt()).thenReturn(Optional.empty());
+        
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UNKNOWN);
+    }
+    
+    @Test
+    @DisplayName("Should be up while the forecast is fresh")
+    void shouldBeUpWhileFresh() {
+        when(weatherPipeline.getLastForecastAt()).thenReturn(Optional.of(Instant.now().minus(Duration.ofMinutes(30))));
+        
+        Health health = indicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("stale", false);
+    }
+    
+    @Test
+    @DisplayName("Should report a stale forecast without failing once two scheduled checks have been missed")
+    void shouldReportStaleForecastAsDetail() {
+        // Given - hourly schedule
+        scheduleProperties.setInterval(ScheduleProperties.ScheduleInterval.HOUR);
+        when(weatherPipeline.getLastForecastAt()).thenReturn(Optional.of(Instant.now().minus(Duration.ofHours(3))));
+        
+        // When
+        Health health = indicator.health();
+        
+        // Then
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("stale", true);
+    }
+    
+    @Test
+    @DisplayName("Should not count the forecast as stale while the scheduler is paused")
+    void shouldNotBeStaleWhilePaused() {
+        // Given
+        scheduleProperties.setInterval(ScheduleProperties.ScheduleInterval.HOUR);
+        when(weatherPipeline.getLastForecastAt()).thenReturn(Optional.of(Instant.now().minus(Duration.ofHours(3))));
+        when(weatherCheckScheduler.isPaused()).thenReturn(true);
+        
+        // When
+        Health health = indicator.health();
+        
+        // Then
+        assertThat(health.getDetails())
+            .containsEntry("paused", true)
+            .containsEntry("stale", false);
+    }
+}
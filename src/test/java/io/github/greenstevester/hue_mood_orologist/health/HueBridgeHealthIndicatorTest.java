@@ -0,0 +1,63 @@
+package io.github.greenstevester.hue_mood_orologist.health;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
+import io.github.greenstevester.heuvana.v2.Hue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+class HueBridgeHealthIndicatorTest {
+    
+    private final BridgeRegistry bridgeRegistry = mock(BridgeRegistry.class);
+    private final AtomicReference<Optional<Hue>> connectorResult = new AtomicReference<>(Optional.empty());
+    private final HueBridgeConnection bridge = new HueBridgeConnection("primary", connectorResult::get, Runnable::run);
+    private final HueBridgeHealthIndicator indicator = 
+        new HueBridgeHealthIndicator(bridgeRegistry, mock(ClusterCoordinator.class));
+    
+    @Test
+    @DisplayName("Should be unknown while the bridge connects for the first time")
+    void shouldBeUnknownBeforeFirstAttempt() {
+        when(bridgeRegistry.getBridges()).thenReturn(List.of(bridge));
+        
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UNKNOWN);
+    }
+    
+    @Test
+    @DisplayName("Should be up once connected")
+    void shouldBeUpOnceConnected() {
+        // Given
+        when(bridgeRegistry.getBridges()).thenReturn(List.of(bridge));
+        connectorResult.set(Optional.of(mock(Hue.class)));
+        
+        // When
+        bridge.connect();
+        
+        // Then
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+    
+    @Test
+    @DisplayName("Should be down once the first attempt has failed")
+    void shouldBeDownAfterFailedAttempt() {
+        // Given
+        when(bridgeRegistry.getBridges()).thenReturn(List.of(bridge));
+        
+        // When
+        bridge.connect();
+        
+        // Then
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.greenstevester.hue_mood_orologist.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineEventsTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    @DisplayName("Should record pipeline events with the default settings and without stack traces")
+    void shouldRecordWithDefaultSettings() throws Exception {
+        // Given
+        Path file = tempDir.resolve("pipeline.jfr");
+        try (Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+            recording.start();
+            
+            // When
+            LightCommandEvent event = new LightCommandEvent();
+            event.begin();
+            event.lightId = "3f1c";
+            event.target = "Kitchen";
+            event.lights = 1;
+            event.condition = "rain";
+            event.success = true;
+            event.commit();
+            
+            recording.stop();
+            recording.dump(file);
+        }
+        
+        // Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+            .filter(recorded -> recorded.getEventType().getName().equals("hue_mood_orologist.LightCommand"))
+            .toList();
+        assertThat(events).hasSize(1);
+        assertThat(events.getFirst().getString("target")).isEqualTo("Kitchen");
+        assertThat(events.getFirst().getBoolean("success")).isTrue();
+        assertThat(events.getFirst().getStackTrace()).isNull();
+    }
+}
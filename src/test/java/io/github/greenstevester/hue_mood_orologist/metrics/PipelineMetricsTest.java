@@ -0,0 +1,49 @@
+package io.github.greenstevester.hue_mood_orologist.metrics;
+
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineMetricsTest {
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics(meterRegistry);
+    
+    @Test
+    @DisplayName("Should count condition changes per location, not repeats")
+    void shouldCountConditionTransitions() {
+        pipelineMetrics.recordCondition("default", "sunshine");
+        pipelineMetrics.recordCondition("default", "sunshine");
+        pipelineMetrics.recordCondition("default", "rain");
+        pipelineMetrics.recordCondition("46.0,7.7", "snow");
+        
+        assertThat(meterRegistry.find("weather.condition.transitions").counters()).hasSize(1);
+        assertThat(meterRegistry.get("weather.condition.transitions")
+            .tag("from", "sunshine").tag("to", "rain").counter().count()).isEqualTo(1);
+    }
+    
+    @Test
+    @DisplayName("Should record latency per light and count failures")
+    void shouldRecordCycle() {
+        CycleResult result = new CycleResult("rain", Instant.now(), Duration.ofMillis(120), List.of(
+            new LightOutcome(UUID.randomUUID(), "Kitchen", LightOutcome.Status.SUCCESS, Duration.ofMillis(40), null),
+            new LightOutcome(UUID.randomUUID(), "Hall", LightOutcome.Status.SUCCESS, Duration.ofMillis(60), null),
+            new LightOutcome(UUID.randomUUID(), "Desk", LightOutcome.Status.FAILED, Duration.ofMillis(80), "503")));
+        
+        pipelineMetrics.recordCycle(result);
+        
+        assertThat(meterRegistry.get("hue.light.command").tag("status", "success").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("hue.light.command.errors").tag("status", "failed").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("hue.cycle.lights.updated").summary().totalAmount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.greenstevester.hue_mood_orologist.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineStageTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final List<Integer> handled = new CopyOnWriteArrayList<>();
+    private PipelineStage<Integer> stage;
+    
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        stage.stop();
+    }
+    
+    @Test
+    @DisplayName("Should keep only the newest items while the worker is busy")
+    void shouldDropOldestWhenBehind() throws Exception {
+        // Given - a worker stuck on its first item
+        stage = blockingStage(PipelineStage.OverflowPolicy.DROP_OLDEST, 2);
+        stage.start();
+        stage.submit(1);
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        
+        // When
+        for (int item = 2; item <= 6; item++) {
+            stage.submit(item);
+        }
+        release.countDown();
+        
+        // Then
+        awaitHandled(3);
+        assertThat(handled).containsExactly(1, 5, 6);
+        assertThat(stage.getDropped()).isEqualTo(3);
+    }
+    
+    @Test
+    @DisplayName("Should block the caller when the inbox is full")
+    void shouldApplyBackpressure() throws Exception {
+        // Given
+        stage = blockingStage(PipelineStage.OverflowPolicy.BLOCK, 1);
+        stage.start();
+        stage.submit(1);
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        stage.submit(2);
+        
+        // When
+        Thread producer = Thread.ofVirtual().start(() -> {
+            try {
+                stage.submit(3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        
+        // Then
+        assertThat(producer.join(Duration.ofMillis(200))).isFalse();
+        release.countDown();
+        assertThat(producer.join(Duration.ofSeconds(1))).isTrue();
+        awaitHandled(3);
+        assertThat(handled).containsExactly(1, 2, 3);
+        assertThat(stage.getDropped()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should keep processing after a handler failure")
+    void shouldSurviveHandlerFailure() throws Exception {
+        // Given
+        stage = new PipelineStage<>("test", 4, PipelineStage.OverflowPolicy.BLOCK, 
+            Thread.ofVirtual().factory(), item -> {
+                if (item == 1) {
+                    throw new IllegalStateException("Forecast unavailable");
+                }
+                handled.add(item);
+            });
+        stage.start();
+        
+        // When
+        stage.submit(1);
+        stage.submit(2);
+        
+        // Then
+        awaitHandled(1);
+        assertThat(handled).containsExactly(2);
+    }
+    
+    private PipelineStage<Integer> blockingStage(PipelineStage.OverflowPolicy policy, int capacity) {
+        return new PipelineStage<>("test", capacity, policy, Thread.ofVirtual().factory(), item -> {
+            started.countDown();
+            release.await();
+            handled.add(item);
+        });
+    }
+    
+    private void awaitHandled(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (handled.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.greenstevester.hue_mood_orologist.pipeline;
+
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
+import io.github.greenstevester.hue_mood_orologist.cluster.SharedForecastStore;
+import io.github.greenstevester.hue_mood_orologist.events.MoodStateBroadcaster;
+import io.github.greenstevester.hue_mood_orologist.metrics.PipelineMetrics;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
+import io.github.greenstevester.hue_mood_orologist.service.HueService;
+import io.github.greenstevester.hue_mood_orologist.service.WeatherService;
+import io.github.greenstevester.hue_mood_orologist.streaming.EntertainmentStreamer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+class WeatherPipelineTest {
+    
+    private final WeatherService weatherService = mock(WeatherService.class);
+    private final HueService hueService = mock(HueService.class);
+    private final ClusterCoordinator clusterCoordinator = mock(ClusterCoordinator.class);
+    private final WeatherPipeline pipeline = new WeatherPipeline(weatherService, hueService,
+        mock(EntertainmentStreamer.class), clusterCoordinator, mock(SharedForecastStore.class),
+        new PipelineMetrics(new SimpleMeterRegistry()), mock(MoodStateBroadcaster.class), ObservationRegistry.NOOP);
+    
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+    
+    @Test
+    @DisplayName("Should set the standard mood when the forecast can't be fetched")
+    void shouldPlanErrorAnalysisWhenFetchFails() throws Exception {
+        // Given
+        ResourceAccessException failure = new ResourceAccessException("Connection refused");
+        WeatherAnalysis errorAnalysis = WeatherAnalysis.builder()
+            .analysisTime(LocalDateTime.now())
+            .summary("Error: Error fetching weather: Connection refused")
+            .weatherCondition("unknown")
+            .build();
+        when(clusterCoordinator.ownsLocation(any())).thenReturn(true);
+        when(weatherService.fetchWeather()).thenThrow(failure);
+        when(weatherService.fetchFailedAnalysis(failure)).thenReturn(errorAnalysis);
+        when(hueService.planLightMood(any(), isNull())).thenReturn(Optional.empty());
+        pipeline.createStages();
+        pipeline.start();
+        
+        // When
+        CycleResult result = pipeline.requestWeatherCheck().get(5, TimeUnit.SECONDS);
+        
+        // Then
+        assertThat(result.getOutcomes()).isEmpty();
+        verify(hueService).planLightMood(argThat(analysis -> !analysis.isRaining() && !analysis.isVeryCold()),
+            isNull());
+        assertThat(pipeline.getLatestAnalysis()).contains(errorAnalysis);
+        assertThat(pipeline.getLastForecastAt()).isEmpty();
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.greenstevester.hue_mood_orologist.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+    
+    private final TimingWheel wheel = new TimingWheel(Duration.ofMillis(5), 8, Runnable::run);
+    
+    @AfterEach
+    void tearDown() {
+        wheel.close();
+    }
+    
+    @Test
+    @DisplayName("Should never fire a timer before its delay has passed")
+    void shouldFireAfterDelay() throws Exception {
+        // Given - delays spanning several wheel levels
+        int timers = 500;
+        CountDownLatch fired = new CountDownLatch(timers);
+        List<Long> earlyByNanos = new CopyOnWriteArrayList<>();
+        
+        // When
+        for (int i = 0; i < timers; i++) {
+            long delayNanos = Duration.ofMillis(i * 3L).toNanos();
+            long scheduledAt = System.nanoTime();
+            wheel.schedule(Duration.ofNanos(delayNanos), () -> {
+                long elapsed = System.nanoTime() - scheduledAt;
+                if (elapsed < delayNanos) {
+                    earlyByNanos.add(delayNanos - elapsed);
+                }
+                fired.countDown();
+            });
+        }
+        
+        // Then
+        assertThat(fired.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(earlyByNanos).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should not run cancelled timers")
+    void shouldNotRunCancelledTimers() throws Exception {
+        // Given
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch marker = new CountDownLatch(1);
+        TimingWheel.Timeout cancelled = wheel.schedule(Duration.ofMillis(50), runs::incrementAndGet);
+        wheel.schedule(Duration.ofMillis(100), marker::countDown);
+        
+        // When
+        assertThat(cancelled.cancel()).isTrue();
+        
+        // Then
+        assertThat(marker.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(runs).hasValue(0);
+        assertThat(cancelled.isCancelled()).isTrue();
+        assertThat(cancelled.isExpired()).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should fire timers beyond the span of the wheel")
+    void shouldFireBeyondWheelSpan() throws Exception {
+        // Given - 4 levels of 4 slots span 256 ticks of 1ms
+        try (TimingWheel small = new TimingWheel(Duration.ofMillis(1), 4, Runnable::run)) {
+            CountDownLatch fired = new CountDownLatch(1);
+        
+            // When
+            TimingWheel.Timeout timeout = small.schedule(Duration.ofMillis(600), fired::countDown);
+        
+            // Then
+            assertThat(fired.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(timeout.isExpired()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.github.greenstevester.hue_mood_orologist.scheduler;
+
+import io.github.greenstevester.hue_mood_orologist.config.ScheduleProperties;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.ScheduleStatus;
+import io.github.greenstevester.hue_mood_orologist.pipeline.WeatherPipeline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+class WeatherCheckSchedulerTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private final WeatherPipeline weatherPipeline = mock(WeatherPipeline.class);
+    private final List<CompletableFuture<CycleResult>> runs = new CopyOnWriteArrayList<>();
+    private ScheduleProperties scheduleProperties;
+    private WeatherCheckScheduler scheduler;
+    
+    @BeforeEach
+    void setUp() {
+        scheduleProperties = new ScheduleProperties();
+        // Keep the wheel out of the way; runs are triggered by hand
+        scheduleProperties.setInitialDelaySeconds(3600);
+        scheduleProperties.setStateFile(tempDir.resolve("schedule-state.properties").toString());
+        
+        when(weatherPipeline.requestWeatherCheck(any())).thenAnswer(invocation -> {
+            CompletableFuture<CycleResult> run = new CompletableFuture<>();
+            runs.add(run);
+            return run;
+        });
+        scheduler = new WeatherCheckScheduler(weatherPipeline, scheduleProperties);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+    
+    @Test
+    @DisplayName("Should fold ticks during a run into one follow-up run")
+    void shouldCoalesceOverlappingRuns() {
+        // Given
+        scheduleProperties.setOverlapPolicy(ScheduleProperties.OverlapPolicy.COALESCE);
+        scheduler.start();
+        scheduler.checkWeather();
+        
+        // When
+        scheduler.checkWeather();
+        scheduler.checkWeather();
+        scheduler.checkWeather();
+        
+        // Then
+        verify(weatherPipeline, times(1)).requestWeatherCheck(any());
+        runs.get(0).complete(null);
+        verify(weatherPipeline, times(2)).requestWeatherCheck(any());
+        runs.get(1).complete(null);
+        verify(weatherPipeline, times(2)).requestWeatherCheck(any());
+        
+        ScheduleStatus status = defaultStatus();
+        assertThat(status.getRuns()).isEqualTo(2);
+        assertThat(status.getCoalesced()).isEqualTo(1);
+        assertThat(status.getSkipped()).isEqualTo(2);
+        assertThat(status.isRunning()).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should drop ticks during a run with the skip policy")
+    void shouldSkipOverlappingRuns() {
+        // Given
+        scheduleProperties.setOverlapPolicy(ScheduleProperties.OverlapPolicy.SKIP);
+        scheduler.start();
+        scheduler.checkWeather();
+        
+        // When
+        scheduler.checkWeather();
+        runs.get(0).complete(null);
+        
+        // Then
+        verify(weatherPipeline, times(1)).requestWeatherCheck(any());
+        assertThat(defaultStatus().getSkipped()).isEqualTo(1);
+        assertThat(defaultStatus().getCoalesced()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should release the guard when a run is dropped by the pipeline")
+    void shouldReleaseGuardWhenRunIsDropped() {
+        // Given
+        scheduler.start();
+        scheduler.checkWeather();
+        
+        // When
+        runs.get(0).cancel(false);
+        scheduler.checkWeather();
+        
+        // Then
+        verify(weatherPipeline, times(2)).requestWeatherCheck(any());
+    }
+    
+    @Test
+    @DisplayName("Should catch up a missed cron run once after a restart")
+    void shouldCatchUpMissedRun() throws Exception {
+        // Given - an hourly schedule that last ran three hours ago
+        ScheduleProperties.Schedule hourly = new ScheduleProperties.Schedule();
+        hourly.setName("hourly");
+        hourly.setCron("0 0 * * * *");
+        scheduleProperties.getSchedules().add(hourly);
+        scheduleProperties.setInitialDelaySeconds(0);
+        Files.writeString(tempDir.resolve("schedule-state.properties"), 
+            "hourly=" + Instant.now().minusSeconds(3 * 3600).toEpochMilli() + "\n");
+        
+        // When
+        scheduler.start();
+        
+        // Then - due right away rather than at the next full hour
+        ScheduleStatus status = scheduler.getStatuses().stream()
+            .filter(candidate -> candidate.getName().equals("hourly"))
+            .findFirst().orElseThrow();
+        assertThat(status.getNextRunAt()).isBefore(Instant.now().plusSeconds(1));
+    }
+    
+    @Test
+    @DisplayName("Should reschedule from scratch when restarted after a checkpoint")
+    void shouldRestartAfterStop() {
+        // Given
+        scheduler.start();
+        scheduler.stop();
+        assertThat(scheduler.isRunning()).isFalse();
+        assertThat(scheduler.isWheelRunning()).isFalse();
+        
+        // When
+        scheduler.start();
+        
+        // Then
+        assertThat(scheduler.isRunning()).isTrue();
+        assertThat(scheduler.isWheelRunning()).isTrue();
+        assertThat(defaultStatus().getNextRunAt()).isAfter(Instant.now());
+    }
+    
+    @Test
+    @DisplayName("Should not run checks before it has started")
+    void shouldIgnoreRequestsBeforeStart() {
+        // When
+        scheduler.checkWeather();
+        
+        // Then
+        assertThat(scheduler.refresh()).isEmpty();
+        assertThat(scheduler.updateSchedule(ScheduleProperties.ScheduleInterval.FOUR_HOURS)).isFalse();
+        verify(weatherPipeline, never()).requestWeatherCheck(any());
+    }
+    
+    @Test
+    @DisplayName("Should persist last runs in the background and on stop, not on every run")
+    void shouldPersistLastRunsOnStop() throws Exception {
+        // Given
+        Path stateFile = tempDir.resolve("schedule-state.properties");
+        scheduler.start();
+        
+        // When
+        scheduler.checkWeather();
+        
+        // Then
+        assertThat(stateFile).doesNotExist();
+        scheduler.stop();
+        Properties saved = new Properties();
+        try (Reader reader = Files.newBufferedReader(stateFile)) {
+            saved.load(reader);
+        }
+        assertThat(saved.getProperty(WeatherCheckScheduler.DEFAULT_SCHEDULE)).isNotNull();
+    }
+    
+    private ScheduleStatus defaultStatus() {
+        return scheduler.getStatuses().stream()
+            .filter(status -> status.getName().equals(WeatherCheckScheduler.DEFAULT_SCHEDULE))
+            .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.greenstevester.hue_mood_orologist.service;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueClipClient;
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.dispatch.GroupedLightPlanner;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightCommandDispatcher;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightHoldStore;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightShadowStore;
+import io.github.greenstevester.hue_mood_orologist.events.MoodStateBroadcaster;
+import io.github.greenstevester.hue_mood_orologist.model.ColorPlanEntry;
+import io.github.greenstevester.hue_mood_orologist.model.ColorPlanResult;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
+import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.v2.Hue;
+import io.github.greenstevester.heuvana.v2.Light;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+class ColorPlanServiceTest {
+    
+    private final HueProperties hueProperties = new HueProperties();
+    private final BridgeRegistry bridgeRegistry = mock(BridgeRegistry.class);
+    private final ClusterCoordinator clusterCoordinator = mock(ClusterCoordinator.class);
+    private final Hue hue = mock(Hue.class);
+    private final Light desk = mock(Light.class);
+    private final Light lamp = mock(Light.class);
+    private final UUID deskId = UUID.randomUUID();
+    private final UUID lampId = UUID.randomUUID();
+    private final LightHoldStore lightHoldStore = new LightHoldStore();
+    private final MoodStateBroadcaster moodStateBroadcaster = new MoodStateBroadcaster();
+    private ColorPlanService colorPlanService;
+    
+    @BeforeEach
+    void setUp() {
+        hueProperties.setShadowStateEnabled(false);
+        hueProperties.setGroupedCommands(false);
+        LightCommandDispatcher dispatcher = new LightCommandDispatcher(hueProperties, new GroupedLightPlanner(), 
+            new LightShadowStore(hueProperties), bridgeRegistry, ObservationRegistry.NOOP);
+        colorPlanService = new ColorPlanService(new ColorParserService(), dispatcher, lightHoldStore, 
+            bridgeRegistry, clusterCoordinator, moodStateBroadcaster);
+        
+        Map<UUID, Light> lights = new LinkedHashMap<>();
+        lights.put(deskId, desk);
+        lights.put(lampId, lamp);
+        when(desk.getName()).thenReturn("Desk");
+        when(lamp.getName()).thenReturn("Lamp");
+        when(hue.getLights()).thenReturn(lights);
+        
+        HueBridgeConnection bridge = new HueBridgeConnection(
+            BridgeRegistry.PRIMARY_BRIDGE, () -> Optional.of(hue), Runnable::run);
+        bridge.connect();
+        when(bridgeRegistry.getBridges()).thenReturn(List.of(bridge));
+        when(clusterCoordinator.isBridgeLeader(anyString())).thenReturn(true);
+    }
+    
+    @Test
+    @DisplayName("Should send each light only the highest-priority, most recent entry")
+    void shouldCoalescePerLight() {
+        // Given
+        List<ColorPlanEntry> plan = List.of(
+            new ColorPlanEntry("all", "#ff0000", null, 1, null),
+            new ColorPlanEntry("desk", "#0000ff", null, 5, null),
+            new ColorPlanEntry("Desk", "#00ff00", null, 5, null),
+            new ColorPlanEntry("Lamp", "#ffff00", null, 0, null));
+        
+        // When
+        ColorPlanResult result = colorPlanService.apply(plan).join();
+        
+        // Then
+        assertThat(result.getAccepted()).isEqualTo(4);
+        assertThat(result.count(LightOutcome.Status.SUCCESS)).isEqualTo(2);
+        verify(desk, times(1)).setState(any());
+        verify(lamp, times(1)).setState(any());
+        assertThat(moodStateBroadcaster.getSnapshot().getLights().get(deskId).getColorKey())
+            .isEqualTo(Color.of(0, 255, 0).toString());
+        assertThat(moodStateBroadcaster.getSnapshot().getLights().get(lampId).getColorKey())
+            .isEqualTo(Color.of(255, 0, 0).toString());
+    }
+    
+    @Test
+    @DisplayName("Should reject entries it can't apply and still apply the rest")
+    void shouldRejectInvalidEntries() {
+        // Given
+        List<ColorPlanEntry> plan = List.of(
+            new ColorPlanEntry("Desk", "#12345", null, null, null),
+            new ColorPlanEntry("Lamp", "off", null, null, null),
+            new ColorPlanEntry("Garage", "red", null, null, null),
+            new ColorPlanEntry("Desk", "red", null, null, Instant.now().minusSeconds(60)));
+        
+        // When
+        ColorPlanResult result = colorPlanService.apply(plan).join();
+        
+        // Then
+        assertThat(result.getRejected()).extracting(ColorPlanResult.Rejection::getIndex).containsExactly(0, 2, 3);
+        assertThat(result.getOutcomes()).singleElement()
+            .satisfies(outcome -> assertThat(outcome.getLightId()).isEqualTo(lampId));
+        verify(desk, never()).setState(any());
+    }
+    
+    @Test
+    @DisplayName("Should keep a light held by a higher-priority plan until it expires")
+    void shouldRespectHolds() {
+        // Given
+        colorPlanService.apply(List.of(
+            new ColorPlanEntry("Desk", "red", null, 10, Instant.now().plus(Duration.ofHours(1))))).join();
+        
+        // When
+        ColorPlanResult result = colorPlanService.apply(List.of(
+            new ColorPlanEntry("Desk", "blue", null, 1, null))).join();
+        
+        // Then
+        assertThat(result.getOutcomes()).singleElement()
+            .satisfies(outcome -> assertThat(outcome.getStatus()).isEqualTo(LightOutcome.Status.SKIPPED));
+        assertThat(lightHoldStore.isHeld(deskId)).isTrue();
+        verify(desk, times(1)).setState(any());
+    }
+    
+    @Test
+    @DisplayName("Should send entries with a transition through the CLIP client")
+    void shouldSendTransitionsThroughClip() {
+        // Given
+        HueClipClient clipClient = mock(HueClipClient.class);
+        when(bridgeRegistry.getClipClient(BridgeRegistry.PRIMARY_BRIDGE)).thenReturn(Optional.of(clipClient));
+        
+        // When
+        colorPlanService.apply(List.of(new ColorPlanEntry("Desk", "#ff8800", Duration.ofSeconds(2), null, null))).join();
+        
+        // Then
+        ArgumentCaptor<LightCommand> command = ArgumentCaptor.forClass(LightCommand.class);
+        verify(clipClient).setLightState(eq(deskId), command.capture());
+        assertThat(command.getValue().getTransition()).isEqualTo(Duration.ofSeconds(2));
+        assertThat(command.getValue().getXy()).isNotNull();
+        verify(desk, never()).setState(any());
+    }
+}
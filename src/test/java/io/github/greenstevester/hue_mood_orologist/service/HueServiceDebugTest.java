@@ -1,12 +1,24 @@
 package io.github.greenstevester.hue_mood_orologist.service;
 
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
 import io.github.greenstevester.hue_mood_orologist.config.ColorMappingProperties;
 import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.dispatch.GroupedLightPlanner;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightCommandDispatcher;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightHoldStore;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightShadowStore;
+import io.github.greenstevester.hue_mood_orologist.events.MoodStateBroadcaster;
+import io.github.greenstevester.hue_mood_orologist.metrics.PipelineMetrics;
 import io.github.greenstevester.heuvana.v2.Hue;
 import io.github.greenstevester.heuvana.v2.Light;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -14,11 +26,14 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.mockito.Mockito.*;
 
+@DisabledInNativeImage
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 class HueServiceDebugTest {
@@ -32,6 +47,15 @@ class HueServiceDebugTest {
     @Mock
     private ColorParserService colorParserService;
     
+    @Mock
+    private BridgeRegistry bridgeRegistry;
+    
+    @Mock
+    private WeatherSceneService weatherSceneService;
+    
+    @Mock
+    private ClusterCoordinator clusterCoordinator;
+    
     @Mock
     private Hue hue;
     
@@ -46,7 +70,13 @@ class HueServiceDebugTest {
     
     @BeforeEach
     void setUp() {
-        hueService = new HueService(hueProperties, colorMappingProperties, colorParserService);
+        LightShadowStore lightShadowStore = new LightShadowStore(hueProperties);
+        hueService = new HueService(hueProperties, colorMappingProperties, colorParserService,
+            new LightCommandDispatcher(hueProperties, new GroupedLightPlanner(), lightShadowStore, bridgeRegistry, 
+                ObservationRegistry.NOOP), 
+            lightShadowStore, new LightHoldStore(), bridgeRegistry, weatherSceneService, clusterCoordinator,
+            new PipelineMetrics(new SimpleMeterRegistry()), new MoodStateBroadcaster(), ObservationRegistry.NOOP);
+        when(clusterCoordinator.isBridgeLeader(anyString())).thenReturn(true);
         
         // Setup mock lights
         mockLights = new HashMap<>();
@@ -74,7 +104,7 @@ class HueServiceDebugTest {
     @DisplayName("Should execute debug light colors without errors")
     void shouldExecuteDebugLightColorsWithoutErrors() {
         // Given
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When & Then - should not throw exception
@@ -90,7 +120,7 @@ class HueServiceDebugTest {
     void shouldHandleEmptyLightsInDebugMode() {
         // Given
         Map<UUID, Light> emptyLights = new HashMap<>();
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(emptyLights);
         
         // When & Then - should not throw exception
@@ -104,7 +134,7 @@ class HueServiceDebugTest {
     @DisplayName("Should execute raw API debug without errors")
     void shouldExecuteRawApiDebugWithoutErrors() {
         // Given
-        setPrivateHueField();
+        givenConnectedBridge();
         
         // When & Then - should not throw exception
         hueService.debugLightColorsWithRawApi();
@@ -119,7 +149,7 @@ class HueServiceDebugTest {
     void shouldHandleMissingBridgeIpInRawApiDebug() {
         // Given
         when(hueProperties.getBridgeIp()).thenReturn(null);
-        setPrivateHueField();
+        givenConnectedBridge();
         
         // When & Then - should not throw exception
         hueService.debugLightColorsWithRawApi();
@@ -132,7 +162,7 @@ class HueServiceDebugTest {
     void shouldHandleMissingApiKeyInRawApiDebug() {
         // Given
         when(hueProperties.getApiKey()).thenReturn(null);
-        setPrivateHueField();
+        givenConnectedBridge();
         
         // When & Then - should not throw exception
         hueService.debugLightColorsWithRawApi();
@@ -145,7 +175,7 @@ class HueServiceDebugTest {
     @DisplayName("Should handle Hue connection errors in debug mode")
     void shouldHandleHueConnectionErrorsInDebugMode() {
         // Given
-        setPrivateHueField();
+        givenConnectedBridge();
         doThrow(new RuntimeException("Connection error")).when(hue).refresh();
         
         // When & Then - should not throw exception
@@ -157,7 +187,7 @@ class HueServiceDebugTest {
     @Test
     @DisplayName("Should handle no Hue connection in debug mode")
     void shouldHandleNoHueConnectionInDebugMode() {
-        // Given - no hue connection set (hue field remains null)
+        // Given - no bridge connected
         
         // When & Then - should not throw exception
         hueService.debugLightColors();
@@ -170,7 +200,7 @@ class HueServiceDebugTest {
     @DisplayName("Should handle light errors during debug")
     void shouldHandleLightErrorsDuringDebug() {
         // Given
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         when(light1.getName()).thenThrow(new RuntimeException("Light error"));
         
@@ -181,14 +211,11 @@ class HueServiceDebugTest {
         verify(hue).getLights();
     }
     
-    private void setPrivateHueField() {
-        // Use reflection to set the private hue field
-        try {
-            java.lang.reflect.Field hueField = HueService.class.getDeclaredField("hue");
-            hueField.setAccessible(true);
-            hueField.set(hueService, hue);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to set private hue field", e);
-        }
+    private void givenConnectedBridge() {
+        HueBridgeConnection bridge = new HueBridgeConnection(
+            BridgeRegistry.PRIMARY_BRIDGE, () -> Optional.of(hue), Runnable::run);
+        bridge.connect();
+        when(bridgeRegistry.getBridges()).thenReturn(List.of(bridge));
+        when(bridgeRegistry.getPrimary()).thenReturn(Optional.of(bridge));
     }
-}
\ No newline at end of file
+}
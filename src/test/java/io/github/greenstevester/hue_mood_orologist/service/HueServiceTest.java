@@ -1,35 +1,60 @@
 package io.github.greenstevester.hue_mood_orologist.service;
 
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueBridgeConnection;
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
 import io.github.greenstevester.hue_mood_orologist.config.ColorMappingProperties;
 import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.dispatch.GroupedLightPlanner;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightCommandDispatcher;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightHoldStore;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightShadowStore;
+import io.github.greenstevester.hue_mood_orologist.events.MoodStateBroadcaster;
+import io.github.greenstevester.hue_mood_orologist.metrics.PipelineMetrics;
+import io.github.greenstevester.hue_mood_orologist.model.CycleResult;
+import io.github.greenstevester.hue_mood_orologist.model.LightOutcome;
 import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
 import io.github.greenstevester.heuvana.Color;
+import io.github.greenstevester.heuvana.v2.Group;
 import io.github.greenstevester.heuvana.v2.Hue;
 import io.github.greenstevester.heuvana.v2.Light;
 import io.github.greenstevester.heuvana.v2.UpdateState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.tck.TestObservationRegistry;
+import io.micrometer.observation.tck.TestObservationRegistryAssert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+@DisabledInNativeImage
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 class HueServiceTest {
-
+    
     @Mock
     private HueProperties hueProperties;
     
@@ -39,6 +64,15 @@ class HueServiceTest {
     @Mock
     private ColorParserService colorParserService;
     
+    @Mock
+    private BridgeRegistry bridgeRegistry;
+    
+    @Mock
+    private WeatherSceneService weatherSceneService;
+    
+    @Mock
+    private ClusterCoordinator clusterCoordinator;
+    
     @Mock
     private Hue hue;
     
@@ -53,7 +87,13 @@ class HueServiceTest {
     
     @BeforeEach
     void setUp() {
-        hueService = new HueService(hueProperties, colorMappingProperties, colorParserService);
+        LightShadowStore lightShadowStore = new LightShadowStore(hueProperties);
+        hueService = new HueService(hueProperties, colorMappingProperties, colorParserService,
+            new LightCommandDispatcher(hueProperties, new GroupedLightPlanner(), lightShadowStore, bridgeRegistry, 
+                ObservationRegistry.NOOP), 
+            lightShadowStore, new LightHoldStore(), bridgeRegistry, weatherSceneService, clusterCoordinator,
+            new PipelineMetrics(new SimpleMeterRegistry()), new MoodStateBroadcaster(), ObservationRegistry.NOOP);
+        when(clusterCoordinator.isBridgeLeader(anyString())).thenReturn(true);
         
         // Setup mock lights
         mockLights = new HashMap<>();
@@ -95,7 +135,7 @@ class HueServiceTest {
         when(colorParserService.parseColor("light purple")).thenReturn(expectedColor);
         
         // Setup HueService with mock Hue connection
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When
@@ -121,7 +161,7 @@ class HueServiceTest {
         
         when(colorParserService.parseColor("dark purple")).thenReturn(expectedColor);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When
@@ -142,7 +182,7 @@ class HueServiceTest {
         
         when(colorParserService.parseColor("white")).thenReturn(expectedColor);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When
@@ -163,7 +203,7 @@ class HueServiceTest {
         
         when(colorParserService.parseColor("yellow")).thenReturn(expectedColor);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When
@@ -184,7 +224,7 @@ class HueServiceTest {
         
         when(colorParserService.parseColor("grey")).thenReturn(expectedColor);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When
@@ -205,7 +245,7 @@ class HueServiceTest {
         
         when(colorParserService.parseColor("warm yellow")).thenReturn(expectedColor);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When
@@ -226,7 +266,7 @@ class HueServiceTest {
         
         when(colorParserService.parseColor("cool white")).thenReturn(expectedColor);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When
@@ -249,7 +289,7 @@ class HueServiceTest {
         Color expectedColor = Color.of(221, 160, 221);
         when(colorParserService.parseColor("light purple")).thenReturn(expectedColor);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When
@@ -269,7 +309,7 @@ class HueServiceTest {
         
         when(colorParserService.parseColor("white")).thenReturn(defaultColor);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When
@@ -289,7 +329,7 @@ class HueServiceTest {
         
         WeatherAnalysis rainAnalysis = createWeatherAnalysis("rain", true, false);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // When
@@ -305,7 +345,7 @@ class HueServiceTest {
     @DisplayName("Should handle legacy method with boolean parameters")
     void shouldHandleLegacyMethodWithBooleanParameters() {
         // Given
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         when(colorParserService.parseColor("light purple")).thenReturn(Color.of(221, 160, 221));
         
@@ -325,7 +365,7 @@ class HueServiceTest {
         Map<UUID, Light> emptyLights = new HashMap<>();
         WeatherAnalysis analysis = createWeatherAnalysis("rain", true, false);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(emptyLights);
         
         // When & Then - should not throw exception
@@ -342,7 +382,7 @@ class HueServiceTest {
         Color expectedColor = Color.of(221, 160, 221);
         when(colorParserService.parseColor("light purple")).thenReturn(expectedColor);
         
-        setPrivateHueField();
+        givenConnectedBridge();
         when(hue.getLights()).thenReturn(mockLights);
         
         // Make one light throw an exception
@@ -355,6 +395,230 @@ class HueServiceTest {
         verify(light2).setState(any(UpdateState.class));
     }
     
+    @Test
+    @DisplayName("Should send one grouped command when a whole room is targeted")
+    void shouldSendGroupedCommandForWholeRoom() {
+        // Given
+        when(hueProperties.isGroupedCommands()).thenReturn(true);
+        WeatherAnalysis analysis = createWeatherAnalysis("rain", true, false);
+        when(colorParserService.parseColor("light purple")).thenReturn(Color.of(221, 160, 221));
+        
+        mockLights.forEach((id, light) -> when(light.getId()).thenReturn(id));
+        Group room = mock(Group.class);
+        when(room.getName()).thenReturn("Ground Floor");
+        when(room.getLights()).thenReturn(List.copyOf(mockLights.values()));
+        
+        givenConnectedBridge();
+        when(hue.getLights()).thenReturn(mockLights);
+        when(hue.getRooms()).thenReturn(Map.of(UUID.randomUUID(), room));
+        
+        // When
+        hueService.setLightMoodForWeather(analysis);
+        
+        // Then
+        verify(room).setState(any(UpdateState.class));
+        verify(light1, never()).setState(any(UpdateState.class));
+        verify(light2, never()).setState(any(UpdateState.class));
+    }
+    
+    @Test
+    @DisplayName("Should not resend a color the lights already show")
+    void shouldNotResendUnchangedColor(@TempDir Path tempDir) {
+        // Given
+        when(hueProperties.isShadowStateEnabled()).thenReturn(true);
+        when(hueProperties.getShadowStateFile()).thenReturn(tempDir.resolve("shadow.properties").toString());
+        when(light1.isOn()).thenReturn(true);
+        when(light2.isOn()).thenReturn(true);
+        
+        WeatherAnalysis analysis = createWeatherAnalysis("rain", true, false);
+        when(colorParserService.parseColor("light purple")).thenReturn(Color.of(221, 160, 221));
+        
+        givenConnectedBridge();
+        when(hue.getLights()).thenReturn(mockLights);
+        
+        // When
+        hueService.setLightMoodForWeather(analysis);
+        hueService.setLightMoodForWeather(analysis);
+        
+        // Then - only the first update reaches the lights
+        verify(light1, times(1)).setState(any(UpdateState.class));
+        verify(light2, times(1)).setState(any(UpdateState.class));
+    }
+    
+    @Test
+    @DisplayName("Should plan a pending mood once a bridge connects")
+    void shouldPlanPendingMoodOnConnect() {
+        // Given - no bridge connected yet
+        WeatherAnalysis rain = createWeatherAnalysis("rain", true, false);
+        when(colorParserService.parseColor("light purple")).thenReturn(Color.of(221, 160, 221));
+        assertThat(hueService.planLightMood(rain)).isEmpty();
+        HueService.PendingMood pending = hueService.takePendingMood().orElseThrow();
+        
+        // When
+        givenConnectedBridge();
+        when(hue.getLights()).thenReturn(mockLights);
+        
+        // Then
+        assertThat(hueService.planPendingMood(pending))
+            .hasValueSatisfying(plan -> assertThat(plan.getWeatherCondition()).isEqualTo("rain"));
+        assertThat(hueService.takePendingMood()).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should drop a pending mood once a newer one has been planned")
+    void shouldDropPendingMoodOvertakenByNewerPlan() {
+        // Given - rain arrived while no bridge was connected
+        WeatherAnalysis rain = createWeatherAnalysis("rain", true, false);
+        when(colorParserService.parseColor("light purple")).thenReturn(Color.of(221, 160, 221));
+        hueService.planLightMood(rain);
+        HueService.PendingMood pending = hueService.takePendingMood().orElseThrow();
+        
+        // When - the bridge connects and a newer analysis is planned first
+        givenConnectedBridge();
+        when(hue.getLights()).thenReturn(mockLights);
+        when(colorParserService.parseColor("cool white")).thenReturn(Color.of(240, 248, 255));
+        assertThat(hueService.planLightMood(createWeatherAnalysis("clear", false, false))).isPresent();
+        
+        // Then
+        assertThat(hueService.planPendingMood(pending)).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should shard lights across bridges and update each bridge")
+    void shouldShardLightsAcrossBridges() {
+        // Given
+        Hue secondHue = mock(Hue.class);
+        Light upstairsLight = mock(Light.class);
+        when(upstairsLight.getName()).thenReturn("Bedroom");
+        when(secondHue.getLights()).thenReturn(Map.of(UUID.randomUUID(), upstairsLight));
+        
+        HueBridgeConnection primary = new HueBridgeConnection(
+            BridgeRegistry.PRIMARY_BRIDGE, () -> Optional.of(hue), Runnable::run);
+        HueBridgeConnection upstairs = new HueBridgeConnection(
+            "upstairs", () -> Optional.of(secondHue), Runnable::run);
+        primary.connect();
+        upstairs.connect();
+        when(bridgeRegistry.getBridges()).thenReturn(List.of(primary, upstairs));
+        when(hue.getLights()).thenReturn(mockLights);
+        
+        WeatherAnalysis analysis = createWeatherAnalysis("rain", true, false);
+        when(colorParserService.parseColor("light purple")).thenReturn(Color.of(221, 160, 221));
+        
+        // When
+        hueService.setLightMoodForWeather(analysis);
+        
+        // Then
+        verify(light1).setState(any(UpdateState.class));
+        verify(light2).setState(any(UpdateState.class));
+        verify(upstairsLight).setState(any(UpdateState.class));
+    }
+    
+    @Test
+    @DisplayName("Should report each light's outcome for the cycle")
+    void shouldReportPerLightOutcomes() {
+        // Given
+        WeatherAnalysis analysis = createWeatherAnalysis("rain", true, false);
+        when(colorParserService.parseColor("light purple")).thenReturn(Color.of(221, 160, 221));
+        doThrow(new RuntimeException("Bulb unreachable")).when(light2).setState(any(UpdateState.class));
+        
+        givenConnectedBridge();
+        when(hue.getLights()).thenReturn(mockLights);
+        
+        // When
+        CycleResult result = hueService.setLightMoodForWeather(analysis).join();
+        
+        // Then
+        assertThat(result.getOutcomes()).hasSize(2);
+        assertThat(result.count(LightOutcome.Status.SUCCESS)).isEqualTo(1);
+        assertThat(result.isPartialFailure()).isTrue();
+        assertThat(result.getFailures()).singleElement()
+            .satisfies(failure -> {
+                assertThat(failure.getLightName()).isEqualTo("Kitchen");
+                assertThat(failure.getDetail()).isEqualTo("Bulb unreachable");
+            });
+    }
+    
+    @Test
+    @DisplayName("Should time out lights the bridge never gets to")
+    void shouldTimeOutStragglersAtCycleDeadline() {
+        // Given - a lane that never runs anything, like a bridge stuck on an earlier call
+        when(hueProperties.getCycleDeadline()).thenReturn(Duration.ofMillis(50));
+        WeatherAnalysis analysis = createWeatherAnalysis("rain", true, false);
+        when(colorParserService.parseColor("light purple")).thenReturn(Color.of(221, 160, 221));
+        
+        HueBridgeConnection stuck = new HueBridgeConnection(
+            BridgeRegistry.PRIMARY_BRIDGE, () -> Optional.of(hue), task -> { });
+        stuck.connect();
+        when(bridgeRegistry.getBridges()).thenReturn(List.of(stuck));
+        when(hue.getLights()).thenReturn(mockLights);
+        
+        // When
+        CycleResult result = hueService.setLightMoodForWeather(analysis).join();
+        
+        // Then
+        assertThat(result.count(LightOutcome.Status.TIMED_OUT)).isEqualTo(2);
+        verify(light1, never()).setState(any(UpdateState.class));
+        verify(light2, never()).setState(any(UpdateState.class));
+    }
+    
+    @Test
+    @DisplayName("Should give up on a bridge call that hangs and move on to the next light")
+    void shouldAbandonHangingBridgeCall() {
+        // Given - a bulb whose request never returns
+        when(hueProperties.getClipRequestTimeout()).thenReturn(Duration.ofMillis(100));
+        WeatherAnalysis analysis = createWeatherAnalysis("rain", true, false);
+        when(colorParserService.parseColor("light purple")).thenReturn(Color.of(221, 160, 221));
+        doAnswer(invocation -> {
+            Thread.sleep(Duration.ofMinutes(1));
+            return null;
+        }).when(light1).setState(any(UpdateState.class));
+        
+        givenConnectedBridge();
+        when(hue.getLights()).thenReturn(mockLights);
+        
+        // When
+        CycleResult result = hueService.setLightMoodForWeather(analysis).orTimeout(10, TimeUnit.SECONDS).join();
+        
+        // Then
+        assertThat(result.count(LightOutcome.Status.SUCCESS)).isEqualTo(1);
+        assertThat(result.getFailures()).singleElement()
+            .satisfies(failure -> assertThat(failure.getLightName()).isEqualTo("Living Room"));
+        verify(light2).setState(any(UpdateState.class));
+    }
+    
+    @Test
+    @DisplayName("Should trace each light command as a child of the cycle")
+    void shouldTraceLightCommandsUnderCycle() {
+        // Given
+        TestObservationRegistry observationRegistry = TestObservationRegistry.create();
+        LightShadowStore lightShadowStore = new LightShadowStore(hueProperties);
+        hueService = new HueService(hueProperties, colorMappingProperties, colorParserService,
+            new LightCommandDispatcher(hueProperties, new GroupedLightPlanner(), lightShadowStore, bridgeRegistry, 
+                observationRegistry), 
+            lightShadowStore, new LightHoldStore(), bridgeRegistry, weatherSceneService, clusterCoordinator,
+            new PipelineMetrics(new SimpleMeterRegistry()), new MoodStateBroadcaster(), observationRegistry);
+        WeatherAnalysis analysis = createWeatherAnalysis("rain", true, false);
+        when(colorParserService.parseColor("light purple")).thenReturn(Color.of(221, 160, 221));
+        
+        givenConnectedBridge();
+        when(hue.getLights()).thenReturn(mockLights);
+        Observation cycle = Observation.start("weather.check", observationRegistry);
+        
+        // When
+        try (Observation.Scope scope = cycle.openScope()) {
+            hueService.setLightMoodForWeather(analysis).join();
+        }
+        cycle.stop();
+        
+        // Then
+        TestObservationRegistryAssert.assertThat(observationRegistry)
+            .hasNumberOfObservationsWithNameEqualTo("hue.bridge.command", 2)
+            .forAllObservationsWithNameEqualTo("hue.bridge.command", observation -> observation
+                .hasParentObservationEqualTo(cycle)
+                .hasLowCardinalityKeyValue("weather.condition", "rain")
+                .hasLowCardinalityKeyValue("hue.target.type", "light"));
+    }
+    
     private WeatherAnalysis createWeatherAnalysis(String condition, boolean isRaining, boolean isCold) {
         return WeatherAnalysis.builder()
             .analysisTime(LocalDateTime.now())
@@ -366,14 +630,11 @@ class HueServiceTest {
             .build();
     }
     
-    private void setPrivateHueField() {
-        // Use reflection to set the private hue field
-        try {
-            java.lang.reflect.Field hueField = HueService.class.getDeclaredField("hue");
-            hueField.setAccessible(true);
-            hueField.set(hueService, hue);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to set private hue field", e);
-        }
+    private void givenConnectedBridge() {
+        HueBridgeConnection bridge = new HueBridgeConnection(
+            BridgeRegistry.PRIMARY_BRIDGE, () -> Optional.of(hue), Runnable::run);
+        bridge.connect();
+        when(bridgeRegistry.getBridges()).thenReturn(List.of(bridge));
+        when(bridgeRegistry.getPrimary()).thenReturn(Optional.of(bridge));
     }
-}
\ No newline at end of file
+}
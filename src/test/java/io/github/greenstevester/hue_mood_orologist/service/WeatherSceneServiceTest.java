@@ -0,0 +1,169 @@
+package io.github.greenstevester.hue_mood_orologist.service;
+
+import io.github.greenstevester.hue_mood_orologist.bridge.BridgeRegistry;
+import io.github.greenstevester.hue_mood_orologist.bridge.HueClipClient;
+import io.github.greenstevester.hue_mood_orologist.cluster.ClusterCoordinator;
+import io.github.greenstevester.hue_mood_orologist.config.ColorMappingProperties;
+import io.github.greenstevester.hue_mood_orologist.config.HueProperties;
+import io.github.greenstevester.hue_mood_orologist.dispatch.LightShadowStore;
+import io.github.greenstevester.hue_mood_orologist.fakebridge.FakeHueBridge;
+import io.github.greenstevester.hue_mood_orologist.model.LightCommand;
+import io.github.greenstevester.heuvana.Color;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.RestClient;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+class WeatherSceneServiceTest {
+
+    private static final String BRIDGE = "primary";
+    private static final LightCommand RAIN = LightCommand.on(Color.of(200, 160, 255), "rain");
+    
+    @TempDir
+    Path tempDir;
+    
+    private FakeHueBridge bridge;
+    private HueClipClient clipClient;
+    private HueProperties hueProperties;
+    private ColorMappingProperties colorMappingProperties;
+    private LightShadowStore lightShadowStore;
+    private WeatherSceneService weatherSceneService;
+    
+    @BeforeEach
+    void setUp() {
+        bridge = FakeHueBridge.builder().lights(12).rooms(3).build().start();
+        clipClient = new HueClipClient(RestClient.builder(), bridge.getBaseUrl(), FakeHueBridge.API_KEY, 
+            Duration.ofSeconds(2));
+        
+        hueProperties = new HueProperties();
+        hueProperties.setScenesEnabled(true);
+        hueProperties.setSceneStateFile(tempDir.resolve("scenes.properties").toString());
+        hueProperties.setShadowStateFile(tempDir.resolve("shadow.properties").toString());
+        lightShadowStore = new LightShadowStore(hueProperties);
+        
+        colorMappingProperties = new ColorMappingProperties();
+        colorMappingProperties.getConditions().putAll(Map.of("rain", "light purple", "sunshine", "yellow"));
+        
+        BridgeRegistry bridgeRegistry = mock(BridgeRegistry.class);
+        when(bridgeRegistry.getClipClient(BRIDGE)).thenReturn(Optional.of(clipClient));
+        weatherSceneService = new WeatherSceneService(hueProperties, colorMappingProperties, 
+            new ColorParserService(), bridgeRegistry, mock(ClusterCoordinator.class), lightShadowStore);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        bridge.close();
+    }
+    
+    @Test
+    @DisplayName("Should create one scene per recallable condition and room, then leave them alone")
+    void shouldCreateScenesOnce() {
+        // rain, and the default color for cold and clear, in each of the 3 rooms
+        assertThat(weatherSceneService.sync(BRIDGE, clipClient)).isEqualTo(6);
+        assertThat(bridge.getScenes()).hasSize(6);
+        // sunshine is mapped, but never planned
+        assertThat(bridge.getScenes().values()).noneMatch(scene -> scene.name().equals("Weather sunshine"));
+        
+        bridge.clearCommands();
+        assertThat(weatherSceneService.sync(BRIDGE, clipClient)).isZero();
+        assertThat(bridge.getCommands()).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should rewrite scenes only when the color mapping changes")
+    void shouldUpdateScenesWhenMappingChanges() {
+        weatherSceneService.sync(BRIDGE, clipClient);
+        bridge.clearCommands();
+        
+        colorMappingProperties.getConditions().put("rain", "dark blue");
+        
+        assertThat(weatherSceneService.sync(BRIDGE, clipClient)).isEqualTo(6);
+        assertThat(bridge.getCommands()).allSatisfy(command -> assertThat(command.method()).isEqualTo("PUT"));
+        assertThat(bridge.getScenes()).hasSize(6);
+    }
+    
+    @Test
+    @DisplayName("Should pick up scenes persisted by a previous run")
+    void shouldReuseScenesAfterRestart() {
+        weatherSceneService.sync(BRIDGE, clipClient);
+        bridge.clearCommands();
+        
+        BridgeRegistry bridgeRegistry = mock(BridgeRegistry.class);
+        when(bridgeRegistry.getClipClient(BRIDGE)).thenReturn(Optional.of(clipClient));
+        WeatherSceneService restarted = new WeatherSceneService(hueProperties, colorMappingProperties, 
+            new ColorParserService(), bridgeRegistry, mock(ClusterCoordinator.class), 
+            new LightShadowStore(hueProperties));
+        restarted.load();
+        
+        // Recalled before any sync in this run, the scenes still cover every light
+        assertThat(restarted.recall(BRIDGE, "rain", RAIN).recalled()).isEqualTo(new HashSet<>(bridge.getLightIds()));
+        assertThat(restarted.sync(BRIDGE, clipClient)).isZero();
+        assertThat(bridge.getScenes()).hasSize(6);
+    }
+    
+    @Test
+    @DisplayName("Should recall a weather change with one call per room")
+    void shouldRecallOneScenePerRoom() {
+        weatherSceneService.sync(BRIDGE, clipClient);
+        bridge.clearCommands();
+        
+        WeatherSceneService.RecallResult recall = weatherSceneService.recall(BRIDGE, "Rain", RAIN);
+        
+        assertThat(recall.recalled()).isEqualTo(new HashSet<>(bridge.getLightIds()));
+        assertThat(bridge.getCommands("scene")).hasSize(3)
+            .allSatisfy(command -> assertThat(command.body()).contains("\"recall\""));
+        assertThat(bridge.getCommands("light")).isEmpty();
+        assertThat(bridge.getLightIds()).allMatch(lightId -> lightShadowStore.isApplied(lightId, RAIN));
+    }
+    
+    @Test
+    @DisplayName("Should not recall again while the condition is unchanged")
+    void shouldNotRecallUnchangedCondition() {
+        weatherSceneService.sync(BRIDGE, clipClient);
+        weatherSceneService.recall(BRIDGE, "rain", RAIN);
+        bridge.clearCommands();
+        
+        WeatherSceneService.RecallResult recall = weatherSceneService.recall(BRIDGE, "rain", RAIN);
+        
+        assertThat(recall.recalled()).isEmpty();
+        assertThat(recall.unchanged()).isEqualTo(new HashSet<>(bridge.getLightIds()));
+        assertThat(bridge.getCommands()).isEmpty();
+        
+        // A light switched by hand only brings its own room back
+        lightShadowStore.invalidate(bridge.getLightIds().getFirst());
+        assertThat(weatherSceneService.recall(BRIDGE, "rain", RAIN).recalled()).hasSize(4);
+        assertThat(bridge.getCommands("scene")).hasSize(1);
+    }
+    
+    @Test
+    @DisplayName("Should recall the default scene for unmapped conditions")
+    void shouldRecallDefaultSceneForUnmappedCondition() {
+        weatherSceneService.sync(BRIDGE, clipClient);
+        bridge.clearCommands();
+        
+        weatherSceneService.recall(BRIDGE, "fog", LightCommand.on(Color.of(255, 255, 255), "fog"));
+        
+        Set<UUID> defaultScenes = new HashSet<>();
+        bridge.getScenes().values().stream()
+            .filter(scene -> scene.name().equals("Weather default"))
+            .forEach(scene -> defaultScenes.add(scene.id()));
+        assertThat(bridge.getCommands("scene"))
+            .allSatisfy(command -> assertThat(defaultScenes).anyMatch(id -> command.path().endsWith(id.toString())));
+    }
+}
@@ -1,12 +1,18 @@
 package io.github.greenstevester.hue_mood_orologist.service;
 
+import io.github.greenstevester.hue_mood_orologist.config.ColorMappingProperties;
+import io.github.greenstevester.hue_mood_orologist.config.ForecastProperties;
+import io.github.greenstevester.hue_mood_orologist.config.StreamingProperties;
 import io.github.greenstevester.hue_mood_orologist.model.HourlyData;
+import io.github.greenstevester.hue_mood_orologist.model.MinutelyData;
 import io.github.greenstevester.hue_mood_orologist.model.WeatherAnalysis;
 import io.github.greenstevester.hue_mood_orologist.model.WeatherResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.client.RestClient;
@@ -18,9 +24,10 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+@DisabledInNativeImage
 @ExtendWith(MockitoExtension.class)
 class WeatherServiceTest {
-
+    
     @Mock
     private RestClient.Builder restClientBuilder;
     
@@ -33,12 +40,17 @@ class WeatherServiceTest {
     @Mock
     private RestClient.ResponseSpec responseSpec;
     
+    private final ForecastProperties forecastProperties = new ForecastProperties();
+    private final ColorMappingProperties colorMappingProperties = new ColorMappingProperties();
+    private final StreamingProperties streamingProperties = new StreamingProperties();
+    
     private WeatherService weatherService;
     
     @BeforeEach
     void setUp() {
         // Use reflection to set up WeatherService with proper field values
-        weatherService = new WeatherService(restClientBuilder);
+        weatherService = new WeatherService(restClientBuilder, forecastProperties, colorMappingProperties, 
+            streamingProperties);
         
         try {
             // Set the threshold fields using reflection
@@ -233,6 +245,129 @@ class WeatherServiceTest {
         assertThat(analysis.getSummary()).contains("Invalid weather data received");
     }
     
+    @Test
+    @DisplayName("Should request only the variables of the active rules")
+    void shouldRequestOnlyActiveRuleVariables() throws Exception {
+        // Given - the cold rule is switched off
+        setPrivateField(weatherService, "coldThreshold", null);
+        when(responseSpec.body(WeatherResponse.class)).thenReturn(createWeatherResponse(
+            null, Arrays.asList(0.0, 0.0), Arrays.asList(5, 8)));
+        
+        // When
+        weatherService.fetchAndAnalyzeWeather();
+        
+        // Then
+        ArgumentCaptor<String> url = ArgumentCaptor.forClass(String.class);
+        verify(requestSpec).uri(url.capture());
+        assertThat(url.getValue())
+            .contains("&hourly=precipitation_probability,precipitation&forecast_hours=8")
+            .doesNotContain("temperature_2m")
+            .doesNotContain("&current=")
+            .doesNotContain("minutely_15");
+    }
+    
+    @Test
+    @DisplayName("Should request temperature for a snow effect with the cold rule off")
+    void shouldRequestVariablesOfReactedToConditions() throws Exception {
+        // Given - only the snow effect needs temperature
+        setPrivateField(weatherService, "coldThreshold", null);
+        setPrivateField(weatherService, "rainProbabilityThreshold", null);
+        streamingProperties.setEnabled(true);
+        streamingProperties.getEffects().put("snow", "snow-drift");
+        when(responseSpec.body(WeatherResponse.class)).thenReturn(createWeatherResponse(
+            Arrays.asList(-2.0, -3.0), Arrays.asList(0.5, 0.0), Arrays.asList(80, 40)));
+        
+        // When
+        WeatherAnalysis analysis = weatherService.fetchAndAnalyzeWeather();
+        
+        // Then
+        ArgumentCaptor<String> url = ArgumentCaptor.forClass(String.class);
+        verify(requestSpec).uri(url.capture());
+        assertThat(url.getValue()).contains("&hourly=temperature_2m,precipitation_probability,precipitation&");
+        assertThat(analysis.getWeatherCondition()).isEqualTo("snow");
+    }
+    
+    @Test
+    @DisplayName("Should leave temperature out when nothing reads it")
+    void shouldLeaveOutUnreadVariables() throws Exception {
+        // Given - rain is mapped to a color, but rain is decided by its own rules
+        setPrivateField(weatherService, "coldThreshold", null);
+        colorMappingProperties.getConditions().put("rain", "blue");
+        streamingProperties.getEffects().put("snow", "snow-drift");
+        when(responseSpec.body(WeatherResponse.class)).thenReturn(createWeatherResponse(
+            null, Arrays.asList(0.0, 0.0), Arrays.asList(5, 8)));
+        
+        // When
+        weatherService.fetchAndAnalyzeWeather();
+        
+        // Then - streaming is off, so its snow effect doesn't count
+        ArgumentCaptor<String> url = ArgumentCaptor.forClass(String.class);
+        verify(requestSpec).uri(url.capture());
+        assertThat(url.getValue())
+            .contains("&hourly=precipitation_probability,precipitation&")
+            .doesNotContain("temperature_2m");
+    }
+    
+    @Test
+    @DisplayName("Should request the current and 15-minute blocks when configured")
+    void shouldRequestCurrentAndMinutelyBlocks() {
+        // Given
+        forecastProperties.setHours(4);
+        forecastProperties.setCurrent(true);
+        forecastProperties.setMinutely15Hours(2);
+        when(responseSpec.body(WeatherResponse.class)).thenReturn(createWeatherResponse(
+            Arrays.asList(15.0, 14.0), Arrays.asList(0.0, 0.0), Arrays.asList(5, 8)));
+        
+        // When
+        weatherService.fetchAndAnalyzeWeather();
+        
+        // Then
+        ArgumentCaptor<String> url = ArgumentCaptor.forClass(String.class);
+        verify(requestSpec).uri(url.capture());
+        assertThat(url.getValue())
+            .contains("&hourly=temperature_2m,precipitation_probability,precipitation&forecast_hours=4")
+            .contains("&current=temperature_2m,precipitation")
+            .contains("&minutely_15=precipitation&forecast_minutely_15=8");
+    }
+    
+    @Test
+    @DisplayName("Should analyze rain without temperature when the cold rule is off")
+    void shouldAnalyzeWithoutTemperature() throws Exception {
+        // Given
+        setPrivateField(weatherService, "coldThreshold", null);
+        when(responseSpec.body(WeatherResponse.class)).thenReturn(createWeatherResponse(
+            null, Arrays.asList(0.0, 0.5, 0.0), Arrays.asList(10, 60, 20)));
+        
+        // When
+        WeatherAnalysis analysis = weatherService.fetchAndAnalyzeWeather();
+        
+        // Then
+        assertThat(analysis.getWeatherCondition()).isEqualTo("rain");
+        assertThat(analysis.isWillRainSoon()).isTrue();
+        assertThat(analysis.isVeryCold()).isFalse();
+        assertThat(analysis.getCurrentTemperature()).isNull();
+        assertThat(analysis.getSummary()).doesNotContain("temp");
+    }
+    
+    @Test
+    @DisplayName("Should see rain in the next 15 minutes that the hourly value spreads out")
+    void shouldDetectRainFromMinutelyData() {
+        // Given
+        WeatherResponse response = createWeatherResponse(
+            Arrays.asList(15.0, 14.0), Arrays.asList(0.05, 0.0), Arrays.asList(10, 10));
+        MinutelyData minutely = new MinutelyData();
+        minutely.setPrecipitation(Arrays.asList(0.4, 0.2, 0.0, 0.0));
+        response.setMinutely15(minutely);
+        when(responseSpec.body(WeatherResponse.class)).thenReturn(response);
+        
+        // When
+        WeatherAnalysis analysis = weatherService.fetchAndAnalyzeWeather();
+        
+        // Then
+        assertThat(analysis.isRaining()).isTrue();
+        assertThat(analysis.getMaxPrecipitationAmount()).isEqualTo(0.4);
+    }
+    
     private WeatherResponse createWeatherResponse(
             java.util.List<Double> temperatures, 
             java.util.List<Double> precipitation, 
@@ -0,0 +1,125 @@
+package io.github.greenstevester.hue_mood_orologist.streaming;
+
+import io.github.greenstevester.hue_mood_orologist.config.StreamingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EntertainmentStreamerTest {
+
+    private static final String CONFIGURATION_ID = "1a8d99cc-967b-44f2-9202-43f976c0fa6b";
+    
+    private RecordingFrameReceiver receiver;
+    private StreamingProperties streamingProperties;
+    private EntertainmentStreamer streamer;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        receiver = new RecordingFrameReceiver();
+        
+        streamingProperties = new StreamingProperties();
+        streamingProperties.setEnabled(true);
+        streamingProperties.setPort(receiver.getPort());
+        streamingProperties.setFrameRate(50);
+        streamingProperties.setEntertainmentConfigurationId(CONFIGURATION_ID);
+        streamingProperties.setChannels(List.of(0, 1, 2));
+        streamingProperties.getEffects().put("showers", WeatherEffects.LIGHTNING);
+        
+        streamer = new EntertainmentStreamer(streamingProperties);
+        streamer.start();
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        streamer.stop();
+        receiver.close();
+    }
+    
+    @Test
+    @DisplayName("Should stream frames in HueStream layout with increasing sequence numbers")
+    void shouldStreamFramesInHueStreamLayout() throws Exception {
+        // Given
+        List<Integer> channels = streamingProperties.getChannels();
+        streamer.playFrames("red", List.of(EntertainmentFrame.uniform(channels, 255, 0, 0)));
+        
+        // When
+        boolean received = receiver.awaitFrames(10, 2000);
+        
+        // Then
+        assertThat(received).isTrue();
+        RecordingFrameReceiver.ReceivedFrame first = receiver.getFrames().get(0);
+        RecordingFrameReceiver.ReceivedFrame second = receiver.getFrames().get(1);
+        assertThat(first.protocol()).isEqualTo("HueStream");
+        assertThat(first.configurationId()).isEqualTo(CONFIGURATION_ID);
+        assertThat(first.channels()).containsExactly(0, 1, 2);
+        assertThat(first.colors().get(0)).containsExactly(0xffff, 0, 0);
+        assertThat(second.sequence()).isEqualTo((first.sequence() + 1) & 0xff);
+    }
+    
+    @Test
+    @DisplayName("Should hold the configured frame rate")
+    void shouldHoldConfiguredFrameRate() throws Exception {
+        // Given
+        streamer.applyWeather("showers");
+        
+        // When
+        assertThat(receiver.awaitFrames(26, 3000)).isTrue();
+        
+        // Then - 25 intervals at 50 fps take about 500ms
+        List<RecordingFrameReceiver.ReceivedFrame> frames = receiver.getFrames();
+        long elapsedMillis = (frames.get(25).receivedAtNanos() - frames.get(0).receivedAtNanos()) / 1_000_000;
+        assertThat(elapsedMillis).isBetween(350L, 1000L);
+    }
+    
+    @Test
+    @DisplayName("Should stop sending frames when no effect is mapped to the condition")
+    void shouldStopWhenConditionHasNoEffect() throws Exception {
+        // Given
+        streamer.applyWeather("showers");
+        receiver.awaitFrames(5, 2000);
+        
+        // When
+        streamer.applyWeather("clear");
+        Thread.sleep(100);
+        int framesAfterStop = receiver.getFrames().size();
+        Thread.sleep(200);
+        
+        // Then
+        assertThat(receiver.getFrames()).hasSize(framesAfterStop);
+    }
+    
+    @Test
+    @DisplayName("Should refuse to start with more channels than a frame can carry")
+    void shouldRejectTooManyChannels() {
+        // Given
+        StreamingProperties tooMany = new StreamingProperties();
+        tooMany.setEnabled(true);
+        tooMany.setChannels(IntStream.rangeClosed(0, EntertainmentStreamer.MAX_CHANNELS).boxed().toList());
+        EntertainmentStreamer rejected = new EntertainmentStreamer(tooMany);
+        
+        // When / Then
+        assertThatThrownBy(rejected::start)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("streaming.channels");
+        assertThat(rejected.isRunning()).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should precompute looping frames for every channel")
+    void shouldPrecomputeEffectFrames() {
+        // When
+        List<EntertainmentFrame> lightning = WeatherEffects.frames(WeatherEffects.LIGHTNING, List.of(0, 1), 25);
+        
+        // Then
+        assertThat(lightning).hasSize(150);
+        assertThat(lightning).allSatisfy(frame -> assertThat(frame.getChannels()).containsExactly(0, 1));
+        assertThat(WeatherEffects.frames("unknown", List.of(0), 25)).isEmpty();
+    }
+}
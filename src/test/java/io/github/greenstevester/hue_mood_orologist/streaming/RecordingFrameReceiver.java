@@ -0,0 +1,88 @@
+package io.github.greenstevester.hue_mood_orologist.streaming;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Local stand-in for the bridge's entertainment endpoint. Records every
+ * frame it receives, with its arrival time, for assertions in tests.
+ */
+class RecordingFrameReceiver implements AutoCloseable {
+    
+    record ReceivedFrame(long receivedAtNanos, String protocol, int sequence, String configurationId, 
+                         List<Integer> channels, List<int[]> colors) {
+    }
+    
+    private final DatagramSocket socket;
+    private final List<ReceivedFrame> frames = new CopyOnWriteArrayList<>();
+    private final Thread receiverThread;
+    
+    RecordingFrameReceiver() throws SocketException {
+        socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        receiverThread = Thread.ofPlatform().name("frame-receiver").daemon(true).start(this::receive);
+    }
+    
+    int getPort() {
+        return socket.getLocalPort();
+    }
+    
+    List<ReceivedFrame> getFrames() {
+        return frames;
+    }
+    
+    boolean awaitFrames(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (frames.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return frames.size() >= count;
+    }
+    
+    private void receive() {
+        byte[] data = new byte[2048];
+        DatagramPacket packet = new DatagramPacket(data, data.length);
+        while (!socket.isClosed()) {
+            try {
+                socket.receive(packet);
+                frames.add(decode(ByteBuffer.wrap(Arrays.copyOf(packet.getData(), packet.getLength()))));
+            } catch (Exception e) {
+                return;
+            }
+        }
+    }
+    
+    private ReceivedFrame decode(ByteBuffer buffer) {
+        long receivedAt = System.nanoTime();
+        byte[] protocol = new byte[EntertainmentFrame.PROTOCOL_NAME.length];
+        buffer.get(protocol);
+        buffer.get(); // major version
+        buffer.get(); // minor version
+        int sequence = buffer.get() & 0xff;
+        buffer.position(EntertainmentFrame.HEADER_SIZE);
+        byte[] configurationId = new byte[EntertainmentFrame.CONFIGURATION_ID_SIZE];
+        buffer.get(configurationId);
+        
+        List<Integer> channels = new ArrayList<>();
+        List<int[]> colors = new ArrayList<>();
+        while (buffer.remaining() >= EntertainmentFrame.CHANNEL_SIZE) {
+            channels.add(buffer.get() & 0xff);
+            colors.add(new int[]{buffer.getShort() & 0xffff, buffer.getShort() & 0xffff, buffer.getShort() & 0xffff});
+        }
+        return new ReceivedFrame(receivedAt, new String(protocol, StandardCharsets.US_ASCII), sequence,
+            new String(configurationId, StandardCharsets.US_ASCII), channels, colors);
+    }
+    
+    @Override
+    public void close() throws InterruptedException {
+        socket.close();
+        receiverThread.join(1000);
+    }
+}
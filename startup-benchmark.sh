@@ -0,0 +1,76 @@
+#!/bin/bash
+
+# Time to first light update and resident memory (RSS) of the JVM build and,
+# when it has been built, the native image. Needs a reachable bridge; pass the
+# usual arguments:
+#
+#   ./gradlew bootJar nativeCompile
+#   ./startup-benchmark.sh --hue.api-key=YOUR_API_KEY --hue.bridge-ip=10.0.0.101
+#
+# BENCHMARK_RUNS (default 3) and BENCHMARK_TIMEOUT (seconds, default 60) tune the runs.
+
+ARGS=("$@")
+if [ ${#ARGS[@]} -eq 0 ] && [ -n "${BENCHMARK_ARGS:-}" ]; then
+    read -ra ARGS <<< "$BENCHMARK_ARGS"
+fi
+RUNS=${BENCHMARK_RUNS:-3}
+TIMEOUT=${BENCHMARK_TIMEOUT:-60}
+MARKER="First light update after"
+
+JAR=$(ls build/libs/*.jar 2>/dev/null | grep -v -- '-plain' | head -1)
+NATIVE=build/native/nativeCompile/hue-mood-orologist
+
+# Check right away, and send every light so the shadow state doesn't skip the bridge calls
+RUN_ARGS=("${ARGS[@]}" --schedule.initial-delay-seconds=0 --hue.shadow-state-enabled=false)
+
+measure() {
+    local name=$1
+    shift
+    local log
+    log=$(mktemp)
+    "$@" "${RUN_ARGS[@]}" > "$log" 2>&1 &
+    local pid=$!
+    
+    local waited=0
+    while [ $waited -lt $((TIMEOUT * 10)) ]; do
+        if grep -q "$MARKER" "$log" || ! kill -0 $pid 2>/dev/null; then
+            break
+        fi
+        sleep 0.1
+        waited=$((waited + 1))
+    done
+    
+    local line
+    line=$(grep -m1 "$MARKER" "$log")
+    if [ -n "$line" ]; then
+        local millis rss
+        millis=$(echo "$line" | sed -E 's/.*after ([0-9]+) ms.*/\1/')
+        rss=$(ps -o rss= -p $pid | tr -d ' ')
+        printf "%-8s %12s ms %10s MB\n" "$name" "$millis" "$((rss / 1024))"
+        rm -f "$log"
+    else
+        echo "$name: no light update within ${TIMEOUT}s, log kept in $log"
+    fi
+    
+    kill $pid 2>/dev/null
+    wait $pid 2>/dev/null || true
+}
+
+echo "=== Startup Benchmark ==="
+printf "%-8s %15s %13s\n" "Build" "First update" "RSS"
+
+if [ -n "$JAR" ]; then
+    for ((run = 1; run <= RUNS; run++)); do
+        measure "jvm" java -jar "$JAR"
+    done
+else
+    echo "jvm: no jar in build/libs, run ./gradlew bootJar"
+fi
+
+if [ -x "$NATIVE" ]; then
+    for ((run = 1; run <= RUNS; run++)); do
+        measure "native" "$NATIVE"
+    done
+else
+    echo "native: no image at $NATIVE, run ./gradlew nativeCompile"
+fi